@@ -0,0 +1,61 @@
+package org.hschott.ficum.benchmark;
+
+import org.hschott.ficum.parser.ParseHelper;
+import org.hschott.ficum.visitor.BatchPredicateVisitor;
+import org.hschott.ficum.visitor.ColumnBatch;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Measures the throughput of the batch evaluation in rows per second on a single core.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BatchBenchmark {
+
+    private static final int ROWS = 1 << 20;
+
+    private static final String[] STATUS = {"OPEN", "SHIPPED", "CANCELLED", "RETURNED"};
+
+    private static final String[] SELECTORS = {"status", "quantity", "price"};
+
+    @Param({"status=='OPEN',price=gt=10.5;quantity=le=3", "quantity=ge=2,quantity=lt=8,price=le=15.0"})
+    private String query;
+
+    private ColumnBatch batch;
+
+    private Function<ColumnBatch, long[]> select;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        int[] status = new int[ROWS];
+        long[] quantity = new long[ROWS];
+        double[] price = new double[ROWS];
+        for (int i = 0; i < ROWS; i++) {
+            status[i] = random.nextInt(STATUS.length);
+            quantity[i] = random.nextInt(10);
+            price[i] = random.nextDouble() * 20;
+        }
+        batch = new ColumnBatch(ROWS);
+        batch.addStringColumn("status", status, STATUS);
+        batch.addLongColumn("quantity", quantity, null);
+        batch.addDoubleColumn("price", price, null);
+
+        select = new BatchPredicateVisitor().start(ParseHelper.parse(query, SELECTORS));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public long[] select() {
+        return select.apply(batch);
+    }
+
+}
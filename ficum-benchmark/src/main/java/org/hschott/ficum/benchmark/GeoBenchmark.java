@@ -0,0 +1,83 @@
+package org.hschott.ficum.benchmark;
+
+import org.hschott.ficum.collection.IndexedCollection;
+import org.hschott.ficum.node.Node;
+import org.hschott.ficum.parser.ParseHelper;
+import org.hschott.ficum.visitor.CompilingPredicateVisitor;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * Finds vehicles near a point among a million positions, with a geo index and by testing every position. Run with
+ * {@code mvn -Pbenchmark package && java -jar ficum-benchmark/target/benchmarks.jar GeoBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GeoBenchmark {
+
+    private static final String[] SELECTORS = {"position"};
+
+    @Param({"position=nr=[13.4,52.5,1000.0]", "position=wi=[13.40,52.50,13.42,52.51]"})
+    private String query;
+
+    private IndexedCollection<Vehicle> collection;
+
+    private final List<Vehicle> vehicles = new ArrayList<>();
+
+    private Predicate<Vehicle> predicate;
+
+    private Node node;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        collection = new IndexedCollection<>(Vehicle.class);
+        collection.addGeoIndex("position", Vehicle::getPosition, 0.01);
+        for (int i = 0; i < 1_000_000; i++) {
+            Vehicle vehicle = new Vehicle(new double[]{13 + random.nextDouble(), 52 + random.nextDouble()});
+            vehicles.add(vehicle);
+            collection.add(vehicle);
+        }
+        node = ParseHelper.parse(query, SELECTORS);
+        predicate = new CompilingPredicateVisitor<>(Vehicle.class).start(node);
+    }
+
+    @Benchmark
+    public int indexed() {
+        return collection.query(node).size();
+    }
+
+    @Benchmark
+    public int filter() {
+        int count = 0;
+        for (Vehicle vehicle : vehicles) {
+            if (predicate.test(vehicle)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public static class Vehicle {
+
+        private final double[] position;
+
+        public Vehicle(double[] position) {
+            this.position = position;
+        }
+
+        public double[] getPosition() {
+            return position;
+        }
+    }
+
+}
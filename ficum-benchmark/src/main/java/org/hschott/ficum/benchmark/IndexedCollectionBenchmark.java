@@ -0,0 +1,58 @@
+package org.hschott.ficum.benchmark;
+
+import org.hschott.ficum.collection.IndexedCollection;
+import org.hschott.ficum.node.Node;
+import org.hschott.ficum.parser.ParseHelper;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Queries an indexed collection of a million orders. Run with
+ * {@code mvn -Pbenchmark package && java -jar ficum-benchmark/target/benchmarks.jar IndexedCollectionBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IndexedCollectionBenchmark {
+
+    private static final String[] STATUS = {"OPEN", "SHIPPED", "CANCELLED", "RETURNED"};
+
+    private static final String[] NAMES = {"Jeff", "Jean", "Chuck", "Max", "Lucky"};
+
+    private static final String[] SELECTORS = {"status", "quantity", "price", "customer.name", "customer.rating"};
+
+    @Param({"status=='RETURNED',price=gt=19.9,quantity=le=3",
+            "status=='OPEN',price=ge=19.99,customer.name=='Max'"})
+    private String query;
+
+    private IndexedCollection<Order> collection;
+
+    private Node node;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        collection = new IndexedCollection<>(Order.class);
+        collection.addHashIndex("status", Order::getStatus);
+        collection.addSortedIndex("price", Order::getPrice);
+        collection.addHashIndex("quantity", Order::getQuantity);
+        for (int i = 0; i < 1_000_000; i++) {
+            Order.Customer customer = random.nextInt(10) == 0 ? null
+                    : new Order.Customer(NAMES[random.nextInt(NAMES.length)], random.nextInt(6));
+            collection.add(new Order(STATUS[random.nextInt(STATUS.length)], random.nextInt(10),
+                    random.nextDouble() * 20, customer));
+        }
+        node = ParseHelper.parse(query, SELECTORS);
+    }
+
+    @Benchmark
+    public int query() {
+        return collection.query(node).size();
+    }
+
+}
@@ -0,0 +1,59 @@
+package org.hschott.ficum.benchmark;
+
+/**
+ * Entity filtered in the benchmarks.
+ */
+public class Order {
+
+    private String status;
+
+    private int quantity;
+
+    private double price;
+
+    private Customer customer;
+
+    public Order(String status, int quantity, double price, Customer customer) {
+        this.status = status;
+        this.quantity = quantity;
+        this.price = price;
+        this.customer = customer;
+    }
+
+    public Customer getCustomer() {
+        return customer;
+    }
+
+    public double getPrice() {
+        return price;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public static class Customer {
+
+        private String name;
+
+        private Integer rating;
+
+        public Customer(String name, Integer rating) {
+            this.name = name;
+            this.rating = rating;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Integer getRating() {
+            return rating;
+        }
+    }
+
+}
@@ -0,0 +1,77 @@
+package org.hschott.ficum.benchmark;
+
+import org.hschott.ficum.node.Node;
+import org.hschott.ficum.parser.ParseHelper;
+import org.hschott.ficum.visitor.CompilingPredicateVisitor;
+import org.hschott.ficum.visitor.InMemoryPredicateVisitor;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * Compares the interpreted and the compiled in-memory predicate. Run with
+ * {@code mvn -Pbenchmark package && java -jar ficum-benchmark/target/benchmarks.jar}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PredicateBenchmark {
+
+    private static final String[] STATUS = {"OPEN", "SHIPPED", "CANCELLED", "RETURNED"};
+
+    private static final String[] NAMES = {"Jeff", "Jean", "Chuck", "Max", "Lucky"};
+
+    private static final String[] SELECTORS = {"status", "quantity", "price", "customer.name", "customer.rating"};
+
+    @Param({"status=='OPEN',price=gt=10.5;quantity=le=3",
+            "customer.rating=ge=3,(customer.name=='Jeff';customer.name=='Max'),status!='CANCELLED'"})
+    private String query;
+
+    private Order[] orders;
+
+    private Predicate<Order> interpreted;
+
+    private Predicate<Order> compiled;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        orders = new Order[10_000];
+        for (int i = 0; i < orders.length; i++) {
+            Order.Customer customer = random.nextInt(10) == 0 ? null
+                    : new Order.Customer(NAMES[random.nextInt(NAMES.length)], random.nextInt(6));
+            orders[i] = new Order(STATUS[random.nextInt(STATUS.length)], random.nextInt(10),
+                    random.nextDouble() * 20, customer);
+        }
+
+        Node node = ParseHelper.parse(query, SELECTORS);
+        interpreted = new InMemoryPredicateVisitor<>(Order.class).start(node);
+        compiled = new CompilingPredicateVisitor<>(Order.class).start(node);
+    }
+
+    private static int count(Order[] orders, Predicate<Order> predicate) {
+        int count = 0;
+        for (Order order : orders) {
+            if (predicate.test(order)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int interpreted() {
+        return count(orders, interpreted);
+    }
+
+    @Benchmark
+    public int compiled() {
+        return count(orders, compiled);
+    }
+
+}
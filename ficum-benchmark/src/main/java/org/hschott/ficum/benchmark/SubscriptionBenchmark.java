@@ -0,0 +1,92 @@
+package org.hschott.ficum.benchmark;
+
+import org.hschott.ficum.collection.SubscriptionIndex;
+import org.hschott.ficum.node.Node;
+import org.hschott.ficum.parser.ParseHelper;
+import org.hschott.ficum.visitor.CompilingPredicateVisitor;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * Matches an order against 20000 subscriptions, with the subscription index and one by one. Run with
+ * {@code mvn -Pbenchmark package && java -jar ficum-benchmark/target/benchmarks.jar SubscriptionBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SubscriptionBenchmark {
+
+    private static final String[] STATUS = {"OPEN", "SHIPPED", "CANCELLED", "RETURNED"};
+
+    private static final String[] NAMES = {"Jeff", "Jean", "Chuck", "Max", "Lucky"};
+
+    private static final String[] SELECTORS = {"status", "quantity", "price", "customer.name", "customer.rating"};
+
+    private SubscriptionIndex<Integer, Order> index;
+
+    private final List<Predicate<Order>> predicates = new ArrayList<>();
+
+    private Order[] orders;
+
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        index = new SubscriptionIndex<>(Order.class);
+        index.addSelector("status", Order::getStatus);
+        index.addSelector("price", Order::getPrice);
+        index.addSelector("quantity", Order::getQuantity);
+        for (int i = 0; i < 20_000; i++) {
+            String status = STATUS[random.nextInt(STATUS.length)];
+            double price = random.nextInt(2000) / 100.0;
+            String query = switch (random.nextInt(3)) {
+                case 0 -> "status=='" + status + "',price=ge=" + price + ",price=lt=" + (price + 0.5);
+                case 1 -> "quantity==" + random.nextInt(100) + ",customer.name=='"
+                        + NAMES[random.nextInt(NAMES.length)] + "'";
+                default -> "price=gt=" + (price + 19) + ";status=='" + status + "',quantity=in=["
+                        + random.nextInt(100) + "," + random.nextInt(100) + "]";
+            };
+            Node node = ParseHelper.parse(query, SELECTORS);
+            index.register(i, node);
+            predicates.add(new CompilingPredicateVisitor<>(Order.class).start(node));
+        }
+
+        orders = new Order[1024];
+        for (int i = 0; i < orders.length; i++) {
+            orders[i] = new Order(STATUS[random.nextInt(STATUS.length)], random.nextInt(100),
+                    random.nextDouble() * 20, new Order.Customer(NAMES[random.nextInt(NAMES.length)], 3));
+        }
+    }
+
+    private Order next() {
+        next = (next + 1) & (orders.length - 1);
+        return orders[next];
+    }
+
+    @Benchmark
+    public int indexed() {
+        return index.match(next()).size();
+    }
+
+    @Benchmark
+    public int oneByOne() {
+        Order order = next();
+        int matches = 0;
+        for (Predicate<Order> predicate : predicates) {
+            if (predicate.test(order)) {
+                matches++;
+            }
+        }
+        return matches;
+    }
+
+}
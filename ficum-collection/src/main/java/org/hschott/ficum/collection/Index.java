@@ -0,0 +1,393 @@
+package org.hschott.ficum.collection;
+
+import org.hschott.ficum.node.AbstractVisitor;
+import org.hschott.ficum.node.Arguments;
+import org.hschott.ficum.node.Comparison;
+import org.hschott.ficum.visitor.GeoShape;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+/**
+ * {@link Postings} of the ids of the elements per key of a selector. A lookup returns a new bitmap of the matching ids,
+ * or null if the index can not answer it exactly and the constraint has to be evaluated by a predicate.
+ * <p>
+ * Keys are normalized so equal numbers of different types share a key. A lookup is only answered if the argument
+ * normalizes to a type of the keys, otherwise the predicate may convert the argument in ways the index can not.
+ *
+ * @param <T> type of the indexed objects
+ */
+abstract sealed class Index<T> permits Index.Hash, Index.Sorted, Index.Grid {
+
+    private final Function<? super T, ?> key;
+
+    private final BitSet nulls = new BitSet();
+
+    private final Set<Class<?>> keyTypes = new HashSet<>();
+
+    Index(Function<? super T, ?> key) {
+        this.key = key;
+    }
+
+    /**
+     * @return the key with integral numbers as Long
+     */
+    static Object normalize(Object value) {
+        return switch (value) {
+            case Long number -> number;
+            case Integer number -> number.longValue();
+            case Short number -> number.longValue();
+            case Byte number -> number.longValue();
+            case Double number when number == Math.rint(number) && Math.abs(number) < 0x1p53 -> number.longValue();
+            case null, default -> value;
+        };
+    }
+
+    private static BitSet complement(BitSet bits, BitSet live) {
+        if (bits == null) {
+            return null;
+        }
+        BitSet result = (BitSet) live.clone();
+        result.andNot(bits);
+        return result;
+    }
+
+    /**
+     * @param element the element
+     * @return the normalized key of the element
+     * @throws IllegalArgumentException if the key is a collection
+     */
+    Object keyOf(T element) {
+        return toKey(key.apply(element));
+    }
+
+    /**
+     * @param value the value of an element
+     * @return the normalized key
+     * @throws IllegalArgumentException if the value can not be a key
+     */
+    Object toKey(Object value) {
+        value = normalize(value);
+        if (value instanceof Collection<?>) {
+            throw new IllegalArgumentException("Index keys must be single values, but was: " + value);
+        }
+        return value;
+    }
+
+    void add(int id, Object key) {
+        if (key == null) {
+            nulls.set(id);
+        } else {
+            keyTypes.add(key.getClass());
+            postings().computeIfAbsent(key, k -> new Postings()).add(id);
+        }
+    }
+
+    void remove(int id, Object key) {
+        if (key == null) {
+            nulls.clear(id);
+            return;
+        }
+        Postings ids = postings().get(key);
+        if (ids != null) {
+            ids.remove(id);
+            if (ids.isEmpty()) {
+                postings().remove(key);
+            }
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException if the key can not be indexed with the present keys
+     */
+    void check(Object key) {
+        // any key can be hashed
+    }
+
+    /**
+     * @return true if the normalized argument can be looked up
+     */
+    boolean supports(Object argument) {
+        return postings().isEmpty() || keyTypes.contains(argument.getClass());
+    }
+
+    /**
+     * @return false if lookups of the comparison return a superset of the matching ids
+     */
+    boolean isExact(Comparison comparison) {
+        return true;
+    }
+
+    BitSet lookup(Comparison comparison, Object argument, boolean alwaysWildcard, BitSet live) {
+        return switch (comparison) {
+            case EQUALS -> equalTo(argument, alwaysWildcard);
+            case NOT_EQUALS -> complement(equalTo(argument, alwaysWildcard), live);
+            case IN -> in(Arguments.asList(argument));
+            case NIN -> complement(in(Arguments.asList(argument)), live);
+            case GREATER_THAN, GREATER_EQUALS, LESS_THAN, LESS_EQUALS -> argument == null ? new BitSet()
+                    : range(comparison, normalize(argument));
+            default -> null;
+        };
+    }
+
+    private BitSet equalTo(Object argument, boolean alwaysWildcard) {
+        if (argument == null) {
+            return (BitSet) nulls.clone();
+        }
+        Object value = normalize(argument);
+        if (value instanceof String text && (alwaysWildcard || AbstractVisitor.containsWildcard(text))) {
+            return wildcard(text, alwaysWildcard);
+        }
+        if (!supports(value)) {
+            return null;
+        }
+        BitSet result = new BitSet();
+        Postings ids = postings().get(value);
+        if (ids != null) {
+            ids.orInto(result);
+        }
+        return result;
+    }
+
+    private BitSet in(List<?> arguments) {
+        BitSet result = new BitSet();
+        for (Object argument : arguments) {
+            if (argument == null) {
+                result.or(nulls);
+                continue;
+            }
+            Object value = normalize(argument);
+            if (!supports(value)) {
+                return null;
+            }
+            Postings ids = postings().get(value);
+            if (ids != null) {
+                ids.orInto(result);
+            }
+        }
+        return result;
+    }
+
+    abstract Map<Object, Postings> postings();
+
+    abstract BitSet range(Comparison comparison, Object argument);
+
+    abstract BitSet wildcard(String text, boolean alwaysWildcard);
+
+    /**
+     * Answers ==, !=, =in= and =nin=.
+     */
+    static final class Hash<T> extends Index<T> {
+
+        private final Map<Object, Postings> postings = new HashMap<>();
+
+        Hash(Function<? super T, ?> key) {
+            super(key);
+        }
+
+        @Override
+        Map<Object, Postings> postings() {
+            return postings;
+        }
+
+        @Override
+        BitSet range(Comparison comparison, Object argument) {
+            return null;
+        }
+
+        @Override
+        BitSet wildcard(String text, boolean alwaysWildcard) {
+            return null;
+        }
+    }
+
+    /**
+     * Answers ==, !=, =in=, =nin=, ranges and text with a trailing * wildcard. The keys must be comparable with each
+     * other.
+     */
+    static final class Sorted<T> extends Index<T> {
+
+        private final NavigableMap<Object, Postings> postings = new TreeMap<>(Arguments::compare);
+
+        Sorted(Function<? super T, ?> key) {
+            super(key);
+        }
+
+        private static boolean isPrefix(String text) {
+            int last = text.length() - 1;
+            return last >= 0 && text.charAt(last) == '*'
+                    && !AbstractVisitor.containsWildcard(text.substring(0, last));
+        }
+
+        private static BitSet union(Collection<Postings> postings) {
+            BitSet result = new BitSet();
+            for (Postings ids : postings) {
+                ids.orInto(result);
+            }
+            return result;
+        }
+
+        @Override
+        Map<Object, Postings> postings() {
+            return postings;
+        }
+
+        @Override
+        void check(Object key) {
+            if (key != null && !postings.isEmpty() && !Arguments.isComparable(key, postings.firstKey())) {
+                throw new IllegalArgumentException(String.format("Key %s is not comparable with %s", key,
+                        postings.firstKey()));
+            }
+        }
+
+        @Override
+        BitSet range(Comparison comparison, Object argument) {
+            if (postings.isEmpty()) {
+                return new BitSet();
+            }
+            if (!supports(argument) || !Arguments.isComparable(argument, postings.firstKey())) {
+                return null;
+            }
+            return union(switch (comparison) {
+                case GREATER_THAN -> postings.tailMap(argument, false).values();
+                case GREATER_EQUALS -> postings.tailMap(argument, true).values();
+                case LESS_THAN -> postings.headMap(argument, false).values();
+                default -> postings.headMap(argument, true).values();
+            });
+        }
+
+        @Override
+        BitSet wildcard(String text, boolean alwaysWildcard) {
+            if (alwaysWildcard || !isPrefix(text)) {
+                return null;
+            }
+            if (postings.isEmpty()) {
+                return new BitSet();
+            }
+            if (!supports(text)) {
+                return null;
+            }
+            String prefix = text.substring(0, text.length() - 1);
+            BitSet result = new BitSet();
+            for (Map.Entry<Object, Postings> entry : postings.tailMap(prefix, true).entrySet()) {
+                if (!((String) entry.getKey()).startsWith(prefix)) {
+                    break;
+                }
+                entry.getValue().orInto(result);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Answers =nr=, =wi= and =ix= with a superset: the points are kept per cell of a uniform grid over longitude and
+     * latitude, a lookup unites the cells overlapping the bounding box of the shape. Also answers == null and != null.
+     */
+    static final class Grid<T> extends Index<T> {
+
+        private final Map<Object, Postings> postings = new HashMap<>();
+
+        private final double cellSize;
+
+        private final int columns;
+
+        private final int rows;
+
+        Grid(Function<? super T, ?> key, double cellSize) {
+            super(key);
+            this.cellSize = cellSize;
+            this.columns = (int) Math.ceil(360 / cellSize);
+            this.rows = (int) Math.ceil(180 / cellSize);
+        }
+
+        private int column(double x) {
+            return Math.clamp((long) Math.floor((x + 180) / cellSize), 0, columns - 1);
+        }
+
+        private int row(double y) {
+            return Math.clamp((long) Math.floor((y + 90) / cellSize), 0, rows - 1);
+        }
+
+        @Override
+        Object toKey(Object value) {
+            if (value == null) {
+                return null;
+            }
+            double[] point = GeoShape.toPoint(value);
+            if (point == null) {
+                throw new IllegalArgumentException("Index keys must be points, but was: " + value);
+            }
+            return (long) column(point[0]) * rows + row(point[1]);
+        }
+
+        @Override
+        Map<Object, Postings> postings() {
+            return postings;
+        }
+
+        @Override
+        boolean isExact(Comparison comparison) {
+            return !GeoShape.isGeospatial(comparison);
+        }
+
+        @Override
+        BitSet lookup(Comparison comparison, Object argument, boolean alwaysWildcard, BitSet live) {
+            if (!GeoShape.isGeospatial(comparison)) {
+                boolean isNull = argument == null
+                        && (Comparison.EQUALS.equals(comparison) || Comparison.NOT_EQUALS.equals(comparison));
+                return isNull ? super.lookup(comparison, null, alwaysWildcard, live) : null;
+            }
+            GeoShape shape = GeoShape.of(comparison, Arguments.asList(argument));
+            if (shape == null) {
+                return null;
+            }
+            double[] bounds = shape.bounds();
+            int minColumn = column(bounds[0]);
+            int minRow = row(bounds[1]);
+            int maxColumn = column(bounds[2]);
+            int maxRow = row(bounds[3]);
+
+            BitSet result = new BitSet();
+            if ((long) (maxColumn - minColumn + 1) * (maxRow - minRow + 1) > postings.size()) {
+                // fewer occupied cells than cells in the bounds
+                for (Map.Entry<Object, Postings> entry : postings.entrySet()) {
+                    long cell = (Long) entry.getKey();
+                    int column = (int) (cell / rows);
+                    int row = (int) (cell % rows);
+                    if (column >= minColumn && column <= maxColumn && row >= minRow && row <= maxRow) {
+                        entry.getValue().orInto(result);
+                    }
+                }
+                return result;
+            }
+            for (int column = minColumn; column <= maxColumn; column++) {
+                for (int row = minRow; row <= maxRow; row++) {
+                    Postings ids = postings.get((long) column * rows + row);
+                    if (ids != null) {
+                        ids.orInto(result);
+                    }
+                }
+            }
+            return result;
+        }
+
+        @Override
+        BitSet range(Comparison comparison, Object argument) {
+            return null;
+        }
+
+        @Override
+        BitSet wildcard(String text, boolean alwaysWildcard) {
+            return null;
+        }
+    }
+
+}
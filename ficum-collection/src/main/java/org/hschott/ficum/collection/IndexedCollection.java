@@ -0,0 +1,326 @@
+package org.hschott.ficum.collection;
+
+import org.hschott.ficum.node.Builder;
+import org.hschott.ficum.node.Constraint;
+import org.hschott.ficum.node.ConstraintNode;
+import org.hschott.ficum.node.Node;
+import org.hschott.ficum.node.OperationNode;
+import org.hschott.ficum.node.Operator;
+import org.hschott.ficum.visitor.CompilingPredicateVisitor;
+import org.hschott.ficum.visitor.GeoShape;
+import org.hschott.ficum.visitor.InMemoryPredicateVisitor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * A collection of objects answering FICUM queries from indexes. Hash indexes answer ==, !=, =in= and =nin=, sorted
+ * indexes additionally answer =gt=, =ge=, =lt=, =le= and text with a trailing * wildcard, geo indexes narrow =nr=,
+ * =wi= and =ix= down to the points in grid cells near the shape. Every element has an id, an index keeps the ids per
+ * key, so a query is answered by intersecting, uniting and complementing bitmaps.
+ * Constraints no index answers make up the residual part of the query, it is evaluated by a predicate of
+ * {@link CompilingPredicateVisitor} on the candidates the indexes leave.
+ * <p>
+ * Elements are distinct by equals. The key of an indexed selector must be a single value, it must agree with the
+ * value the visitor reads for the selector and must not change while the element is in the collection. Adding,
+ * removing and querying may happen concurrently, a query sees either all or nothing of an add or remove.
+ *
+ * @param <T> type of the elements
+ */
+public class IndexedCollection<T> {
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<String, Index<T>> indexes = new LinkedHashMap<>();
+
+    private final Map<T, Integer> ids = new HashMap<>();
+
+    private final BitSet live = new BitSet();
+
+    private Object[] elements = new Object[16];
+
+    private InMemoryPredicateVisitor<T> visitor;
+
+    /**
+     * @param type type of the elements, for the visitor evaluating the residual part of queries
+     */
+    public IndexedCollection(Class<T> type) {
+        super();
+        this.visitor = new CompilingPredicateVisitor<>(Constraint.checkArgNotNull(type, "type"));
+    }
+
+    /**
+     * @param element the element to add
+     * @return true if the element was added, false if it was present
+     * @throws IllegalArgumentException if a key of the element can not be indexed
+     */
+    public boolean add(T element) {
+        Constraint.checkArgNotNull(element, "element");
+        lock.writeLock().lock();
+        try {
+            if (ids.containsKey(element)) {
+                return false;
+            }
+            Object[] keys = keysOf(element);
+
+            int id = live.nextClearBit(0);
+            if (id == elements.length) {
+                elements = Arrays.copyOf(elements, elements.length * 2);
+            }
+            elements[id] = element;
+            live.set(id);
+            ids.put(element, id);
+            int i = 0;
+            for (Index<T> index : indexes.values()) {
+                index.add(id, keys[i++]);
+            }
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Add a hash index, it answers ==, !=, =in= and =nin=.
+     *
+     * @param selector the selector
+     * @param key      reads the key of an element
+     * @throws IllegalArgumentException if the selector has an index or a key of the elements can not be indexed
+     */
+    public void addHashIndex(String selector, Function<? super T, ?> key) {
+        addIndex(selector, new Index.Hash<>(Constraint.checkArgNotNull(key, "key")));
+    }
+
+    /**
+     * Add a geo index, it keeps points in cells of a uniform grid and narrows =nr=, =wi= and =ix= down to the cells
+     * overlapping the shape. Choose a cell size in the order of the typical query radius.
+     *
+     * @param selector the selector
+     * @param point    reads the point of an element, see {@link GeoShape#toPoint(Object)}
+     * @param cellSize the width and height of a cell in degrees
+     * @throws IllegalArgumentException if the selector has an index, the cell size is not in (0, 180] or a key of the
+     *                                  elements is no point
+     */
+    public void addGeoIndex(String selector, Function<? super T, ?> point, double cellSize) {
+        if (!(cellSize > 0 && cellSize <= 180)) {
+            throw new IllegalArgumentException("Cell size must be in (0, 180], but was: " + cellSize);
+        }
+        addIndex(selector, new Index.Grid<>(Constraint.checkArgNotNull(point, "point"), cellSize));
+    }
+
+    private void addIndex(String selector, Index<T> index) {
+        Constraint.checkArgNotNull(selector, "selector");
+        lock.writeLock().lock();
+        try {
+            if (indexes.containsKey(selector)) {
+                throw new IllegalArgumentException("Selector " + selector + " has an index");
+            }
+            for (int id = live.nextSetBit(0); id >= 0; id = live.nextSetBit(id + 1)) {
+                Object key = index.keyOf(element(id));
+                index.check(key);
+                index.add(id, key);
+            }
+            indexes.put(selector, index);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Add a sorted index, it answers ==, !=, =in=, =nin=, =gt=, =ge=, =lt=, =le= and text with a trailing * wildcard.
+     * The keys must be comparable with each other.
+     *
+     * @param selector the selector
+     * @param key      reads the key of an element
+     * @throws IllegalArgumentException if the selector has an index or a key of the elements can not be indexed
+     */
+    public void addSortedIndex(String selector, Function<? super T, ?> key) {
+        addIndex(selector, new Index.Sorted<>(Constraint.checkArgNotNull(key, "key")));
+    }
+
+    private BitSet complement(BitSet bits) {
+        BitSet result = (BitSet) live.clone();
+        result.andNot(bits);
+        return result;
+    }
+
+    /**
+     * @param element the element
+     * @return true if the element is present
+     */
+    public boolean contains(Object element) {
+        lock.readLock().lock();
+        try {
+            return ids.containsKey(element);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param node the query, null matches all elements
+     * @return the number of matching elements
+     */
+    public int count(Node node) {
+        return query(node).size();
+    }
+
+    @SuppressWarnings("unchecked")
+    private T element(int id) {
+        return (T) elements[id];
+    }
+
+    public InMemoryPredicateVisitor<T> getVisitor() {
+        return visitor;
+    }
+
+    /**
+     * @param visitor evaluates the residual part of queries, with its field mapping, defaults to a
+     *                {@link CompilingPredicateVisitor}
+     */
+    public void setVisitor(InMemoryPredicateVisitor<T> visitor) {
+        this.visitor = Constraint.checkArgNotNull(visitor, "visitor");
+    }
+
+    private Object[] keysOf(T element) {
+        Object[] keys = new Object[indexes.size()];
+        int i = 0;
+        for (Index<T> index : indexes.values()) {
+            Object key = index.keyOf(element);
+            index.check(key);
+            keys[i++] = key;
+        }
+        return keys;
+    }
+
+    /**
+     * Plan the evaluation of a tree from the indexes.
+     *
+     * @return the candidates and the residual part the candidates must match, null candidates for all elements and a
+     * null residual if the candidates match exactly
+     */
+    private Plan plan(Node node) {
+        return switch (node) {
+            case ConstraintNode<?> constraintNode -> {
+                Index<T> index = indexes.get(constraintNode.getSelector().value());
+                BitSet bits = index == null ? null : index.lookup(constraintNode.getComparison(),
+                        constraintNode.getArgument(), visitor.isAlwaysWildcard(), live);
+                yield new Plan(bits, bits == null || !index.isExact(constraintNode.getComparison()) ? node : null);
+            }
+            case OperationNode operationNode -> {
+                Plan left = plan(operationNode.getLeft());
+                Plan right = plan(operationNode.getRight());
+                boolean exact = left.residual() == null && right.residual() == null;
+                BitSet bits = left.candidates();
+                yield switch (operationNode.getOperator()) {
+                    case AND -> {
+                        if (bits == null) {
+                            bits = right.candidates();
+                        } else if (right.candidates() != null) {
+                            bits.and(right.candidates());
+                        }
+                        yield new Plan(bits, Builder.merge(Operator.AND, left.residual(), right.residual()));
+                    }
+                    case OR -> {
+                        // the union of supersets is a superset of the OR
+                        if (bits != null && right.candidates() != null) {
+                            bits.or(right.candidates());
+                        } else {
+                            bits = null;
+                        }
+                        yield new Plan(bits, exact ? null : node);
+                    }
+                    case NAND -> {
+                        if (!exact) {
+                            yield new Plan(null, node);
+                        }
+                        bits.and(right.candidates());
+                        yield new Plan(complement(bits), null);
+                    }
+                    case NOR -> {
+                        if (!exact) {
+                            yield new Plan(null, node);
+                        }
+                        bits.or(right.candidates());
+                        yield new Plan(complement(bits), null);
+                    }
+                    default -> throw new IllegalArgumentException(
+                            "OperationNode: " + node + " does not resolve to a operation");
+                };
+            }
+            default -> throw new IllegalArgumentException("Node: " + node + " is not supported");
+        };
+    }
+
+    /**
+     * @param node the query, null matches all elements
+     * @return the matching elements, in no particular order
+     */
+    public List<T> query(Node node) {
+        lock.readLock().lock();
+        try {
+            Plan plan = node == null ? new Plan(null, null) : plan(node);
+            BitSet candidates = plan.candidates() == null ? live : plan.candidates();
+            Predicate<T> residual = plan.residual() == null ? null : visitor.start(plan.residual());
+
+            List<T> result = new ArrayList<>(residual == null ? candidates.cardinality() : 16);
+            for (int id = candidates.nextSetBit(0); id >= 0; id = candidates.nextSetBit(id + 1)) {
+                T element = element(id);
+                if (residual == null || residual.test(element)) {
+                    result.add(element);
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param element the element to remove
+     * @return true if the element was removed, false if it was not present
+     */
+    public boolean remove(Object element) {
+        lock.writeLock().lock();
+        try {
+            Integer id = ids.remove(element);
+            if (id == null) {
+                return false;
+            }
+            T removed = element(id);
+            for (Index<T> index : indexes.values()) {
+                index.remove(id, index.keyOf(removed));
+            }
+            elements[id] = null;
+            live.clear(id);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return the number of elements
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return ids.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private record Plan(BitSet candidates, Node residual) {
+    }
+
+}
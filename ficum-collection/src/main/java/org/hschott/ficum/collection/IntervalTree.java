@@ -0,0 +1,206 @@
+package org.hschott.ficum.collection;
+
+import org.hschott.ficum.node.Arguments;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+
+/**
+ * Intervals with values, answering which intervals contain a point. A treap ordered by lower bound, every node keeps
+ * the largest upper bound of its subtree, so a stabbing query only descends into subtrees that may contain the point.
+ * A null lower bound is unbounded below, a null upper bound unbounded above. All bounds must be comparable with each
+ * other.
+ *
+ * @param <V> type of the values
+ */
+final class IntervalTree<V> {
+
+    private TreeNode<V> root;
+
+    private int size;
+
+    private static int compareLower(Object left, Object right) {
+        if (left == null || right == null) {
+            return left == null ? (right == null ? 0 : -1) : 1;
+        }
+        return Arguments.compare(left, right);
+    }
+
+    private static Object maxUpper(Object left, Object right) {
+        if (left == null || right == null) {
+            return null;
+        }
+        return Arguments.compare(left, right) >= 0 ? left : right;
+    }
+
+    private static <V> TreeNode<V> rotateLeft(TreeNode<V> node) {
+        TreeNode<V> right = node.right;
+        node.right = right.left;
+        right.left = node;
+        node.update();
+        right.update();
+        return right;
+    }
+
+    private static <V> TreeNode<V> rotateRight(TreeNode<V> node) {
+        TreeNode<V> left = node.left;
+        node.left = left.right;
+        left.right = node;
+        node.update();
+        left.update();
+        return left;
+    }
+
+    /**
+     * @param interval the interval to add, it must not be added twice
+     */
+    void add(Interval<V> interval) {
+        root = insert(root, new TreeNode<>(interval));
+        size++;
+    }
+
+    private TreeNode<V> insert(TreeNode<V> node, TreeNode<V> inserted) {
+        if (node == null) {
+            return inserted;
+        }
+        if (inserted.interval.compareTo(node.interval) < 0) {
+            node.left = insert(node.left, inserted);
+            if (node.left.priority > node.priority) {
+                return rotateRight(node);
+            }
+        } else {
+            node.right = insert(node.right, inserted);
+            if (node.right.priority > node.priority) {
+                return rotateLeft(node);
+            }
+        }
+        node.update();
+        return node;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @param interval the interval to remove
+     */
+    void remove(Interval<V> interval) {
+        int before = size;
+        root = delete(root, interval);
+        if (before == size) {
+            throw new IllegalStateException("Interval " + interval + " not found");
+        }
+    }
+
+    private TreeNode<V> delete(TreeNode<V> node, Interval<V> interval) {
+        if (node == null) {
+            return null;
+        }
+        int compare = interval.compareTo(node.interval);
+        if (compare < 0) {
+            node.left = delete(node.left, interval);
+        } else if (compare > 0) {
+            node.right = delete(node.right, interval);
+        } else {
+            size--;
+            return merge(node.left, node.right);
+        }
+        node.update();
+        return node;
+    }
+
+    private TreeNode<V> merge(TreeNode<V> left, TreeNode<V> right) {
+        if (left == null || right == null) {
+            return left == null ? right : left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            left.update();
+            return left;
+        }
+        right.left = merge(left, right.left);
+        right.update();
+        return right;
+    }
+
+    /**
+     * @param point    the point, comparable with the bounds
+     * @param consumer receives the values of the intervals containing the point
+     */
+    void stab(Object point, Consumer<? super V> consumer) {
+        stab(root, point, consumer);
+    }
+
+    private void stab(TreeNode<V> node, Object point, Consumer<? super V> consumer) {
+        if (node == null || node.maxUpper != null && Arguments.compare(node.maxUpper, point) < 0) {
+            return;
+        }
+        stab(node.left, point, consumer);
+        if (node.interval.lower() != null && Arguments.compare(node.interval.lower(), point) > 0) {
+            // this and all intervals to the right start after the point
+            return;
+        }
+        if (node.interval.contains(point)) {
+            consumer.accept(node.interval.value());
+        }
+        stab(node.right, point, consumer);
+    }
+
+    /**
+     * An interval, ordered by lower bound and sequence number.
+     */
+    record Interval<V>(Object lower, boolean lowerInclusive, Object upper, boolean upperInclusive, long sequence,
+                       V value) implements Comparable<Interval<V>> {
+
+        boolean contains(Object point) {
+            if (lower != null) {
+                int compare = Arguments.compare(lower, point);
+                if (compare > 0 || compare == 0 && !lowerInclusive) {
+                    return false;
+                }
+            }
+            if (upper != null) {
+                int compare = Arguments.compare(point, upper);
+                return compare < 0 || compare == 0 && upperInclusive;
+            }
+            return true;
+        }
+
+        @Override
+        public int compareTo(Interval<V> other) {
+            int compare = compareLower(lower, other.lower);
+            return compare != 0 ? compare : Long.compare(sequence, other.sequence);
+        }
+    }
+
+    private static final class TreeNode<V> {
+
+        private final Interval<V> interval;
+
+        private final int priority = ThreadLocalRandom.current().nextInt();
+
+        private TreeNode<V> left;
+
+        private TreeNode<V> right;
+
+        private Object maxUpper;
+
+        private TreeNode(Interval<V> interval) {
+            this.interval = interval;
+            this.maxUpper = interval.upper();
+        }
+
+        private void update() {
+            Object max = interval.upper();
+            if (left != null) {
+                max = maxUpper(max, left.maxUpper);
+            }
+            if (right != null) {
+                max = maxUpper(max, right.maxUpper);
+            }
+            maxUpper = max;
+        }
+    }
+
+}
@@ -0,0 +1,77 @@
+package org.hschott.ficum.collection;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * The ids of the elements with a key. Few ids are kept as a sorted array, many as a bitmap, whichever takes less
+ * memory, like the containers of a roaring bitmap. So keys of high cardinality take a few bytes each, keys of low
+ * cardinality a bit per element.
+ */
+final class Postings {
+
+    private static final int MIN_BITMAP_SIZE = 64;
+
+    private int[] ids = new int[4];
+
+    private int size;
+
+    private BitSet bits;
+
+    void add(int id) {
+        if (bits != null) {
+            bits.set(id);
+            return;
+        }
+        int index = Arrays.binarySearch(ids, 0, size, id);
+        if (index >= 0) {
+            return;
+        }
+        index = -index - 1;
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, size * 2);
+        }
+        System.arraycopy(ids, index, ids, index + 1, size - index);
+        ids[index] = id;
+        size++;
+
+        // an array takes 32 bits per id, a bitmap a bit per id up to the largest
+        if (size >= MIN_BITMAP_SIZE && (long) size * Integer.SIZE > ids[size - 1]) {
+            BitSet bitmap = new BitSet(ids[size - 1] + 1);
+            orInto(bitmap);
+            bits = bitmap;
+            ids = null;
+            size = 0;
+        }
+    }
+
+    boolean isEmpty() {
+        return bits == null ? size == 0 : bits.isEmpty();
+    }
+
+    /**
+     * @param target receives the ids
+     */
+    void orInto(BitSet target) {
+        if (bits != null) {
+            target.or(bits);
+            return;
+        }
+        for (int i = 0; i < size; i++) {
+            target.set(ids[i]);
+        }
+    }
+
+    void remove(int id) {
+        if (bits != null) {
+            bits.clear(id);
+            return;
+        }
+        int index = Arrays.binarySearch(ids, 0, size, id);
+        if (index >= 0) {
+            System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+            size--;
+        }
+    }
+
+}
@@ -0,0 +1,477 @@
+package org.hschott.ficum.collection;
+
+import org.hschott.ficum.node.AbstractVisitor;
+import org.hschott.ficum.node.Arguments;
+import org.hschott.ficum.node.Builder;
+import org.hschott.ficum.node.Comparison;
+import org.hschott.ficum.node.Constraint;
+import org.hschott.ficum.node.ConstraintNode;
+import org.hschott.ficum.node.Node;
+import org.hschott.ficum.node.NormalFormConverter;
+import org.hschott.ficum.node.OperationNode;
+import org.hschott.ficum.node.Operator;
+import org.hschott.ficum.visitor.CompilingPredicateVisitor;
+import org.hschott.ficum.visitor.InMemoryPredicateVisitor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Matches events against many registered queries, the subscriptions. A subscription is converted into disjunctive
+ * normal form, every conjunction into atoms and a residual part. Atoms are ==, =in= and range constraints on a
+ * selector with a value function: == and =in= are kept in a hash table per selector and value, the ranges of a
+ * conjunction on a selector are merged into an interval kept in an {@link IntervalTree} per selector.
+ * <p>
+ * An event looks up its value of every selector, so it only touches the conjunctions with a matching atom. Every hit
+ * is counted, a conjunction whose atoms all match has its residual part evaluated by a predicate of
+ * {@link CompilingPredicateVisitor}. Only conjunctions without any atom are evaluated for every event.
+ * <p>
+ * The value function of a selector must return the value the visitor reads for it, as the type of the arguments,
+ * enums are compared by name. Registering, unregistering and matching may happen concurrently.
+ *
+ * @param <K> type of the subscription keys
+ * @param <T> type of the events
+ */
+public class SubscriptionIndex<K, T> {
+
+    private static final int MAX_DNF_NODES = 256;
+
+    private static final Object NULL = new Object();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<String, Function<? super T, ?>> selectors = new LinkedHashMap<>();
+
+    private final Map<K, Subscription<K, Conjunction>> subscriptions = new HashMap<>();
+
+    private final Map<String, Map<Object, List<Conjunction>>> hashes = new HashMap<>();
+
+    private final Map<String, Map<Class<?>, IntervalTree<Conjunction>>> intervals = new HashMap<>();
+
+    private final Set<Conjunction> unindexed = new LinkedHashSet<>();
+
+    private final ThreadLocal<Counter> counters = ThreadLocal.withInitial(Counter::new);
+
+    private final NormalFormConverter converter = new NormalFormConverter(MAX_DNF_NODES);
+
+    private InMemoryPredicateVisitor<T> visitor;
+
+    private int[] requiredCounts = new int[16];
+
+    private final List<Conjunction> conjunctions = new ArrayList<>();
+
+    private long sequence;
+
+    /**
+     * @param type type of the events, for the visitor evaluating the residual part of conjunctions
+     */
+    public SubscriptionIndex(Class<T> type) {
+        super();
+        this.visitor = new CompilingPredicateVisitor<>(Constraint.checkArgNotNull(type, "type"));
+    }
+
+    private static Object normalize(Object value) {
+        return value instanceof Enum<?> constant ? constant.name() : Index.normalize(value);
+    }
+
+    /**
+     * Numbers of all types are comparable with each other.
+     */
+    private static Class<?> family(Object value) {
+        return value instanceof Number ? Number.class : value.getClass();
+    }
+
+    private static void literals(Node node, List<Node> literals) {
+        if (node instanceof OperationNode operationNode && Operator.AND.equals(operationNode.getOperator())) {
+            literals(operationNode.getLeft(), literals);
+            literals(operationNode.getRight(), literals);
+        } else {
+            literals.add(node);
+        }
+    }
+
+    private static void disjuncts(Node node, List<Node> disjuncts) {
+        if (node instanceof OperationNode operationNode && Operator.OR.equals(operationNode.getOperator())) {
+            disjuncts(operationNode.getLeft(), disjuncts);
+            disjuncts(operationNode.getRight(), disjuncts);
+        } else {
+            disjuncts.add(node);
+        }
+    }
+
+    /**
+     * Make constraints on a selector indexable. Registered subscriptions are indexed again.
+     *
+     * @param selector the selector
+     * @param value    reads the value of an event
+     */
+    public void addSelector(String selector, Function<? super T, ?> value) {
+        Constraint.checkArgNotNull(selector, "selector");
+        Constraint.checkArgNotNull(value, "value");
+        lock.writeLock().lock();
+        try {
+            selectors.put(selector, value);
+            List<Subscription<K, Conjunction>> registered = new ArrayList<>(subscriptions.values());
+            for (Subscription<K, Conjunction> subscription : registered) {
+                remove(subscription);
+            }
+            for (Subscription<K, Conjunction> subscription : registered) {
+                add(subscription.key(), subscription.node());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void add(K key, Node node) {
+        List<Node> disjuncts = new ArrayList<>();
+        disjuncts(converter.toDnf(node).node(), disjuncts);
+
+        List<Conjunction> added = new ArrayList<>(disjuncts.size());
+        for (Node disjunct : disjuncts) {
+            added.add(addConjunction(key, disjunct));
+        }
+        subscriptions.put(key, new Subscription<>(key, node, added));
+    }
+
+    private Conjunction addConjunction(K key, Node node) {
+        List<Node> literals = new ArrayList<>();
+        literals(node, literals);
+
+        List<Node> residual = new ArrayList<>();
+        Map<String, List<ConstraintNode<?>>> ranges = new LinkedHashMap<>();
+        List<Runnable> atoms = new ArrayList<>();
+        List<Runnable> removals = new ArrayList<>();
+        Conjunction conjunction = new Conjunction(key, conjunctions.size(), removals);
+
+        for (Node literal : literals) {
+            if (!(literal instanceof ConstraintNode<?> constraintNode)
+                    || !selectors.containsKey(constraintNode.getSelector().value())) {
+                residual.add(literal);
+                continue;
+            }
+            String selector = constraintNode.getSelector().value();
+            Object argument = constraintNode.getArgument();
+            switch (constraintNode.getComparison()) {
+                case EQUALS -> {
+                    if (argument instanceof String text
+                            && (visitor.isAlwaysWildcard() || AbstractVisitor.containsWildcard(text))) {
+                        residual.add(literal);
+                    } else {
+                        atoms.add(() -> addHash(selector, Arrays.asList(argument), conjunction));
+                    }
+                }
+                case IN -> atoms.add(() -> addHash(selector, Arguments.asList(argument), conjunction));
+                case GREATER_THAN, GREATER_EQUALS, LESS_THAN, LESS_EQUALS -> {
+                    if (argument == null) {
+                        residual.add(literal);
+                    } else {
+                        ranges.computeIfAbsent(selector, s -> new ArrayList<>()).add(constraintNode);
+                    }
+                }
+                default -> residual.add(literal);
+            }
+        }
+        for (Map.Entry<String, List<ConstraintNode<?>>> entry : ranges.entrySet()) {
+            addRanges(entry.getKey(), entry.getValue(), conjunction, atoms);
+        }
+
+        conjunctions.add(conjunction);
+        if (requiredCounts.length <= conjunction.id()) {
+            requiredCounts = Arrays.copyOf(requiredCounts, requiredCounts.length * 2);
+        }
+        requiredCounts[conjunction.id()] = atoms.size();
+        conjunction.residual = residual.isEmpty() ? null : visitor.start(Builder.merge(Operator.AND, residual));
+        atoms.forEach(Runnable::run);
+        if (atoms.isEmpty()) {
+            unindexed.add(conjunction);
+        }
+        return conjunction;
+    }
+
+    private void addHash(String selector, List<?> arguments, Conjunction conjunction) {
+        Map<Object, List<Conjunction>> table = hashes.computeIfAbsent(selector, s -> new HashMap<>());
+        Set<Object> values = new HashSet<>();
+        for (Object argument : arguments) {
+            values.add(argument == null ? NULL : normalize(argument));
+        }
+        for (Object value : values) {
+            table.computeIfAbsent(value, v -> new ArrayList<>()).add(conjunction);
+        }
+        conjunction.removals().add(() -> {
+            for (Object value : values) {
+                List<Conjunction> matching = table.get(value);
+                matching.remove(conjunction);
+                if (matching.isEmpty()) {
+                    table.remove(value);
+                }
+            }
+        });
+    }
+
+    /**
+     * Merge the lower and the upper bound on a selector into an interval, bounds not comparable with each other are
+     * kept as separate intervals.
+     */
+    private void addRanges(String selector, List<ConstraintNode<?>> ranges, Conjunction conjunction,
+                           List<Runnable> atoms) {
+        ConstraintNode<?> lower = null;
+        ConstraintNode<?> upper = null;
+        List<ConstraintNode<?>> separate = new ArrayList<>();
+        for (ConstraintNode<?> range : ranges) {
+            boolean isLower = Comparison.GREATER_THAN.equals(range.getComparison())
+                    || Comparison.GREATER_EQUALS.equals(range.getComparison());
+            ConstraintNode<?> bound = isLower ? lower : upper;
+            if (bound == null) {
+                if (isLower) {
+                    lower = range;
+                } else {
+                    upper = range;
+                }
+            } else {
+                separate.add(range);
+            }
+        }
+        if (lower != null && upper != null
+                && !Arguments.isComparable(normalize(lower.getArgument()), normalize(upper.getArgument()))) {
+            separate.add(upper);
+            upper = null;
+        }
+
+        addInterval(selector, lower, upper, conjunction, atoms);
+        for (ConstraintNode<?> range : separate) {
+            boolean isLower = Comparison.GREATER_THAN.equals(range.getComparison())
+                    || Comparison.GREATER_EQUALS.equals(range.getComparison());
+            addInterval(selector, isLower ? range : null, isLower ? null : range, conjunction, atoms);
+        }
+    }
+
+    private void addInterval(String selector, ConstraintNode<?> lower, ConstraintNode<?> upper,
+                             Conjunction conjunction, List<Runnable> atoms) {
+        Object lowerBound = lower == null ? null : normalize(lower.getArgument());
+        Object upperBound = upper == null ? null : normalize(upper.getArgument());
+        IntervalTree.Interval<Conjunction> interval = new IntervalTree.Interval<>(lowerBound,
+                lower != null && Comparison.GREATER_EQUALS.equals(lower.getComparison()), upperBound,
+                upper != null && Comparison.LESS_EQUALS.equals(upper.getComparison()), sequence++, conjunction);
+        Class<?> family = family(lowerBound != null ? lowerBound : upperBound);
+
+        atoms.add(() -> {
+            Map<Class<?>, IntervalTree<Conjunction>> trees = intervals.computeIfAbsent(selector,
+                    s -> new HashMap<>());
+            IntervalTree<Conjunction> tree = trees.computeIfAbsent(family, f -> new IntervalTree<>());
+            tree.add(interval);
+            conjunction.removals().add(() -> {
+                tree.remove(interval);
+                if (tree.isEmpty()) {
+                    trees.remove(family);
+                }
+            });
+        });
+    }
+
+    public InMemoryPredicateVisitor<T> getVisitor() {
+        return visitor;
+    }
+
+    /**
+     * @param visitor evaluates the residual part of conjunctions, with its field mapping, defaults to a
+     *                {@link CompilingPredicateVisitor}. Set it before registering subscriptions.
+     */
+    public void setVisitor(InMemoryPredicateVisitor<T> visitor) {
+        this.visitor = Constraint.checkArgNotNull(visitor, "visitor");
+    }
+
+    /**
+     * @param event the event
+     * @return the keys of the subscriptions matching the event
+     */
+    public Set<K> match(T event) {
+        Constraint.checkArgNotNull(event, "event");
+        lock.readLock().lock();
+        try {
+            Set<K> matches = new HashSet<>();
+            Counter counter = counters.get();
+            counter.reset(conjunctions.size());
+
+            for (Map.Entry<String, Function<? super T, ?>> entry : selectors.entrySet()) {
+                Object value = normalize(entry.getValue().apply(event));
+                Map<Object, List<Conjunction>> table = hashes.get(entry.getKey());
+                if (table != null) {
+                    List<Conjunction> hits = table.get(value == null ? NULL : value);
+                    if (hits != null) {
+                        for (Conjunction conjunction : hits) {
+                            hit(conjunction, event, counter, matches);
+                        }
+                    }
+                }
+                Map<Class<?>, IntervalTree<Conjunction>> trees = intervals.get(entry.getKey());
+                IntervalTree<Conjunction> tree = trees == null || value == null ? null : trees.get(family(value));
+                if (tree != null) {
+                    tree.stab(value, conjunction -> hit(conjunction, event, counter, matches));
+                }
+            }
+            for (Conjunction conjunction : unindexed) {
+                if (!matches.contains(conjunction.key()) && conjunction.residual.test(event)) {
+                    matches.add(conjunction.key());
+                }
+            }
+            return matches;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void hit(Conjunction conjunction, T event, Counter counter, Set<K> matches) {
+        if (counter.increment(conjunction.id()) == requiredCounts[conjunction.id()]
+                && !matches.contains(conjunction.key())
+                && (conjunction.residual == null || conjunction.residual.test(event))) {
+            matches.add(conjunction.key());
+        }
+    }
+
+    /**
+     * Register a subscription, it replaces a subscription with the same key.
+     *
+     * @param key  the key of the subscription
+     * @param node the query
+     */
+    public void register(K key, Node node) {
+        Constraint.checkArgNotNull(key, "key");
+        Constraint.checkArgNotNull(node, "node");
+        lock.writeLock().lock();
+        try {
+            Subscription<K, Conjunction> existing = subscriptions.remove(key);
+            if (existing != null) {
+                remove(existing);
+            }
+            add(key, node);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void remove(Subscription<K, Conjunction> subscription) {
+        subscriptions.remove(subscription.key());
+        for (Conjunction conjunction : subscription.conjunctions()) {
+            conjunction.removals().forEach(Runnable::run);
+            unindexed.remove(conjunction);
+
+            // move the last conjunction into the free id
+            Conjunction last = conjunctions.removeLast();
+            if (last != conjunction) {
+                conjunctions.set(conjunction.id(), last);
+                requiredCounts[conjunction.id()] = requiredCounts[last.id()];
+                last.id = conjunction.id();
+            }
+        }
+    }
+
+    /**
+     * @return the number of subscriptions
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return subscriptions.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param key the key of the subscription
+     * @return true if the subscription was unregistered, false if it was not registered
+     */
+    public boolean unregister(K key) {
+        lock.writeLock().lock();
+        try {
+            Subscription<K, Conjunction> subscription = subscriptions.get(key);
+            if (subscription == null) {
+                return false;
+            }
+            remove(subscription);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private record Subscription<K, C>(K key, Node node, List<C> conjunctions) {
+    }
+
+    /**
+     * A conjunction of a subscription, its id indexes the counters.
+     */
+    private final class Conjunction {
+
+        private final K key;
+
+        private final List<Runnable> removals;
+
+        private int id;
+
+        private Predicate<T> residual;
+
+        private Conjunction(K key, int id, List<Runnable> removals) {
+            this.key = key;
+            this.id = id;
+            this.removals = removals;
+        }
+
+        private int id() {
+            return id;
+        }
+
+        private K key() {
+            return key;
+        }
+
+        private List<Runnable> removals() {
+            return removals;
+        }
+    }
+
+    /**
+     * Hit counts of the conjunctions for a thread, only the touched counts are reset.
+     */
+    private static final class Counter {
+
+        private int[] counts = new int[16];
+
+        private int[] touched = new int[16];
+
+        private int size;
+
+        private int increment(int id) {
+            if (counts[id]++ == 0) {
+                if (size == touched.length) {
+                    touched = Arrays.copyOf(touched, size * 2);
+                }
+                touched[size++] = id;
+            }
+            return counts[id];
+        }
+
+        private void reset(int capacity) {
+            for (int i = 0; i < size; i++) {
+                counts[touched[i]] = 0;
+            }
+            size = 0;
+            if (counts.length < capacity) {
+                counts = new int[Math.max(capacity, counts.length * 2)];
+            }
+        }
+    }
+
+}
@@ -0,0 +1,227 @@
+package org.hschott.ficum.collection;
+
+import org.hschott.ficum.node.Node;
+import org.hschott.ficum.parser.ParseHelper;
+import org.hschott.ficum.visitor.InMemoryPredicateVisitor;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+public class IndexedCollectionTest {
+
+    private static final String[] allowedSelectorNames = {"name", "category", "price", "quantity", "created"};
+
+    private static final String[] CATEGORIES = {"Books", "Games", "Music", "Tools", "Toys"};
+
+    private final List<Item> items = new ArrayList<>();
+
+    private IndexedCollection<Item> collection;
+
+    private static Item item(Random random, long id) {
+        return new Item(id, "Item " + id, CATEGORIES[random.nextInt(CATEGORIES.length)],
+                Math.round(random.nextDouble() * 10000) / 100.0, random.nextInt(8) == 0 ? null : random.nextInt(10),
+                LocalDate.of(2024, 1, 1).plusDays(random.nextInt(365)));
+    }
+
+    private static Node parse(String input) {
+        return ParseHelper.parse(input, allowedSelectorNames);
+    }
+
+    private static List<Item> sorted(List<Item> items) {
+        List<Item> result = new ArrayList<>(items);
+        result.sort(Comparator.comparingLong(Item::getId));
+        return result;
+    }
+
+    @Before
+    public void setUp() {
+        Random random = new Random(42);
+        for (int i = 0; i < 20_000; i++) {
+            items.add(item(random, i));
+        }
+
+        collection = new IndexedCollection<>(Item.class);
+        collection.addHashIndex("category", Item::getCategory);
+        collection.addSortedIndex("price", Item::getPrice);
+        items.forEach(collection::add);
+        collection.addSortedIndex("name", Item::getName);
+        collection.addSortedIndex("created", Item::getCreated);
+        collection.addHashIndex("quantity", Item::getQuantity);
+    }
+
+    private void assertParity(String input) {
+        Node node = parse(input);
+        Predicate<Item> predicate = new InMemoryPredicateVisitor<>(Item.class).start(node);
+        List<Item> expected = items.stream().filter(predicate).toList();
+        Assert.assertEquals(input, expected, sorted(collection.query(node)));
+    }
+
+    @Test
+    public void testParity() {
+        assertParity("category=='Books'");
+        assertParity("category!='Books',price=gt=50");
+        assertParity("category=in=['Books','Games'];quantity==null");
+        assertParity("category=nin=['Books'].price=lt=10");
+        assertParity("category=='Books':price=ge=90");
+        assertParity("name=='Item 1*'");
+        assertParity("name=='*7'");
+        assertParity("created=ge=2024-06-01,created=lt=2024-07-01");
+        assertParity("quantity=gt=5,name=='*3*'");
+        assertParity("price=le=10;(category=='Music',quantity=in=[1,2,3])");
+        assertParity("quantity==3,quantity!=null");
+        assertParity("price==12;price==12.5");
+        assertParity("(category=='Games';name=='*9'),created=le=2024-02-01");
+    }
+
+    @Test
+    public void testIndexOnly() {
+        AtomicInteger residuals = new AtomicInteger();
+        collection.setVisitor(new InMemoryPredicateVisitor<>(Item.class) {
+            @Override
+            public Predicate<Item> start(Node node) {
+                residuals.incrementAndGet();
+                return super.start(node);
+            }
+        });
+
+        collection.query(parse("category=in=['Books','Games'],price=gt=50;quantity==null"));
+        collection.query(parse("name=='Item 12*'.created=lt=2024-03-01"));
+        Assert.assertEquals(0, residuals.get());
+
+        collection.query(parse("category=='Books',name=='*7'"));
+        Assert.assertEquals(1, residuals.get());
+    }
+
+    @Test
+    public void testRemove() {
+        Item removed = items.get(7);
+        Assert.assertTrue(collection.remove(removed));
+        Assert.assertFalse(collection.remove(removed));
+        Assert.assertFalse(collection.contains(removed));
+        Assert.assertEquals(items.size() - 1, collection.size());
+        Assert.assertTrue(collection.query(parse("name=='Item 7'")).isEmpty());
+
+        Item added = new Item(100_000, "Item 7", "Books", 1.0, 1, LocalDate.of(2024, 1, 1));
+        Assert.assertTrue(collection.add(added));
+        Assert.assertFalse(collection.add(added));
+        Assert.assertEquals(List.of(added), collection.query(parse("name=='Item 7'")));
+        Assert.assertEquals(items.size(), collection.count(null));
+    }
+
+    @Test
+    public void testConcurrentUpdates() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 2; t++) {
+                int offset = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = offset; i < items.size(); i += 2) {
+                        collection.remove(items.get(i));
+                    }
+                }));
+            }
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 200; i++) {
+                    for (Item item : collection.query(parse("category=='Books',price=gt=50"))) {
+                        Assert.assertTrue("Books".equals(item.getCategory()) && item.getPrice() > 50);
+                    }
+                }
+            }));
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        Assert.assertEquals(0, collection.size());
+        Assert.assertTrue(collection.query(parse("category=='Books'")).isEmpty());
+        Assert.assertTrue(collection.query(parse("quantity!=1")).isEmpty());
+    }
+
+    @Test
+    public void testGeoIndex() {
+        String[] selectors = {"type", "position"};
+        Random random = new Random(42);
+        List<Vehicle> vehicles = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            double[] position = random.nextInt(50) == 0 ? null
+                    : new double[]{13 + random.nextDouble(), 52 + random.nextDouble()};
+            vehicles.add(new Vehicle(i, i % 3 == 0 ? "Bus" : "Car", position));
+        }
+        vehicles.add(new Vehicle(-1, "Ship", new double[]{179.99, 0}));
+        vehicles.add(new Vehicle(-2, "Ship", new double[]{-179.99, 0}));
+
+        AtomicInteger tested = new AtomicInteger();
+        IndexedCollection<Vehicle> fleet = new IndexedCollection<>(Vehicle.class);
+        fleet.setVisitor(new InMemoryPredicateVisitor<>(Vehicle.class) {
+            @Override
+            public Predicate<Vehicle> start(Node node) {
+                Predicate<Vehicle> predicate = super.start(node);
+                return vehicle -> {
+                    tested.incrementAndGet();
+                    return predicate.test(vehicle);
+                };
+            }
+        });
+        vehicles.forEach(fleet::add);
+        fleet.addGeoIndex("position", Vehicle::getPosition, 0.01);
+        fleet.addHashIndex("type", Vehicle::getType);
+
+        for (String input : new String[]{"position=nr=[13.4,52.5,2000.0]", "position=nr=[13.4,52.5,2000.0,1000.0]",
+                "position=wi=[13.4,52.5,0.0005]", "position=wi=[13.1,52.1,13.15,52.12]",
+                "position=wi=[13.0,52.0,13.1,52.0,13.05,52.1]", "position=nr=[180.0,0.0,5000.0]",
+                "position=nr=[13.4,52.5,2000.0],type=='Bus'", "position=wi=[13.1,52.1,13.15,52.12];type=='Bus'",
+                "position=nr=[13.4,52.5,5000.0]:position=wi=[13.4,52.5,13.5,52.6]", "position==null",
+                "position!=null,position=wi=[13.0,52.0,13.5,52.5]"}) {
+            Node node = ParseHelper.parse(input, selectors);
+            Predicate<Vehicle> predicate = new InMemoryPredicateVisitor<>(Vehicle.class).start(node);
+            List<Vehicle> expected = vehicles.stream().filter(predicate).toList();
+            List<Vehicle> result = new ArrayList<>(fleet.query(node));
+            result.sort(Comparator.comparingLong(Vehicle::getId));
+            Assert.assertEquals(input, expected.stream().sorted(Comparator.comparingLong(Vehicle::getId)).toList(),
+                    result);
+        }
+
+        tested.set(0);
+        Assert.assertEquals(2, fleet.count(ParseHelper.parse("position=nr=[180.0,0.0,5000.0]", selectors)));
+        Assert.assertEquals(2, tested.get());
+        fleet.query(ParseHelper.parse("position=nr=[13.4,52.5,2000.0]", selectors));
+        Assert.assertTrue(tested.get() < vehicles.size() / 100);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testGeoIndexKeyNotPoint() {
+        collection.addGeoIndex("name", Item::getName, 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDuplicateIndex() {
+        collection.addHashIndex("category", Item::getCategory);
+    }
+
+    @Test
+    public void testKeyNotComparable() {
+        IndexedCollection<Object[]> values = new IndexedCollection<>(Object[].class);
+        values.addSortedIndex("value", value -> value[0]);
+        values.add(new Object[]{1});
+        try {
+            values.add(new Object[]{"1"});
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            Assert.assertEquals(1, values.size());
+        }
+    }
+
+}
@@ -0,0 +1,52 @@
+package org.hschott.ficum.collection;
+
+import java.time.LocalDate;
+
+public class Item {
+
+    private final long id;
+
+    private final String name;
+
+    private final String category;
+
+    private final double price;
+
+    private final Integer quantity;
+
+    private final LocalDate created;
+
+    public Item(long id, String name, String category, double price, Integer quantity, LocalDate created) {
+        this.id = id;
+        this.name = name;
+        this.category = category;
+        this.price = price;
+        this.quantity = quantity;
+        this.created = created;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public LocalDate getCreated() {
+        return created;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public double getPrice() {
+        return price;
+    }
+
+    public Integer getQuantity() {
+        return quantity;
+    }
+
+}
@@ -0,0 +1,172 @@
+package org.hschott.ficum.collection;
+
+import org.hschott.ficum.node.Node;
+import org.hschott.ficum.parser.ParseHelper;
+import org.hschott.ficum.visitor.InMemoryPredicateVisitor;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Predicate;
+
+public class SubscriptionIndexTest {
+
+    private static final String[] allowedSelectorNames = {"name", "category", "price", "quantity", "created"};
+
+    private static final String[] CATEGORIES = {"Books", "Games", "Music", "Tools", "Toys"};
+
+    private final Map<Integer, Predicate<Item>> predicates = new HashMap<>();
+
+    private SubscriptionIndex<Integer, Item> index;
+
+    private static Node parse(String input) {
+        return ParseHelper.parse(input, allowedSelectorNames);
+    }
+
+    private static String subscription(Random random) {
+        String category = CATEGORIES[random.nextInt(CATEGORIES.length)];
+        String other = CATEGORIES[random.nextInt(CATEGORIES.length)];
+        int low = random.nextInt(90);
+        int quantity = random.nextInt(10);
+        return switch (random.nextInt(8)) {
+            case 0 -> "category=='" + category + "'";
+            case 1 -> "category=='" + category + "',price=ge=" + low + ",price=lt=" + (low + 10);
+            case 2 -> "category=in=['" + category + "','" + other + "'],quantity=gt=" + quantity;
+            case 3 -> "(category=='" + category + "';quantity==" + quantity + "),price=le=" + low + ".5";
+            case 4 -> "name=='Item " + quantity + "*',category!='" + category + "'";
+            case 5 -> String.format("quantity==null;created=ge=2024-%02d-01", quantity + 1);
+            case 6 -> "category=nin=['" + category + "'].price=gt=" + low;
+            default -> "price=gt=" + low + ",price=gt=" + (low + 5) + ",quantity=le=" + quantity;
+        };
+    }
+
+    private static Item event(Random random, long id) {
+        return new Item(id, "Item " + id, CATEGORIES[random.nextInt(CATEGORIES.length)],
+                Math.round(random.nextDouble() * 10000) / 100.0, random.nextInt(8) == 0 ? null : random.nextInt(10),
+                LocalDate.of(2024, 1, 1).plusDays(random.nextInt(365)));
+    }
+
+    @Before
+    public void setUp() {
+        index = new SubscriptionIndex<>(Item.class);
+        index.addSelector("category", Item::getCategory);
+        index.addSelector("price", Item::getPrice);
+
+        Random random = new Random(42);
+        for (int i = 0; i < 2000; i++) {
+            register(i, subscription(random));
+        }
+        index.addSelector("quantity", Item::getQuantity);
+        index.addSelector("created", Item::getCreated);
+    }
+
+    private void register(int key, String input) {
+        Node node = parse(input);
+        index.register(key, node);
+        predicates.put(key, new InMemoryPredicateVisitor<>(Item.class).start(node));
+    }
+
+    private Set<Integer> expected(Item event) {
+        Set<Integer> expected = new HashSet<>();
+        predicates.forEach((key, predicate) -> {
+            if (predicate.test(event)) {
+                expected.add(key);
+            }
+        });
+        return expected;
+    }
+
+    @Test
+    public void testParity() {
+        Random random = new Random(7);
+        for (int i = 0; i < 500; i++) {
+            Item event = event(random, i);
+            Assert.assertEquals(expected(event), index.match(event));
+        }
+    }
+
+    @Test
+    public void testIntervals() {
+        SubscriptionIndex<String, Item> ranges = new SubscriptionIndex<>(Item.class);
+        ranges.addSelector("price", Item::getPrice);
+        ranges.register("closed", parse("price=ge=10,price=le=20"));
+        ranges.register("open", parse("price=gt=10,price=lt=20"));
+        ranges.register("lower", parse("price=gt=20"));
+        ranges.register("upper", parse("price=lt=10"));
+
+        Assert.assertEquals(Set.of("upper"), ranges.match(item(9.5)));
+        Assert.assertEquals(Set.of("closed"), ranges.match(item(10)));
+        Assert.assertEquals(Set.of("closed", "open"), ranges.match(item(15)));
+        Assert.assertEquals(Set.of("closed"), ranges.match(item(20)));
+        Assert.assertEquals(Set.of("lower"), ranges.match(item(20.5)));
+    }
+
+    private static Item item(double price) {
+        return new Item(1, "Item", "Books", price, 1, LocalDate.of(2024, 1, 1));
+    }
+
+    @Test
+    public void testUnregister() {
+        Random random = new Random(11);
+        for (int key = 0; key < 2000; key += 3) {
+            Assert.assertTrue(index.unregister(key));
+            predicates.remove(key);
+        }
+        Assert.assertFalse(index.unregister(0));
+        register(1, "category=='Books'");
+        Assert.assertEquals(predicates.size(), index.size());
+
+        for (int i = 0; i < 200; i++) {
+            Item event = event(random, i);
+            Assert.assertEquals(expected(event), index.match(event));
+        }
+    }
+
+    @Test
+    public void testConcurrentRegistration() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            futures.add(executor.submit(() -> {
+                for (int key = 0; key < 2000; key += 2) {
+                    index.unregister(key);
+                }
+            }));
+            futures.add(executor.submit(() -> {
+                for (int key = 2000; key < 3000; key++) {
+                    index.register(key, parse("category=='Music',price=lt=50"));
+                }
+            }));
+            futures.add(executor.submit(() -> {
+                Random random = new Random(3);
+                for (int i = 0; i < 500; i++) {
+                    index.match(event(random, i));
+                }
+            }));
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        Assert.assertEquals(2000, index.size());
+        Set<Integer> matches = index.match(new Item(1, "Item", "Music", 10, null, LocalDate.of(2024, 1, 1)));
+        for (int key = 2000; key < 3000; key++) {
+            Assert.assertTrue(matches.contains(key));
+        }
+        Assert.assertTrue(matches.stream().allMatch(key -> key >= 2000 || key % 2 == 1));
+    }
+
+}
@@ -0,0 +1,29 @@
+package org.hschott.ficum.collection;
+
+public class Vehicle {
+
+    private final long id;
+
+    private final String type;
+
+    private final double[] position;
+
+    public Vehicle(long id, String type, double[] position) {
+        this.id = id;
+        this.type = type;
+        this.position = position;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public double[] getPosition() {
+        return position;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+}
@@ -0,0 +1,215 @@
+package org.hschott.ficum.node;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Base class for visitors that fold a {@link Node} tree into a single value. Folding a node returns its value, the
+ * values of both operands are handed to {@link #foldOperation(OperationNode, Object, Object)}. No intermediate state
+ * is kept in the visitor, so {@link #start(Node)} is reentrant and runs in linear time.
+ * <p>
+ * With {@link #setMemoization(Memoization)} repeated subtrees are folded only once per {@link #start(Node)}, all
+ * occurrences share the same value. Only enable memoization if the folded values may be shared within a tree.
+ * <p>
+ * Subclasses overriding {@link #visit(ConstraintNode)} or {@link #visit(OperationNode)} must opt in to double
+ * dispatch with {@link #AbstractFoldVisitor(boolean)}: {@link #start(Node)} then traverses the tree by
+ * {@link Node#accept(Visitor)}, like before the fold, and memoization is not supported. Visiting a node is only
+ * possible while {@link #start(Node)} runs.
+ *
+ * @param <T> type of the folded value
+ */
+public abstract class AbstractFoldVisitor<T> extends AbstractVisitor<T> {
+
+    private final ThreadLocal<List<T>> values = new ThreadLocal<>();
+
+    private final boolean dispatching;
+
+    private Memoization memoization = Memoization.NONE;
+
+    protected AbstractFoldVisitor() {
+        this(false);
+    }
+
+    /**
+     * @param dispatching true to traverse the tree by double dispatch, so overridden visit methods are called
+     */
+    protected AbstractFoldVisitor(boolean dispatching) {
+        super();
+        this.dispatching = dispatching;
+    }
+
+    /**
+     * Fold a {@link Node} tree into its value.
+     *
+     * @param node the root node of the tree
+     * @return the folded value
+     */
+    protected T fold(Node node) {
+        return switch (node) {
+            case ConstraintNode<?> constraintNode -> foldConstraint(constraintNode);
+            case OperationNode operationNode ->
+                    foldOperation(operationNode, fold(operationNode.getLeft()), fold(operationNode.getRight()));
+            default -> throw new IllegalArgumentException("Node: " + node + " can not be folded");
+        };
+    }
+
+    /**
+     * Fold a tree memoizing by node identity, views on a {@link CompactTree} are created on demand and memoized by
+     * tree and index instead.
+     */
+    private T fold(Node node, Map<Node, T> identities, Map<Node, T> views) {
+        Map<Node, T> memo = CompactTree.isView(node) ? views : identities;
+        T value = memo.get(node);
+        if (value == null && !memo.containsKey(node)) {
+            value = switch (node) {
+                case ConstraintNode<?> constraintNode -> foldConstraint(constraintNode);
+                case OperationNode operationNode -> foldOperation(operationNode,
+                        fold(operationNode.getLeft(), identities, views),
+                        fold(operationNode.getRight(), identities, views));
+                default -> throw new IllegalArgumentException("Node: " + node + " can not be folded");
+            };
+            memo.put(node, value);
+        }
+        return value;
+    }
+
+    /**
+     * Fold a tree numbering its subtrees so that equal subtrees get the same id, the value of a subtree is kept at its
+     * id. The key of an operation is derived from the ids of its operands, so no subtree is compared more than once
+     * and the key never depends on node identity.
+     *
+     * @return the id of the subtree
+     */
+    private int fold(Node node, Map<Object, Integer> ids, List<T> values) {
+        Object key = switch (node) {
+            case ConstraintNode<?> constraintNode -> new ConstraintKey(constraintNode.getSelector(),
+                    constraintNode.getComparison(), constraintNode.getArgument());
+            case OperationNode operationNode -> new OperationKey(operationNode.getOperator(),
+                    fold(operationNode.getLeft(), ids, values), fold(operationNode.getRight(), ids, values));
+            default -> throw new IllegalArgumentException("Node: " + node + " can not be folded");
+        };
+        Integer id = ids.get(key);
+        if (id == null) {
+            values.add(switch (key) {
+                case OperationKey operationKey -> foldOperation((OperationNode) node, values.get(operationKey.left()),
+                        values.get(operationKey.right()));
+                default -> foldConstraint((ConstraintNode<?>) node);
+            });
+            id = values.size() - 1;
+            ids.put(key, id);
+        }
+        return id;
+    }
+
+    /**
+     * Fold a {@link ConstraintNode} into its value.
+     *
+     * @param node the constraint node
+     * @return the value of the constraint
+     */
+    protected abstract T foldConstraint(ConstraintNode<?> node);
+
+    /**
+     * Combine the values of both operands of an {@link OperationNode}.
+     *
+     * @param node  the operation node
+     * @param left  the value of the left operand
+     * @param right the value of the right operand
+     * @return the value of the operation
+     */
+    protected abstract T foldOperation(OperationNode node, T left, T right);
+
+    public Memoization getMemoization() {
+        return memoization;
+    }
+
+    /**
+     * @param memoization how repeated subtrees are folded, defaults to {@link Memoization#NONE}
+     * @throws IllegalStateException if the visitor traverses by double dispatch and memoization is not NONE
+     */
+    public void setMemoization(Memoization memoization) {
+        Constraint.checkArgNotNull(memoization, "memoization");
+        if (dispatching && memoization != Memoization.NONE) {
+            throw new IllegalStateException("Memoization is not supported by double dispatch");
+        }
+        this.memoization = memoization;
+    }
+
+    public T start(Node node) {
+        if (dispatching) {
+            return dispatch(node);
+        }
+        return switch (memoization) {
+            case NONE -> fold(node);
+            case IDENTITY -> fold(node, new IdentityHashMap<>(), new HashMap<>());
+            case STRUCTURAL -> {
+                List<T> folded = new ArrayList<>();
+                yield folded.get(fold(node, new HashMap<>(), folded));
+            }
+        };
+    }
+
+    /**
+     * Fold a tree by double dispatch, the values of the visited nodes are kept on a stack of the current thread.
+     */
+    private T dispatch(Node node) {
+        List<T> outer = values.get();
+        List<T> stack = new ArrayList<>();
+        values.set(stack);
+        try {
+            node.accept(this);
+            if (stack.size() != 1) {
+                throw new IllegalStateException("single value expected, but was: " + stack);
+            }
+            return stack.getFirst();
+        } finally {
+            values.set(outer);
+        }
+    }
+
+    private List<T> stack() {
+        List<T> stack = values.get();
+        if (stack == null) {
+            throw new IllegalStateException("No fold is active, nodes are only visited while start(Node) runs");
+        }
+        return stack;
+    }
+
+    /**
+     * Fold a {@link ConstraintNode} reached by double dispatch.
+     *
+     * @param node the constraint node
+     */
+    public void visit(ConstraintNode<?> node) {
+        List<T> stack = stack();
+        stack.add(foldConstraint(node));
+    }
+
+    /**
+     * Fold an {@link OperationNode} reached by double dispatch, its operands are visited first.
+     *
+     * @param node the operation node
+     */
+    public void visit(OperationNode node) {
+        List<T> stack = stack();
+        if (!dispatching) {
+            stack.add(fold(node));
+            return;
+        }
+        node.getLeft().accept(this);
+        node.getRight().accept(this);
+        T right = stack.removeLast();
+        T left = stack.removeLast();
+        stack.add(foldOperation(node, left, right));
+    }
+
+    private record ConstraintKey(Selector selector, Comparison comparison, Object argument) {
+    }
+
+    private record OperationKey(Operator operator, int left, int right) {
+    }
+
+}
@@ -30,18 +30,46 @@ public abstract class AbstractVisitor<T> implements Visitor<T> {
 
     private boolean alwaysWildcard = false;
 
-    private Map<Selector, String> selectorToFieldMapping = new HashMap<>();
+    private FieldMapping fieldMapping = FieldMapping.empty();
+
+    private Map<Selector, String> selectorToFieldMapping;
 
     public static boolean containsWildcard(String value) {
         return value.contains("*") || value.contains("?");
     }
 
     public void addSelectorToFieldMapping(String selector, String field) {
+        if (selectorToFieldMapping == null) {
+            selectorToFieldMapping = new HashMap<>();
+        }
         selectorToFieldMapping.put(new SimpleSelector(selector), field);
     }
 
+    public FieldMapping getFieldMapping() {
+        return fieldMapping;
+    }
+
     public String getMappedField(Selector selector) {
-        return selectorToFieldMapping.getOrDefault(selector, selector.value());
+        if (selectorToFieldMapping != null) {
+            String field = selectorToFieldMapping.get(selector);
+            if (field != null) {
+                return field;
+            }
+        }
+        FieldPath path = fieldMapping.get(selector);
+        return path != null ? path.field() : selector.value();
+    }
+
+    /**
+     * Resolve a selector to the path of its mapped field. Mappings added to this visitor take precedence over the
+     * attached {@link FieldMapping}.
+     *
+     * @param selector the selector
+     * @return the mapped field path
+     */
+    public FieldPath getMappedPath(Selector selector) {
+        String field = selectorToFieldMapping == null ? null : selectorToFieldMapping.get(selector);
+        return field != null ? FieldPath.of(field) : fieldMapping.resolve(selector);
     }
 
     public boolean isAlwaysWildcard() {
@@ -52,6 +80,15 @@ public abstract class AbstractVisitor<T> implements Visitor<T> {
         this.alwaysWildcard = alwaysWildcardMatch;
     }
 
+    /**
+     * Attach a shared {@link FieldMapping} to this visitor. The field mapping is not copied.
+     *
+     * @param fieldMapping the field mapping
+     */
+    public void setFieldMapping(FieldMapping fieldMapping) {
+        this.fieldMapping = Constraint.checkArgNotNull(fieldMapping, "fieldMapping");
+    }
+
     public void setSelectorToFieldMapping(Map<Selector, String> selectorToFieldMapping) {
         this.selectorToFieldMapping = selectorToFieldMapping;
     }
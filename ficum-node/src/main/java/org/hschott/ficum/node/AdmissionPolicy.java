@@ -0,0 +1,22 @@
+package org.hschott.ficum.node;
+
+/**
+ * Decides whether a query is admitted before it is translated and sent to a backend. Implementations reject a query
+ * by throwing {@link QueryRejectedException}, they may also throttle by blocking.
+ */
+@FunctionalInterface
+public interface AdmissionPolicy {
+
+    /**
+     * Admits every query.
+     */
+    AdmissionPolicy ADMIT_ALL = node -> {
+    };
+
+    /**
+     * @param root the root node of the query
+     * @throws QueryRejectedException if the query is not admitted
+     */
+    void admit(Node root);
+
+}
@@ -0,0 +1,159 @@
+package org.hschott.ficum.node;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * Helper to compare constraint arguments with Java semantics. Numbers of different types are compared by their
+ * numeric value, all other arguments only if they are of the same {@link Comparable} type.
+ */
+public final class Arguments {
+
+    private Arguments() {
+        // static helper
+    }
+
+    /**
+     * Turn an argument into a list of values. A single value becomes a list of one.
+     *
+     * @param argument the argument of a constraint
+     * @return list of values, never null
+     */
+    public static List<?> asList(Object argument) {
+        if (argument instanceof List<?> list) {
+            return list;
+        }
+        if (argument instanceof Collection<?> collection) {
+            return new ArrayList<>(collection);
+        }
+        if (argument instanceof Iterable<?> iterable) {
+            List<Object> values = new ArrayList<>();
+            iterable.forEach(values::add);
+            return values;
+        }
+        return Collections.singletonList(argument);
+    }
+
+    /**
+     * Copy the values of a list argument into an unmodifiable list, null values are allowed. A {@link Constraint}
+     * caches the hash code of such a list if all its values are immutable.
+     *
+     * @param values the values
+     * @param <E>    type of the values
+     * @return unmodifiable list of the values
+     */
+    public static <E> List<E> immutableList(Collection<? extends E> values) {
+        return new ImmutableList<>(values.toArray());
+    }
+
+    /**
+     * @return true if the argument is a list created by {@link #immutableList(Collection)}
+     */
+    static boolean isImmutableList(Object argument) {
+        return argument instanceof ImmutableList<?>;
+    }
+
+    /**
+     * Compare two arguments.
+     *
+     * @param left  the left argument
+     * @param right the right argument
+     * @return a negative integer, zero, or a positive integer as left is less than, equal to, or greater than right
+     * @throws IllegalArgumentException if both arguments are not comparable
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public static int compare(Object left, Object right) {
+        if (!isComparable(left, right)) {
+            throw new IllegalArgumentException(String.format("%s and %s are not comparable", left, right));
+        }
+        if (left.getClass() == right.getClass()) {
+            return ((Comparable) left).compareTo(right);
+        }
+        Number l = (Number) left;
+        Number r = (Number) right;
+        if (!isFinite(l) || !isFinite(r)) {
+            return Double.compare(l.doubleValue(), r.doubleValue());
+        }
+        return toBigDecimal(l).compareTo(toBigDecimal(r));
+    }
+
+    /**
+     * @param left  the left argument
+     * @param right the right argument
+     * @return true if both arguments are comparable with each other
+     */
+    public static boolean isComparable(Object left, Object right) {
+        if (left == null || right == null) {
+            return false;
+        }
+        if (left instanceof Number && right instanceof Number) {
+            return left.getClass() == right.getClass() ? left instanceof Comparable : isNumeric(left) && isNumeric(right);
+        }
+        return left.getClass() == right.getClass() && left instanceof Comparable;
+    }
+
+    /**
+     * Test two arguments for equality, numbers of different types are equal if their numeric value is equal.
+     *
+     * @param left  the left argument
+     * @param right the right argument
+     * @return true if both arguments are equal
+     */
+    public static boolean isEqual(Object left, Object right) {
+        if (left instanceof Number && right instanceof Number && left.getClass() != right.getClass()) {
+            return isComparable(left, right) && compare(left, right) == 0;
+        }
+        return Objects.equals(left, right);
+    }
+
+    private static boolean isFinite(Number number) {
+        if (number instanceof Double || number instanceof Float) {
+            return Double.isFinite(number.doubleValue());
+        }
+        return true;
+    }
+
+    private static boolean isNumeric(Object value) {
+        return value instanceof Byte || value instanceof Short || value instanceof Integer || value instanceof Long
+                || value instanceof Float || value instanceof Double || value instanceof BigInteger
+                || value instanceof BigDecimal;
+    }
+
+    private static BigDecimal toBigDecimal(Number number) {
+        return switch (number) {
+            case BigDecimal bigDecimal -> bigDecimal;
+            case BigInteger bigInteger -> new BigDecimal(bigInteger);
+            case Double d -> BigDecimal.valueOf(d);
+            case Float f -> new BigDecimal(f.toString());
+            default -> BigDecimal.valueOf(number.longValue());
+        };
+    }
+
+    private static final class ImmutableList<E> extends AbstractList<E> implements RandomAccess {
+
+        private final Object[] values;
+
+        private ImmutableList(Object[] values) {
+            this.values = values;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public E get(int index) {
+            return (E) values[index];
+        }
+
+        @Override
+        public int size() {
+            return values.length;
+        }
+    }
+
+}
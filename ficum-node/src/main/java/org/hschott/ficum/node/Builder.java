@@ -1,8 +1,11 @@
 package org.hschott.ficum.node;
 
 import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Deque;
+import java.util.List;
 
 /**
  * A Builder to help building an {@link Node} tree from an infix stack.
@@ -28,6 +31,41 @@ public class Builder {
         this.parent = parent;
     }
 
+    /**
+     * Build a balanced {@link Node} tree combining all constraints with AND.
+     *
+     * @param constraints the constraints, at least one
+     * @return {@link Node} root node of the tree
+     */
+    public static Node allOf(Collection<? extends Constraint<?>> constraints) {
+        return balance(Operator.AND, toNodes(constraints));
+    }
+
+    /**
+     * Build a balanced {@link Node} tree combining all constraints with OR.
+     *
+     * @param constraints the constraints, at least one
+     * @return {@link Node} root node of the tree
+     */
+    public static Node anyOf(Collection<? extends Constraint<?>> constraints) {
+        return balance(Operator.OR, toNodes(constraints));
+    }
+
+    private static Node balance(Operator operator, List<Node> operands) {
+        return balance(operator, operands, 0, operands.size());
+    }
+
+    private static Node balance(Operator operator, List<Node> operands, int from, int to) {
+        if (to - from == 1) {
+            return operands.get(from);
+        }
+        int middle = (from + to) >>> 1;
+        OperationNode node = new LogicalOperationNode(operator);
+        node.setLeft(balance(operator, operands, from, middle));
+        node.setRight(balance(operator, operands, middle, to));
+        return node;
+    }
+
     /**
      * Build a {@link Node} tree from an infix stack
      *
@@ -115,6 +153,80 @@ public class Builder {
         return output;
     }
 
+    /**
+     * Merge existing {@link Node} trees into a balanced tree. The trees are not copied but become subtrees of the
+     * result. Null trees are skipped, which allows to merge optional filters.
+     *
+     * @param operator AND or OR
+     * @param nodes    the root nodes of the trees to merge
+     * @return {@link Node} root node of the merged tree, or null if there is no tree to merge
+     */
+    public static Node merge(Operator operator, Collection<? extends Node> nodes) {
+        if (!Operator.AND.equals(operator) && !Operator.OR.equals(operator)) {
+            throw new IllegalArgumentException("Only AND and OR trees can be merged, but was: " + operator);
+        }
+        List<Node> operands = new ArrayList<>(nodes.size());
+        for (Node node : nodes) {
+            if (node != null) {
+                operands.add(node);
+            }
+        }
+        return operands.isEmpty() ? null : balance(operator, operands);
+    }
+
+    /**
+     * Merge existing {@link Node} trees into a balanced tree.
+     *
+     * @param operator AND or OR
+     * @param nodes    the root nodes of the trees to merge
+     * @return {@link Node} root node of the merged tree, or null if there is no tree to merge
+     * @see #merge(Operator, Collection)
+     */
+    public static Node merge(Operator operator, Node... nodes) {
+        return merge(operator, Arrays.asList(nodes));
+    }
+
+    /**
+     * Negate an existing {@link Node} tree without copying it. The query language has no unary NOT, so operations are
+     * negated by De Morgan into their complementary operator, a negation is unwrapped, and any other node becomes the
+     * single operand of {@code NOR(node, node)}. The tree is not modified, its subtrees are shared with the result.
+     *
+     * @param node the root node of the tree to negate
+     * @return {@link Node} root node of the negated tree
+     */
+    public static Node not(Node node) {
+        Constraint.checkArgNotNull(node, "node");
+        if (node instanceof OperationNode operation) {
+            Node left = operation.getLeft();
+            Node right = operation.getRight();
+            Operator operator = operation.getOperator();
+            if (left == right && (operator == Operator.NOR || operator == Operator.NAND)) {
+                return left;
+            }
+            switch (operator) {
+                case AND:
+                    return operation(Operator.NAND, left, right);
+                case NAND:
+                    return operation(Operator.AND, left, right);
+                case OR:
+                    return operation(Operator.NOR, left, right);
+                case NOR:
+                    return operation(Operator.OR, left, right);
+                default:
+                    throw new IllegalArgumentException(
+                            "OperationNode: " + node + " does not resolve to a operation");
+            }
+        }
+        return operation(Operator.NOR, node, node);
+    }
+
+    private static Node operation(Operator operator, Node left, Node right) {
+        OperationNode node = new LogicalOperationNode(operator);
+        node.setLeft(left);
+        node.setRight(right);
+        return node;
+    }
+
     protected static Deque<Object> reverse(Iterable<Object> stack) {
         Deque<Object> deque = new ArrayDeque<>();
         for (Object element : stack) {
@@ -132,6 +244,18 @@ public class Builder {
         return new Builder().unbalancedBuilder;
     }
 
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    private static List<Node> toNodes(Collection<? extends Constraint<?>> constraints) {
+        if (constraints.isEmpty()) {
+            throw new IllegalArgumentException("Constraint collection should have at least 1 member.");
+        }
+        List<Node> nodes = new ArrayList<>(constraints.size());
+        for (Constraint<?> constraint : constraints) {
+            nodes.add(new ConstraintNode(Constraint.checkArgNotNull(constraint, "constraint")));
+        }
+        return nodes;
+    }
+
     public class DefinedBuilder {
 
         /**
@@ -246,7 +370,8 @@ public class Builder {
             if (argument.length == 1) {
                 infixStack.push(new Constraint<Comparable<?>>(selector, comparison, argument[0]));
             }
-            infixStack.push(new Constraint<Iterable<Comparable<?>>>(selector, comparison, Arrays.asList(argument)));
+            infixStack.push(new Constraint<Iterable<Comparable<?>>>(selector, comparison,
+                    Arguments.immutableList(Arrays.asList(argument))));
             return definedBuilder;
         }
 
@@ -0,0 +1,385 @@
+package org.hschott.ficum.node;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * An immutable, array encoded representation of a {@link Node} tree, meant for caching large numbers of trees. Nodes
+ * are stored in pre-order in parallel int arrays: an opcode, the index of the right operand of an operation (the
+ * left operand always directly follows its operation), the id of a selector and the id of an argument. Selectors and
+ * arguments are kept in pools, each distinct value is stored only once per tree.
+ * <p>
+ * Existing visitors can traverse a compact tree through {@link #root()} without materializing the tree. The nodes
+ * handed to visitors are lightweight views, they are only valid for the tree they are taken from and can not be
+ * modified. Views are created on demand and not kept by the tree, two views are equal if they are taken from the same
+ * node of the same tree.
+ */
+public final class CompactTree {
+
+    private static final Operator[] OPERATORS = Operator.values();
+
+    private static final Comparison[] COMPARISONS = Comparison.values();
+
+    /**
+     * Opcodes of constraints start here, opcodes of operations are the ordinal of their {@link Operator}.
+     */
+    private static final int CONSTRAINT = OPERATORS.length;
+
+    private static final int NONE = -1;
+
+    private final int[] opcodes;
+
+    private final int[] rightOperands;
+
+    private final int[] selectorIds;
+
+    private final int[] argumentIds;
+
+    private final Selector[] selectors;
+
+    private final Object[] arguments;
+
+    private final int hash;
+
+    private CompactTree(Encoder encoder) {
+        this.opcodes = encoder.opcodes;
+        this.rightOperands = encoder.rightOperands;
+        this.selectorIds = encoder.selectorIds;
+        this.argumentIds = encoder.argumentIds;
+        this.selectors = encoder.selectors.toArray(new Selector[0]);
+        this.arguments = encoder.arguments.toArray();
+
+        final int prime = 31;
+        int result = Arrays.hashCode(opcodes);
+        result = prime * result + Arrays.hashCode(rightOperands);
+        result = prime * result + Arrays.hashCode(selectorIds);
+        result = prime * result + Arrays.hashCode(argumentIds);
+        result = prime * result + Arrays.hashCode(selectors);
+        result = prime * result + Arrays.hashCode(arguments);
+        this.hash = result;
+    }
+
+    /**
+     * Encode a {@link Node} tree.
+     *
+     * @param root the root node of the tree
+     * @return the compact tree, or null if root is null
+     */
+    public static CompactTree encode(Node root) {
+        if (root == null) {
+            return null;
+        }
+        Encoder encoder = new Encoder(count(root));
+        encoder.encode(root);
+        return new CompactTree(encoder);
+    }
+
+    private static int count(Node node) {
+        return switch (node) {
+            case ConstraintNode<?> ignored -> 1;
+            case OperationNode operationNode -> 1 + count(operationNode.getLeft()) + count(operationNode.getRight());
+            default -> throw new IllegalArgumentException("Node: " + node + " can not be encoded");
+        };
+    }
+
+    /**
+     * @param index the index of a constraint
+     * @return the argument of the constraint, may be null
+     */
+    public Object argument(int index) {
+        int id = argumentIds[index];
+        return id == NONE ? null : arguments[id];
+    }
+
+    /**
+     * @param index the index of a constraint
+     * @return the comparison of the constraint
+     */
+    public Comparison comparison(int index) {
+        if (!isConstraint(index)) {
+            throw new IllegalArgumentException("Not a constraint at index " + index);
+        }
+        return COMPARISONS[opcodes[index] - CONSTRAINT];
+    }
+
+    /**
+     * Materialize the tree into {@link Node} objects.
+     *
+     * @return root node of the materialized tree
+     */
+    public Node decode() {
+        return decode(0);
+    }
+
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    private Node decode(int index) {
+        if (isConstraint(index)) {
+            return new ConstraintNode(new Constraint(selector(index), comparison(index), argument(index)));
+        }
+        OperationNode node = new LogicalOperationNode(operator(index));
+        node.setLeft(decode(left(index)));
+        node.setRight(decode(right(index)));
+        return node;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj)
+            return true;
+        if (!(obj instanceof CompactTree other))
+            return false;
+        return hash == other.hash && Arrays.equals(opcodes, other.opcodes)
+                && Arrays.equals(rightOperands, other.rightOperands) && Arrays.equals(selectorIds, other.selectorIds)
+                && Arrays.equals(argumentIds, other.argumentIds) && Arrays.equals(selectors, other.selectors)
+                && Arrays.equals(arguments, other.arguments);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    /**
+     * @param index the index of a node
+     * @return true if the node is a constraint, false if it is an operation
+     */
+    public boolean isConstraint(int index) {
+        return opcodes[index] >= CONSTRAINT;
+    }
+
+    /**
+     * @param index the index of an operation
+     * @return the index of the left operand
+     */
+    public int left(int index) {
+        operator(index);
+        return index + 1;
+    }
+
+    /**
+     * @param index the index of an operation
+     * @return the operator of the operation
+     */
+    public Operator operator(int index) {
+        if (isConstraint(index)) {
+            throw new IllegalArgumentException("Not an operation at index " + index);
+        }
+        return OPERATORS[opcodes[index]];
+    }
+
+    /**
+     * @param index the index of an operation
+     * @return the index of the right operand
+     */
+    public int right(int index) {
+        operator(index);
+        return rightOperands[index];
+    }
+
+    /**
+     * @return a view on the root node of the tree, to be passed to visitors
+     */
+    public Node root() {
+        return view(0);
+    }
+
+    /**
+     * @param index the index of a constraint
+     * @return the selector of the constraint
+     */
+    public Selector selector(int index) {
+        if (!isConstraint(index)) {
+            throw new IllegalArgumentException("Not a constraint at index " + index);
+        }
+        return selectors[selectorIds[index]];
+    }
+
+    /**
+     * @return number of nodes in the tree, indices range from 0 to size - 1 in pre-order
+     */
+    public int size() {
+        return opcodes.length;
+    }
+
+    @Override
+    public String toString() {
+        return root().toString();
+    }
+
+    /**
+     * @param node a node
+     * @return true if the node is a view on a compact tree, views are compared by tree and index instead of identity
+     */
+    static boolean isView(Node node) {
+        return node instanceof ConstraintView || node instanceof OperationView;
+    }
+
+    private Node view(int index) {
+        return isConstraint(index) ? new ConstraintView(index) : new OperationView(index);
+    }
+
+    private static class Encoder {
+
+        private final int[] opcodes;
+
+        private final int[] rightOperands;
+
+        private final int[] selectorIds;
+
+        private final int[] argumentIds;
+
+        private final List<Selector> selectors = new ArrayList<>();
+
+        private final Map<Selector, Integer> selectorLookup = new HashMap<>();
+
+        private final List<Object> arguments = new ArrayList<>();
+
+        private final Map<Object, Integer> argumentLookup = new HashMap<>();
+
+        private int next;
+
+        private Encoder(int size) {
+            opcodes = new int[size];
+            rightOperands = new int[size];
+            selectorIds = new int[size];
+            argumentIds = new int[size];
+        }
+
+        private void encode(Node node) {
+            int index = next++;
+            if (node instanceof ConstraintNode<?> constraintNode) {
+                opcodes[index] = CONSTRAINT + constraintNode.getComparison().ordinal();
+                rightOperands[index] = NONE;
+                selectorIds[index] = selectorLookup.computeIfAbsent(constraintNode.getSelector(), selector -> {
+                    selectors.add(selector);
+                    return selectors.size() - 1;
+                });
+                Object argument = constraintNode.getArgument();
+                argumentIds[index] = argument == null ? NONE : argumentLookup.computeIfAbsent(argument, value -> {
+                    arguments.add(value);
+                    return arguments.size() - 1;
+                });
+            } else {
+                OperationNode operationNode = (OperationNode) node;
+                opcodes[index] = operationNode.getOperator().ordinal();
+                selectorIds[index] = NONE;
+                argumentIds[index] = NONE;
+                encode(operationNode.getLeft());
+                rightOperands[index] = next;
+                encode(operationNode.getRight());
+            }
+        }
+    }
+
+    private class ConstraintView extends ConstraintNode<Object> {
+
+        private final int index;
+
+        private ConstraintView(int index) {
+            // the view reads selector, comparison and argument from the arrays, no Constraint is materialized
+            super(null);
+            this.index = index;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj)
+                return true;
+            if (!(obj instanceof ConstraintView other))
+                return false;
+            return index == other.index && tree() == other.tree();
+        }
+
+        @Override
+        public Object getArgument() {
+            return argument(index);
+        }
+
+        @Override
+        public Comparison getComparison() {
+            return comparison(index);
+        }
+
+        @Override
+        public Selector getSelector() {
+            return selector(index);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(index, System.identityHashCode(tree()));
+        }
+
+        @Override
+        public String toString() {
+            Object argument = getArgument();
+            return String.format("'%s%s(%s)%s'", getSelector(), getComparison().getSign(),
+                    argument == null ? "null" : argument.getClass().getSimpleName(), argument);
+        }
+
+        private CompactTree tree() {
+            return CompactTree.this;
+        }
+    }
+
+    private class OperationView implements OperationNode {
+
+        private final int index;
+
+        private OperationView(int index) {
+            this.index = index;
+        }
+
+        public void accept(Visitor<?> visitor) {
+            visitor.visit(this);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj)
+                return true;
+            if (!(obj instanceof OperationView other))
+                return false;
+            return index == other.index && tree() == other.tree();
+        }
+
+        public Node getLeft() {
+            return view(left(index));
+        }
+
+        public Operator getOperator() {
+            return operator(index);
+        }
+
+        public Node getRight() {
+            return view(right(index));
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(index, System.identityHashCode(tree()));
+        }
+
+        public void setLeft(Node node) {
+            throw new UnsupportedOperationException("CompactTree can not be modified");
+        }
+
+        public void setRight(Node node) {
+            throw new UnsupportedOperationException("CompactTree can not be modified");
+        }
+
+        @Override
+        public String toString() {
+            return String.format("(%s %s %s)", getLeft(), getOperator(), getRight());
+        }
+
+        private CompactTree tree() {
+            return CompactTree.this;
+        }
+    }
+
+}
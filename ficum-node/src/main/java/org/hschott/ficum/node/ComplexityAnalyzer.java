@@ -0,0 +1,123 @@
+package org.hschott.ficum.node;
+
+import java.util.Collection;
+
+/**
+ * Computes {@link QueryComplexity} metrics and a weighted cost of a {@link Node} tree in a single pass, cheap enough
+ * to run on every request.
+ */
+public class ComplexityAnalyzer {
+
+    private final ComplexityWeights weights;
+
+    private boolean alwaysWildcard = false;
+
+    public ComplexityAnalyzer() {
+        this(new ComplexityWeights());
+    }
+
+    public ComplexityAnalyzer(ComplexityWeights weights) {
+        super();
+        this.weights = Constraint.checkArgNotNull(weights, "weights");
+    }
+
+    private static int sizeOf(Object argument) {
+        if (argument instanceof Collection<?> collection) {
+            return collection.size();
+        }
+        int size = 0;
+        for (Object ignored : (Iterable<?>) argument) {
+            size++;
+        }
+        return size;
+    }
+
+    /**
+     * Analyze a {@link Node} tree.
+     *
+     * @param root the root node of the tree
+     * @return the metrics of the tree
+     */
+    public QueryComplexity analyze(Node root) {
+        Metrics metrics = new Metrics();
+        if (root != null) {
+            metrics.depth = analyze(root, metrics, 1);
+        }
+        double cost = metrics.cost + weights.getDepthWeight() * metrics.depth;
+        return new QueryComplexity(metrics.nodes, metrics.constraints, metrics.depth, metrics.wildcards,
+                metrics.leadingWildcards, metrics.maxListSize, metrics.totalListSize, metrics.maxGeoVertices, cost);
+    }
+
+    private int analyze(Node node, Metrics metrics, int level) {
+        metrics.nodes++;
+        if (node instanceof OperationNode operationNode) {
+            metrics.cost += weights.getOperationWeight();
+            return Math.max(analyze(operationNode.getLeft(), metrics, level + 1),
+                    analyze(operationNode.getRight(), metrics, level + 1));
+        }
+        if (node instanceof ConstraintNode<?> constraintNode) {
+            constraint(constraintNode, metrics);
+            return level;
+        }
+        throw new IllegalArgumentException("Node: " + node + " can not be analyzed");
+    }
+
+    private void constraint(ConstraintNode<?> node, Metrics metrics) {
+        metrics.constraints++;
+        Comparison comparison = node.getComparison();
+        Object argument = node.getArgument();
+        double cost = weights.getComparisonWeight(comparison);
+
+        if (argument instanceof String value
+                && (Comparison.EQUALS.equals(comparison) || Comparison.NOT_EQUALS.equals(comparison))) {
+            if (alwaysWildcard || value.startsWith("*") || value.startsWith("?")) {
+                metrics.wildcards++;
+                metrics.leadingWildcards++;
+                cost *= weights.getLeadingWildcardWeight();
+            } else if (AbstractVisitor.containsWildcard(value)) {
+                metrics.wildcards++;
+                cost *= weights.getWildcardWeight();
+            }
+        }
+
+        if (argument instanceof Iterable<?>) {
+            int size = sizeOf(argument);
+            metrics.maxListSize = Math.max(metrics.maxListSize, size);
+            metrics.totalListSize += size;
+            cost += weights.getListElementWeight() * size;
+
+            if (Comparison.WITHIN.equals(comparison) || Comparison.INTERSECT.equals(comparison)
+                    || Comparison.NEAR.equals(comparison)) {
+                int vertices = size / 2;
+                metrics.maxGeoVertices = Math.max(metrics.maxGeoVertices, vertices);
+                cost += weights.getGeoVertexWeight() * vertices;
+            }
+        }
+        metrics.cost += cost;
+    }
+
+    public boolean isAlwaysWildcard() {
+        return alwaysWildcard;
+    }
+
+    /**
+     * @param alwaysWildcard true if the queries are run by visitors matching all strings with wildcards
+     * @see AbstractVisitor#setAlwaysWildcard(boolean)
+     */
+    public void setAlwaysWildcard(boolean alwaysWildcard) {
+        this.alwaysWildcard = alwaysWildcard;
+    }
+
+    private static class Metrics {
+        private int nodes;
+        private int constraints;
+        private int depth;
+        private int wildcards;
+        private int leadingWildcards;
+        private int maxListSize;
+        private int totalListSize;
+        private int maxGeoVertices;
+        private double cost;
+    }
+
+}
@@ -0,0 +1,67 @@
+package org.hschott.ficum.node;
+
+/**
+ * An {@link AdmissionPolicy} rejecting queries whose {@link QueryComplexity} exceeds configured limits. Limits not
+ * set are not checked.
+ */
+public class ComplexityLimit implements AdmissionPolicy {
+
+    private final ComplexityAnalyzer analyzer;
+
+    private final double maxCost;
+
+    private int maxDepth = Integer.MAX_VALUE;
+
+    private int maxLeadingWildcards = Integer.MAX_VALUE;
+
+    private int maxListSize = Integer.MAX_VALUE;
+
+    private int maxGeoVertices = Integer.MAX_VALUE;
+
+    public ComplexityLimit(double maxCost) {
+        this(new ComplexityAnalyzer(), maxCost);
+    }
+
+    public ComplexityLimit(ComplexityAnalyzer analyzer, double maxCost) {
+        super();
+        this.analyzer = Constraint.checkArgNotNull(analyzer, "analyzer");
+        if (!(maxCost > 0)) {
+            throw new IllegalArgumentException("maxCost must be positive, but was: " + maxCost);
+        }
+        this.maxCost = maxCost;
+    }
+
+    private static void check(String metric, double value, double limit, QueryComplexity complexity) {
+        if (value > limit) {
+            throw new QueryRejectedException(
+                    String.format("Query rejected, %s of %s exceeds limit of %s", metric, value, limit), complexity);
+        }
+    }
+
+    @Override
+    public void admit(Node root) {
+        QueryComplexity complexity = analyzer.analyze(root);
+        check("cost", complexity.cost(), maxCost, complexity);
+        check("depth", complexity.depth(), maxDepth, complexity);
+        check("leading wildcards", complexity.leadingWildcards(), maxLeadingWildcards, complexity);
+        check("list size", complexity.maxListSize(), maxListSize, complexity);
+        check("geo vertices", complexity.maxGeoVertices(), maxGeoVertices, complexity);
+    }
+
+    public void setMaxDepth(int maxDepth) {
+        this.maxDepth = maxDepth;
+    }
+
+    public void setMaxGeoVertices(int maxGeoVertices) {
+        this.maxGeoVertices = maxGeoVertices;
+    }
+
+    public void setMaxLeadingWildcards(int maxLeadingWildcards) {
+        this.maxLeadingWildcards = maxLeadingWildcards;
+    }
+
+    public void setMaxListSize(int maxListSize) {
+        this.maxListSize = maxListSize;
+    }
+
+}
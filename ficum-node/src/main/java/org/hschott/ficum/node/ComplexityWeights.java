@@ -0,0 +1,122 @@
+package org.hschott.ficum.node;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Weights used by {@link ComplexityAnalyzer} to compute the cost of a query. Backends differ in what is expensive,
+ * e.g. a leading wildcard is a collection scan in MongoDB but may be served by a trigram index in a database, so
+ * usually one instance is configured per backend.
+ */
+public class ComplexityWeights {
+
+    private final Map<Comparison, Double> comparisonWeights = new EnumMap<>(Comparison.class);
+
+    private double wildcardWeight = 4d;
+
+    private double leadingWildcardWeight = 20d;
+
+    private double listElementWeight = 0.1d;
+
+    private double geoVertexWeight = 0.5d;
+
+    private double operationWeight = 0.5d;
+
+    private double depthWeight = 1d;
+
+    public ComplexityWeights() {
+        super();
+        for (Comparison comparison : Comparison.values()) {
+            comparisonWeights.put(comparison, 1d);
+        }
+        comparisonWeights.put(Comparison.NEAR, 5d);
+        comparisonWeights.put(Comparison.WITHIN, 5d);
+        comparisonWeights.put(Comparison.INTERSECT, 5d);
+    }
+
+    private static double checkWeight(double weight) {
+        if (weight < 0d || Double.isNaN(weight)) {
+            throw new IllegalArgumentException("weight must not be negative, but was: " + weight);
+        }
+        return weight;
+    }
+
+    public double getComparisonWeight(Comparison comparison) {
+        return comparisonWeights.get(comparison);
+    }
+
+    public double getDepthWeight() {
+        return depthWeight;
+    }
+
+    public double getGeoVertexWeight() {
+        return geoVertexWeight;
+    }
+
+    public double getLeadingWildcardWeight() {
+        return leadingWildcardWeight;
+    }
+
+    public double getListElementWeight() {
+        return listElementWeight;
+    }
+
+    public double getOperationWeight() {
+        return operationWeight;
+    }
+
+    public double getWildcardWeight() {
+        return wildcardWeight;
+    }
+
+    /**
+     * @param comparison the comparison
+     * @param weight     base cost of a constraint with this comparison
+     */
+    public void setComparisonWeight(Comparison comparison, double weight) {
+        comparisonWeights.put(Constraint.checkArgNotNull(comparison, "comparison"), checkWeight(weight));
+    }
+
+    /**
+     * @param depthWeight cost per level of nesting
+     */
+    public void setDepthWeight(double depthWeight) {
+        this.depthWeight = checkWeight(depthWeight);
+    }
+
+    /**
+     * @param geoVertexWeight cost per vertex of a geo shape
+     */
+    public void setGeoVertexWeight(double geoVertexWeight) {
+        this.geoVertexWeight = checkWeight(geoVertexWeight);
+    }
+
+    /**
+     * @param leadingWildcardWeight factor applied to the base cost of an equality with leading wildcard
+     */
+    public void setLeadingWildcardWeight(double leadingWildcardWeight) {
+        this.leadingWildcardWeight = checkWeight(leadingWildcardWeight);
+    }
+
+    /**
+     * @param listElementWeight cost per element of a list argument
+     */
+    public void setListElementWeight(double listElementWeight) {
+        this.listElementWeight = checkWeight(listElementWeight);
+    }
+
+    /**
+     * @param operationWeight cost per AND, OR, NAND or NOR operation
+     */
+    public void setOperationWeight(double operationWeight) {
+        this.operationWeight = checkWeight(operationWeight);
+    }
+
+    /**
+     * @param wildcardWeight factor applied to the base cost of an equality with wildcards
+     */
+    public void setWildcardWeight(double wildcardWeight) {
+        this.wildcardWeight = checkWeight(wildcardWeight);
+    }
+
+}
@@ -1,5 +1,20 @@
 package org.hschott.ficum.node;
 
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * A comparison of a selector with an argument. The argument is kept as it is, the hash code is computed once for
+ * arguments of immutable value types like String, boxed primitives, enums and java.time values, and for unmodifiable
+ * lists of such values as created by {@link Arguments#immutableList(Collection)}, which the {@link Builder} and the
+ * parser use for list arguments. Equal constraints with a cached hash compare their hashes before large IN lists are
+ * compared element by element.
+ *
+ * @param <T> type of the argument
+ */
 public class Constraint<T> {
 
     private final Selector selector;
@@ -8,6 +23,11 @@ public class Constraint<T> {
 
     private final T argument;
 
+    /**
+     * The cached hash code, 0 if the argument may change and the hash code is computed on every call.
+     */
+    private final int hash;
+
     public Constraint(String selector, Comparison comparison, T argument) {
         this(new SimpleSelector(checkArgNotNull(selector, "selector")), comparison, argument);
 
@@ -19,7 +39,7 @@ public class Constraint<T> {
         this.selector = selector;
         this.comparison = comparison;
         this.argument = argument;
-
+        this.hash = isValue(argument) || isImmutableList(argument) ? computeHashCode() : 0;
     }
 
     public static <T> T checkArgNotNull(T reference, String parameterName) {
@@ -29,6 +49,39 @@ public class Constraint<T> {
         return reference;
     }
 
+    /**
+     * @return true if the argument can not change, unlike e.g. a Date, a Calendar or a list
+     */
+    private static boolean isValue(Object argument) {
+        return argument == null || argument instanceof String || argument instanceof Boolean
+                || argument instanceof Character || argument instanceof Integer || argument instanceof Long
+                || argument instanceof Double || argument instanceof Float || argument instanceof Short
+                || argument instanceof Byte || argument instanceof BigDecimal || argument instanceof BigInteger
+                || argument instanceof Enum<?> || argument instanceof UUID
+                || argument.getClass().getPackageName().equals("java.time");
+    }
+
+    private static boolean isImmutableList(Object argument) {
+        if (!Arguments.isImmutableList(argument)) {
+            return false;
+        }
+        for (Object element : (List<?>) argument) {
+            if (!isValue(element)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int computeHashCode() {
+        final int prime = 31;
+        int result = 1;
+        result = prime * result + ((argument == null) ? 0 : argument.hashCode());
+        result = prime * result + ((comparison == null) ? 0 : comparison.hashCode());
+        result = prime * result + ((selector == null) ? 0 : selector.hashCode());
+        return result;
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (this == obj)
@@ -37,10 +90,7 @@ public class Constraint<T> {
             return false;
         if (!(obj instanceof Constraint<?> other))
             return false;
-        if (argument == null) {
-            if (other.argument != null)
-                return false;
-        } else if (!argument.equals(other.argument))
+        if (hash != 0 && other.hash != 0 && hash != other.hash)
             return false;
         if (comparison != other.comparison)
             return false;
@@ -49,7 +99,13 @@ public class Constraint<T> {
                 return false;
         } else if (!selector.equals(other.selector))
             return false;
-        return true;
+        if (argument == null) {
+            return other.argument == null;
+        }
+        if (argument instanceof Collection<?> collection && other.argument instanceof Collection<?> otherCollection
+                && collection.size() != otherCollection.size())
+            return false;
+        return argument.equals(other.argument);
     }
 
     public T getArgument() {
@@ -66,12 +122,7 @@ public class Constraint<T> {
 
     @Override
     public int hashCode() {
-        final int prime = 31;
-        int result = 1;
-        result = prime * result + ((argument == null) ? 0 : argument.hashCode());
-        result = prime * result + ((comparison == null) ? 0 : comparison.hashCode());
-        result = prime * result + ((selector == null) ? 0 : selector.hashCode());
-        return result;
+        return hash != 0 ? hash : computeHashCode();
     }
 
     @Override
@@ -0,0 +1,138 @@
+package org.hschott.ficum.node;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Reorders the operands of AND and OR operations so that backends evaluating operands in tree order short circuit
+ * as early as possible. Chains of the same operator are flattened, for AND the most selective and cheapest operands
+ * are put first, for OR the operands most likely to be true. Operands are assumed to be independent.
+ * <p>
+ * The input tree is left untouched, a new tree sharing the {@link ConstraintNode}s of the input is returned.
+ */
+public class CostBasedReorderer {
+
+    private final SelectivityEstimator estimator;
+
+    public CostBasedReorderer() {
+        this(new DefaultSelectivityEstimator());
+    }
+
+    public CostBasedReorderer(SelectivityEstimator estimator) {
+        super();
+        this.estimator = Constraint.checkArgNotNull(estimator, "estimator");
+    }
+
+    private static double andRank(Estimate estimate) {
+        double fails = 1d - estimate.selectivity();
+        return fails <= 0d ? Double.POSITIVE_INFINITY : estimate.cost() / fails;
+    }
+
+    private static double orRank(Estimate estimate) {
+        return estimate.selectivity() <= 0d ? Double.POSITIVE_INFINITY : estimate.cost() / estimate.selectivity();
+    }
+
+    private static LogicalOperationNode combine(Operator operator, Node left, Node right) {
+        LogicalOperationNode node = new LogicalOperationNode(operator);
+        node.setLeft(left);
+        node.setRight(right);
+        return node;
+    }
+
+    private Estimate chain(Operator operator, OperationNode node) {
+        List<Estimate> operands = new ArrayList<>();
+        flatten(operator, node, operands);
+
+        boolean and = Operator.AND.equals(operator);
+        operands.sort(Comparator.comparingDouble(and ? CostBasedReorderer::andRank : CostBasedReorderer::orRank));
+
+        Node tree = null;
+        double selectivity = and ? 1d : 0d;
+        double cost = 0d;
+        double reached = 1d;
+        for (Estimate operand : operands) {
+            tree = tree == null ? operand.node() : combine(operator, tree, operand.node());
+            cost += reached * operand.cost();
+            if (and) {
+                reached *= operand.selectivity();
+                selectivity *= operand.selectivity();
+            } else {
+                reached *= 1d - operand.selectivity();
+                selectivity = 1d - reached;
+            }
+        }
+        return new Estimate(tree, selectivity, cost);
+    }
+
+    private Estimate constraint(ConstraintNode<?> node) {
+        double selectivity = estimator.selectivity(node.getSelector(), node.getComparison(), node.getArgument());
+        double cost = estimator.cost(node.getSelector(), node.getComparison(), node.getArgument());
+        return new Estimate(node, Math.max(0d, Math.min(1d, selectivity)), Math.max(0d, cost));
+    }
+
+    private Estimate estimate(Node node) {
+        return switch (node) {
+            case ConstraintNode<?> constraintNode -> constraint(constraintNode);
+            case OperationNode operationNode -> operation(operationNode);
+            default -> throw new IllegalArgumentException("Node: " + node + " can not be reordered");
+        };
+    }
+
+    private void flatten(Operator operator, Node node, List<Estimate> operands) {
+        if (node instanceof OperationNode operationNode && operator.equals(operationNode.getOperator())) {
+            flatten(operator, operationNode.getLeft(), operands);
+            flatten(operator, operationNode.getRight(), operands);
+        } else {
+            operands.add(estimate(node));
+        }
+    }
+
+    private Estimate negatedPair(OperationNode node, boolean conjunctive) {
+        Estimate left = estimate(node.getLeft());
+        Estimate right = estimate(node.getRight());
+
+        // NAND evaluates as OR(NOT left, NOT right) and short circuits on a false operand like AND,
+        // NOR evaluates as AND(NOT left, NOT right) and short circuits on a true operand like OR
+        boolean swap = conjunctive ? andRank(right) < andRank(left) : orRank(right) < orRank(left);
+        Estimate first = swap ? right : left;
+        Estimate second = swap ? left : right;
+
+        double selectivity;
+        double cost;
+        if (conjunctive) {
+            selectivity = 1d - first.selectivity() * second.selectivity();
+            cost = first.cost() + first.selectivity() * second.cost();
+        } else {
+            selectivity = (1d - first.selectivity()) * (1d - second.selectivity());
+            cost = first.cost() + (1d - first.selectivity()) * second.cost();
+        }
+        return new Estimate(combine(node.getOperator(), first.node(), second.node()), selectivity, cost);
+    }
+
+    private Estimate operation(OperationNode node) {
+        return switch (node.getOperator()) {
+            case AND, OR -> chain(node.getOperator(), node);
+            case NAND -> negatedPair(node, true);
+            case NOR -> negatedPair(node, false);
+            default -> throw new IllegalArgumentException("OperationNode: " + node + " does not resolve to a operation");
+        };
+    }
+
+    /**
+     * Reorder the operands of a {@link Node} tree.
+     *
+     * @param root the root node of the tree
+     * @return root node of the reordered tree, or null if root is null
+     */
+    public Node reorder(Node root) {
+        if (root == null) {
+            return null;
+        }
+        return estimate(root).node();
+    }
+
+    private record Estimate(Node node, double selectivity, double cost) {
+    }
+
+}
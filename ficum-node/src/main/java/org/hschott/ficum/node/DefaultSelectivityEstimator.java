@@ -0,0 +1,83 @@
+package org.hschott.ficum.node;
+
+import java.util.Collection;
+
+/**
+ * A {@link SelectivityEstimator} based on fixed heuristics. Equality is assumed to be highly selective, ranges to
+ * select a third, wildcard matches and geo queries to be expensive.
+ */
+public class DefaultSelectivityEstimator implements SelectivityEstimator {
+
+    private static final double EQUALS_SELECTIVITY = 0.05d;
+
+    private static final double NULL_SELECTIVITY = 0.1d;
+
+    private static final double WILDCARD_SELECTIVITY = 0.25d;
+
+    private static final double RANGE_SELECTIVITY = 1d / 3d;
+
+    private static final double GEO_SELECTIVITY = 0.1d;
+
+    private static final double WILDCARD_COST = 4d;
+
+    private static final double LEADING_WILDCARD_COST = 8d;
+
+    private static final double GEO_COST = 16d;
+
+    protected static int sizeOf(Object argument) {
+        if (argument instanceof Collection<?> collection) {
+            return collection.size();
+        }
+        if (argument instanceof Iterable<?> iterable) {
+            int size = 0;
+            for (Object ignored : iterable) {
+                size++;
+            }
+            return size;
+        }
+        return 1;
+    }
+
+    protected static boolean isLeadingWildcard(Object argument) {
+        return argument instanceof String value && (value.startsWith("*") || value.startsWith("?"));
+    }
+
+    protected static boolean isWildcard(Object argument) {
+        return argument instanceof String value && AbstractVisitor.containsWildcard(value);
+    }
+
+    private double equalsSelectivity(Object argument) {
+        if (argument == null) {
+            return NULL_SELECTIVITY;
+        }
+        return isWildcard(argument) ? WILDCARD_SELECTIVITY : EQUALS_SELECTIVITY;
+    }
+
+    @Override
+    public double selectivity(Selector selector, Comparison comparison, Object argument) {
+        return switch (comparison) {
+            case EQUALS -> equalsSelectivity(argument);
+            case NOT_EQUALS -> 1d - equalsSelectivity(argument);
+            case GREATER_THAN, GREATER_EQUALS, LESS_THAN, LESS_EQUALS -> RANGE_SELECTIVITY;
+            case IN -> Math.min(1d, EQUALS_SELECTIVITY * sizeOf(argument));
+            case NIN -> 1d - Math.min(1d, EQUALS_SELECTIVITY * sizeOf(argument));
+            case NEAR, WITHIN, INTERSECT -> GEO_SELECTIVITY;
+        };
+    }
+
+    @Override
+    public double cost(Selector selector, Comparison comparison, Object argument) {
+        return switch (comparison) {
+            case EQUALS, NOT_EQUALS -> {
+                if (isLeadingWildcard(argument)) {
+                    yield LEADING_WILDCARD_COST;
+                }
+                yield isWildcard(argument) ? WILDCARD_COST : 1d;
+            }
+            case IN, NIN -> 1d + Math.log(sizeOf(argument)) / Math.log(2d);
+            case NEAR, WITHIN, INTERSECT -> GEO_COST;
+            default -> 1d;
+        };
+    }
+
+}
@@ -0,0 +1,79 @@
+package org.hschott.ficum.node;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * An immutable, thread safe mapping of selectors to field paths. A field mapping is built once, e.g. at startup, and
+ * attached to any number of visitors with {@link AbstractVisitor#setFieldMapping(FieldMapping)} without copying.
+ * Field names are split into path segments once, selectors without a mapping resolve to a path of their
+ * own value. A field mapping keeps no other state, paths of unmapped selectors are split on every resolve, so map
+ * frequently used selectors up front.
+ */
+public final class FieldMapping {
+
+    private static final FieldMapping EMPTY = new FieldMapping(Map.of());
+
+    private final Map<Selector, FieldPath> mapping;
+
+    private FieldMapping(Map<Selector, FieldPath> mapping) {
+        this.mapping = Map.copyOf(mapping);
+    }
+
+    /**
+     * @return a field mapping without any mapping
+     */
+    public static FieldMapping empty() {
+        return EMPTY;
+    }
+
+    /**
+     * @param selectorToField map of selector names to dotted field names
+     * @return the field mapping
+     */
+    public static FieldMapping of(Map<String, String> selectorToField) {
+        Map<Selector, FieldPath> mapping = new HashMap<>();
+        selectorToField.forEach((selector, field) -> mapping.put(new SimpleSelector(selector), FieldPath.of(field)));
+        return new FieldMapping(mapping);
+    }
+
+    /**
+     * @param selector the selector
+     * @return the mapped field path, or null if there is no mapping
+     */
+    public FieldPath get(Selector selector) {
+        return mapping.get(selector);
+    }
+
+    /**
+     * Resolve a selector to the path of its mapped field.
+     *
+     * @param selector the selector
+     * @return the mapped field path, or a new path of the selector value if there is no mapping
+     */
+    public FieldPath resolve(Selector selector) {
+        FieldPath path = mapping.get(selector);
+        return path != null ? path : FieldPath.of(selector.value());
+    }
+
+    /**
+     * @return number of mapped selectors
+     */
+    public int size() {
+        return mapping.size();
+    }
+
+    /**
+     * Create a new field mapping with an additional mapping, this mapping is left untouched.
+     *
+     * @param selector the selector name
+     * @param field    the dotted field name
+     * @return the new field mapping
+     */
+    public FieldMapping with(String selector, String field) {
+        Map<Selector, FieldPath> extended = new HashMap<>(mapping);
+        extended.put(new SimpleSelector(selector), FieldPath.of(field));
+        return new FieldMapping(extended);
+    }
+
+}
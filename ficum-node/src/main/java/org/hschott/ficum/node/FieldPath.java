@@ -0,0 +1,93 @@
+package org.hschott.ficum.node;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A dotted field name split into its path segments. Splitting happens once per path, so keep paths instead of
+ * creating them per lookup where possible.
+ */
+public final class FieldPath {
+
+    private final String field;
+
+    private final List<String> segments;
+
+    private FieldPath(String field) {
+        this.field = field;
+        this.segments = split(field);
+    }
+
+    private static List<String> split(String field) {
+        List<String> segments = new ArrayList<>(4);
+        int start = 0;
+        for (int dot = field.indexOf('.'); dot >= 0; dot = field.indexOf('.', start)) {
+            segments.add(field.substring(start, dot));
+            start = dot + 1;
+        }
+        segments.add(field.substring(start));
+        // like String.split, trailing empty segments are dropped
+        int size = segments.size();
+        while (size > 1 && segments.get(size - 1).isEmpty()) {
+            size--;
+        }
+        return List.copyOf(segments.subList(0, size));
+    }
+
+    /**
+     * @param field a dotted field name
+     * @return the path of the field
+     */
+    public static FieldPath of(String field) {
+        return new FieldPath(Constraint.checkArgNotNull(field, "field"));
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj)
+            return true;
+        if (!(obj instanceof FieldPath other))
+            return false;
+        return field.equals(other.field);
+    }
+
+    /**
+     * @return the dotted field name
+     */
+    public String field() {
+        return field;
+    }
+
+    @Override
+    public int hashCode() {
+        return field.hashCode();
+    }
+
+    /**
+     * @param index index of a segment
+     * @return the segment at index
+     */
+    public String segment(int index) {
+        return segments.get(index);
+    }
+
+    /**
+     * @return the immutable list of path segments
+     */
+    public List<String> segments() {
+        return segments;
+    }
+
+    /**
+     * @return number of path segments
+     */
+    public int size() {
+        return segments.size();
+    }
+
+    @Override
+    public String toString() {
+        return field;
+    }
+
+}
@@ -0,0 +1,21 @@
+package org.hschott.ficum.node;
+
+/**
+ * Result of an implication check done by {@link ImplicationChecker}.
+ */
+public enum Implication {
+
+    /**
+     * Every candidate matching the premise also matches the conclusion.
+     */
+    IMPLIED,
+
+    /**
+     * The implication could not be proven, it may or may not hold.
+     */
+    UNKNOWN;
+
+    public boolean isImplied() {
+        return this == IMPLIED;
+    }
+}
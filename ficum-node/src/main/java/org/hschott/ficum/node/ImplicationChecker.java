@@ -0,0 +1,240 @@
+package org.hschott.ficum.node;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Decides whether one {@link Node} tree implies another, e.g. whether the results of a narrower query can be taken
+ * from the cached results of a wider one. The check is conservative: {@link Implication#IMPLIED} is only returned
+ * if the implication could be proven with interval reasoning on comparisons, IN sets and the boolean structure of
+ * both trees, otherwise {@link Implication#UNKNOWN}.
+ * <p>
+ * Arguments are compared with Java semantics, see {@link Arguments}. Equality with wildcards is only considered
+ * implied by an identical constraint. The check assumes visitors do not use {@link AbstractVisitor#isAlwaysWildcard()}.
+ */
+public class ImplicationChecker {
+
+    protected ImplicationChecker() {
+    }
+
+    private static void conjuncts(Node node, List<ConstraintNode<?>> constraints) {
+        if (node instanceof OperationNode operationNode && Operator.AND.equals(operationNode.getOperator())) {
+            conjuncts(operationNode.getLeft(), constraints);
+            conjuncts(operationNode.getRight(), constraints);
+        } else if (node instanceof ConstraintNode<?> constraintNode) {
+            constraints.add(constraintNode);
+        }
+    }
+
+    private static boolean domainImplies(Node premise, ConstraintNode<?> conclusion) {
+        List<ConstraintNode<?>> constraints = new ArrayList<>();
+        conjuncts(premise, constraints);
+
+        Map<Selector, Domain> domains = new HashMap<>();
+        for (ConstraintNode<?> constraint : constraints) {
+            domains.computeIfAbsent(constraint.getSelector(), selector -> new Domain()).restrict(constraint);
+        }
+
+        Domain domain = domains.get(conclusion.getSelector());
+        return domain != null && domain.implies(conclusion.getComparison(), conclusion.getArgument());
+    }
+
+    /**
+     * Check whether premise implies conclusion. A null tree stands for a query without filter.
+     *
+     * @param premise    the root node of the, usually narrower, premise
+     * @param conclusion the root node of the, usually wider, conclusion
+     * @return {@link Implication#IMPLIED} if every candidate matching premise also matches conclusion, otherwise
+     *         {@link Implication#UNKNOWN}
+     */
+    public static Implication implies(Node premise, Node conclusion) {
+        return isImplied(premise, conclusion) ? Implication.IMPLIED : Implication.UNKNOWN;
+    }
+
+    private static boolean isImplied(Node premise, Node conclusion) {
+        if (conclusion == null) {
+            return true;
+        }
+        if (premise == null) {
+            return false;
+        }
+        if (premise.equals(conclusion)) {
+            return true;
+        }
+
+        if (conclusion instanceof OperationNode right && Operator.AND.equals(right.getOperator())) {
+            return isImplied(premise, right.getLeft()) && isImplied(premise, right.getRight());
+        }
+        if (premise instanceof OperationNode left && Operator.OR.equals(left.getOperator())) {
+            return isImplied(left.getLeft(), conclusion) && isImplied(left.getRight(), conclusion);
+        }
+
+        if (premise instanceof OperationNode left && Operator.AND.equals(left.getOperator())) {
+            if (conclusion instanceof ConstraintNode<?> constraint && domainImplies(premise, constraint)) {
+                return true;
+            }
+            if (isImplied(left.getLeft(), conclusion) || isImplied(left.getRight(), conclusion)) {
+                return true;
+            }
+        }
+        if (conclusion instanceof OperationNode right && Operator.OR.equals(right.getOperator())) {
+            return isImplied(premise, right.getLeft()) || isImplied(premise, right.getRight());
+        }
+
+        if (premise instanceof ConstraintNode<?> left && conclusion instanceof ConstraintNode<?> right) {
+            return domainImplies(left, right);
+        }
+        return false;
+    }
+
+    private static boolean isPlain(Object argument) {
+        return argument != null && !(argument instanceof Iterable<?>)
+                && !(argument instanceof String value && AbstractVisitor.containsWildcard(value));
+    }
+
+    private static boolean satisfies(Object value, Comparison comparison, Object argument) {
+        return switch (comparison) {
+            case EQUALS -> isPlain(argument) && Arguments.isEqual(value, argument);
+            case NOT_EQUALS -> argument == null || isPlain(argument) && Arguments.isComparable(value, argument)
+                    && !Arguments.isEqual(value, argument);
+            case GREATER_THAN -> isPlain(argument) && Arguments.isComparable(value, argument)
+                    && Arguments.compare(value, argument) > 0;
+            case GREATER_EQUALS -> isPlain(argument) && Arguments.isComparable(value, argument)
+                    && Arguments.compare(value, argument) >= 0;
+            case LESS_THAN -> isPlain(argument) && Arguments.isComparable(value, argument)
+                    && Arguments.compare(value, argument) < 0;
+            case LESS_EQUALS -> isPlain(argument) && Arguments.isComparable(value, argument)
+                    && Arguments.compare(value, argument) <= 0;
+            case IN -> Arguments.asList(argument).stream().anyMatch(element -> Arguments.isEqual(value, element));
+            case NIN -> Arguments.asList(argument).stream().allMatch(element -> element != null
+                    && Arguments.isComparable(value, element) && !Arguments.isEqual(value, element));
+            default -> false;
+        };
+    }
+
+    /**
+     * The set of values a single selector may take under a conjunction of constraints.
+     */
+    private static class Domain {
+
+        private List<Object> values;
+
+        private final List<Object> excluded = new ArrayList<>();
+
+        private Object lower;
+
+        private boolean lowerInclusive;
+
+        private Object upper;
+
+        private boolean upperInclusive;
+
+        private boolean excludes(Object argument) {
+            if (!isPlain(argument)) {
+                return false;
+            }
+            for (Object value : excluded) {
+                if (Arguments.isEqual(value, argument)) {
+                    return true;
+                }
+            }
+            if (lower != null && Arguments.isComparable(lower, argument)) {
+                int compared = Arguments.compare(argument, lower);
+                if (compared < 0 || compared == 0 && !lowerInclusive) {
+                    return true;
+                }
+            }
+            if (upper != null && Arguments.isComparable(upper, argument)) {
+                int compared = Arguments.compare(argument, upper);
+                return compared > 0 || compared == 0 && !upperInclusive;
+            }
+            return false;
+        }
+
+        private boolean implies(Comparison comparison, Object argument) {
+            List<Object> candidates = values;
+            if (candidates == null && lower != null && upper != null && lowerInclusive && upperInclusive
+                    && Arguments.isComparable(lower, upper) && Arguments.compare(lower, upper) == 0) {
+                candidates = List.of(lower);
+            }
+            if (candidates != null) {
+                return candidates.stream().filter(value -> !excludes(value))
+                                 .allMatch(value -> satisfies(value, comparison, argument));
+            }
+
+            return switch (comparison) {
+                case GREATER_THAN -> isPlain(argument) && lower != null && Arguments.isComparable(lower, argument)
+                        && (Arguments.compare(lower, argument) > 0
+                        || Arguments.compare(lower, argument) == 0 && !lowerInclusive);
+                case GREATER_EQUALS -> isPlain(argument) && lower != null && Arguments.isComparable(lower, argument)
+                        && Arguments.compare(lower, argument) >= 0;
+                case LESS_THAN -> isPlain(argument) && upper != null && Arguments.isComparable(upper, argument)
+                        && (Arguments.compare(upper, argument) < 0
+                        || Arguments.compare(upper, argument) == 0 && !upperInclusive);
+                case LESS_EQUALS -> isPlain(argument) && upper != null && Arguments.isComparable(upper, argument)
+                        && Arguments.compare(upper, argument) <= 0;
+                case NOT_EQUALS -> argument == null ? lower != null || upper != null : excludes(argument);
+                case NIN -> Arguments.asList(argument).stream().allMatch(this::excludes);
+                default -> false;
+            };
+        }
+
+        private void restrict(ConstraintNode<?> constraint) {
+            Object argument = constraint.getArgument();
+            switch (constraint.getComparison()) {
+                case EQUALS -> {
+                    if (isPlain(argument)) {
+                        restrictValues(List.of(argument));
+                    }
+                }
+                case IN -> {
+                    List<?> arguments = Arguments.asList(argument);
+                    if (!arguments.contains(null)) {
+                        restrictValues(arguments);
+                    }
+                }
+                case NOT_EQUALS -> {
+                    if (isPlain(argument)) {
+                        excluded.add(argument);
+                    }
+                }
+                case NIN -> Arguments.asList(argument).stream().filter(ImplicationChecker::isPlain)
+                                     .forEach(excluded::add);
+                case GREATER_THAN, GREATER_EQUALS -> {
+                    boolean inclusive = Comparison.GREATER_EQUALS.equals(constraint.getComparison());
+                    if (isPlain(argument) && (lower == null || Arguments.isComparable(lower, argument))) {
+                        int compared = lower == null ? 1 : Arguments.compare(argument, lower);
+                        if (compared > 0 || compared == 0 && !inclusive) {
+                            lower = argument;
+                            lowerInclusive = inclusive;
+                        }
+                    }
+                }
+                case LESS_THAN, LESS_EQUALS -> {
+                    boolean inclusive = Comparison.LESS_EQUALS.equals(constraint.getComparison());
+                    if (isPlain(argument) && (upper == null || Arguments.isComparable(upper, argument))) {
+                        int compared = upper == null ? -1 : Arguments.compare(argument, upper);
+                        if (compared < 0 || compared == 0 && !inclusive) {
+                            upper = argument;
+                            upperInclusive = inclusive;
+                        }
+                    }
+                }
+                default -> {
+                    // geo constraints do not restrict the domain
+                }
+            }
+        }
+
+        private void restrictValues(List<?> arguments) {
+            if (values == null) {
+                values = new ArrayList<>(arguments);
+            } else {
+                values.removeIf(value -> arguments.stream().noneMatch(argument -> Arguments.isEqual(value, argument)));
+            }
+        }
+    }
+
+}
@@ -0,0 +1,22 @@
+package org.hschott.ficum.node;
+
+/**
+ * How an {@link AbstractFoldVisitor} reuses the values of repeated subtrees.
+ */
+public enum Memoization {
+
+    /**
+     * Every subtree is folded, repeated subtrees result in separate values.
+     */
+    NONE,
+
+    /**
+     * A subtree which occurs several times as the same node instance is folded once.
+     */
+    IDENTITY,
+
+    /**
+     * Equal subtrees are folded once, regardless whether they are the same node instance.
+     */
+    STRUCTURAL
+}
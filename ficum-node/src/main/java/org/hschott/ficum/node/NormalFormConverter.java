@@ -0,0 +1,163 @@
+package org.hschott.ficum.node;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Converts a {@link Node} tree into disjunctive normal form (an OR of ANDs) or conjunctive normal form (an AND of
+ * ORs). Distributing operations can blow up a tree exponentially, so conversion is capped at a maximum number of
+ * nodes. If the converted tree would grow past the cap, the original tree is returned.
+ * <p>
+ * NAND and NOR operations are not distributed but kept as operands, negations are never pushed into constraints.
+ * The converted tree shares subtrees with the original tree.
+ */
+public class NormalFormConverter {
+
+    private final int maxNodes;
+
+    /**
+     * @param maxNodes maximum number of nodes the converted tree may have
+     */
+    public NormalFormConverter(int maxNodes) {
+        super();
+        if (maxNodes < 1) {
+            throw new IllegalArgumentException("maxNodes must be positive, but was: " + maxNodes);
+        }
+        this.maxNodes = maxNodes;
+    }
+
+    /**
+     * @param node the root node of a tree
+     * @return number of nodes in the tree
+     */
+    public static int size(Node node) {
+        if (node instanceof OperationNode operationNode) {
+            return 1 + size(operationNode.getLeft()) + size(operationNode.getRight());
+        }
+        return node == null ? 0 : 1;
+    }
+
+    private static int size(List<Clause> clauses) {
+        int size = clauses.size() - 1;
+        for (Clause clause : clauses) {
+            size += clause.size;
+        }
+        return size;
+    }
+
+    private Result convert(Node root, Operator outer, Operator inner) {
+        if (root == null) {
+            return new Result(null, false, 0, 0);
+        }
+        int originalSize = size(root);
+        List<Clause> clauses = clauses(root, outer, inner);
+        if (clauses == null) {
+            return new Result(root, false, originalSize, originalSize);
+        }
+
+        List<Node> operands = new ArrayList<>(clauses.size());
+        for (Clause clause : clauses) {
+            operands.add(Builder.merge(inner, clause.operands));
+        }
+        Node converted = Builder.merge(outer, operands);
+        return new Result(converted, true, originalSize, size(converted));
+    }
+
+    /**
+     * Collect the clauses of the normal form, or null if the cap is exceeded.
+     */
+    private List<Clause> clauses(Node node, Operator outer, Operator inner) {
+        if (node instanceof OperationNode operationNode) {
+            Operator operator = operationNode.getOperator();
+            if (outer.equals(operator) || inner.equals(operator)) {
+                List<Clause> left = clauses(operationNode.getLeft(), outer, inner);
+                if (left == null) {
+                    return null;
+                }
+                List<Clause> right = clauses(operationNode.getRight(), outer, inner);
+                if (right == null) {
+                    return null;
+                }
+                return outer.equals(operator) ? concat(left, right) : distribute(left, right);
+            }
+        }
+        List<Clause> clauses = new ArrayList<>(1);
+        clauses.add(new Clause(List.of(node), size(node)));
+        return size(clauses) > maxNodes ? null : clauses;
+    }
+
+    private List<Clause> concat(List<Clause> left, List<Clause> right) {
+        if (size(left) + size(right) + 1 > maxNodes) {
+            return null;
+        }
+        List<Clause> clauses = new ArrayList<>(left.size() + right.size());
+        clauses.addAll(left);
+        clauses.addAll(right);
+        return clauses;
+    }
+
+    private List<Clause> distribute(List<Clause> left, List<Clause> right) {
+        long count = (long) left.size() * right.size();
+        if (count > maxNodes) {
+            return null;
+        }
+        List<Clause> clauses = new ArrayList<>((int) count);
+        long size = count - 1;
+        for (Clause l : left) {
+            for (Clause r : right) {
+                Clause clause = l.join(r);
+                size += clause.size;
+                if (size > maxNodes) {
+                    return null;
+                }
+                clauses.add(clause);
+            }
+        }
+        return clauses;
+    }
+
+    /**
+     * Convert a tree into conjunctive normal form, an AND of ORs.
+     *
+     * @param root the root node of the tree
+     * @return the result of the conversion
+     */
+    public Result toCnf(Node root) {
+        return convert(root, Operator.AND, Operator.OR);
+    }
+
+    /**
+     * Convert a tree into disjunctive normal form, an OR of ANDs.
+     *
+     * @param root the root node of the tree
+     * @return the result of the conversion
+     */
+    public Result toDnf(Node root) {
+        return convert(root, Operator.OR, Operator.AND);
+    }
+
+    /**
+     * Result of a conversion.
+     *
+     * @param node         root node of the converted tree, or of the original tree if not converted
+     * @param converted    true if the tree was converted, false if the cap was exceeded
+     * @param originalSize number of nodes of the original tree
+     * @param size         number of nodes of the returned tree
+     */
+    public record Result(Node node, boolean converted, int originalSize, int size) {
+    }
+
+    /**
+     * The operands of an inner operation and the number of nodes they add up to when combined.
+     */
+    private record Clause(List<Node> operands, int size) {
+
+        private Clause join(Clause other) {
+            List<Node> joined = new ArrayList<>(operands.size() + other.operands.size());
+            joined.addAll(operands);
+            joined.addAll(other.operands);
+            return new Clause(joined, size + other.size + 1);
+        }
+    }
+
+}
@@ -0,0 +1,223 @@
+package org.hschott.ficum.node;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Evaluates the constraints of a {@link Node} tree whose selector values are known up front, e.g. a tenant id or
+ * feature flags, and simplifies the surrounding operations. Decided branches are removed, a tree which is always
+ * true or always false is folded into a constant, so the caller can skip the backend entirely.
+ * <p>
+ * Values are bound by selector value. A constraint is only decided if its outcome does not depend on the backend:
+ * comparisons with wildcards, geo comparisons and comparisons of incomparable values are kept as they are. A bound
+ * null value only decides equality with null. If the backend matches text always with wildcards, see
+ * {@link AbstractVisitor#setAlwaysWildcard(boolean)}, text comparisons are never decided. The original tree is not
+ * modified, undecided subtrees are shared.
+ */
+public class PartialEvaluator {
+
+    private final Map<String, Object> bindings = new HashMap<>();
+
+    private final Set<String> nullBindings = new HashSet<>();
+
+    private final boolean alwaysWildcard;
+
+    /**
+     * @param bindings known values by selector value, a null value binds the selector to null
+     */
+    public PartialEvaluator(Map<String, ?> bindings) {
+        this(bindings, false);
+    }
+
+    /**
+     * @param bindings       known values by selector value, a null value binds the selector to null
+     * @param alwaysWildcard true if the backend matches text always with wildcards
+     */
+    public PartialEvaluator(Map<String, ?> bindings, boolean alwaysWildcard) {
+        super();
+        this.alwaysWildcard = alwaysWildcard;
+        Constraint.checkArgNotNull(bindings, "bindings").forEach((selector, value) -> {
+            if (value == null) {
+                nullBindings.add(selector);
+            } else {
+                this.bindings.put(selector, value);
+            }
+        });
+    }
+
+    private boolean isPlain(Object argument) {
+        return argument != null && !(argument instanceof Iterable<?>)
+                && !(argument instanceof String value && (alwaysWildcard || AbstractVisitor.containsWildcard(value)));
+    }
+
+    private static Result negate(Result result) {
+        if (result.isDecided()) {
+            return result.isAlwaysTrue() ? Result.FALSE : Result.TRUE;
+        }
+        return Result.of(Builder.not(result.node()));
+    }
+
+    private static Node operation(Operator operator, Node left, Node right) {
+        OperationNode node = new LogicalOperationNode(operator);
+        node.setLeft(left);
+        node.setRight(right);
+        return node;
+    }
+
+    private Result constraint(ConstraintNode<?> node) {
+        String selector = node.getSelector().value();
+        Object argument = node.getArgument();
+        if (nullBindings.contains(selector)) {
+            return switch (node.getComparison()) {
+                case EQUALS -> argument == null ? Result.TRUE : Result.of(node);
+                case NOT_EQUALS -> argument == null ? Result.FALSE : Result.of(node);
+                default -> Result.of(node);
+            };
+        }
+        Object value = bindings.get(selector);
+        if (value == null) {
+            return Result.of(node);
+        }
+
+        Boolean decided = switch (node.getComparison()) {
+            case EQUALS -> argument == null ? Boolean.FALSE : compare(value, argument, 0, 0);
+            case NOT_EQUALS -> argument == null ? Boolean.TRUE : not(compare(value, argument, 0, 0));
+            case GREATER_THAN -> compare(value, argument, 1, 1);
+            case GREATER_EQUALS -> compare(value, argument, 0, 1);
+            case LESS_THAN -> compare(value, argument, -1, -1);
+            case LESS_EQUALS -> compare(value, argument, -1, 0);
+            case IN -> in(value, argument);
+            case NIN -> not(in(value, argument));
+            default -> null;
+        };
+        return decided == null ? Result.of(node) : decided ? Result.TRUE : Result.FALSE;
+    }
+
+    /**
+     * @return whether value compared to argument is within [min, max], or null if not comparable
+     */
+    private Boolean compare(Object value, Object argument, int min, int max) {
+        if (!isPlain(argument) || !Arguments.isComparable(value, argument)) {
+            return null;
+        }
+        int compared = Integer.signum(Arguments.compare(value, argument));
+        return compared >= min && compared <= max;
+    }
+
+    private Boolean in(Object value, Object argument) {
+        boolean undecided = false;
+        for (Object element : Arguments.asList(argument)) {
+            Boolean equal = compare(value, element, 0, 0);
+            if (Boolean.TRUE.equals(equal)) {
+                return Boolean.TRUE;
+            }
+            undecided |= equal == null;
+        }
+        return undecided ? null : Boolean.FALSE;
+    }
+
+    private static Boolean not(Boolean value) {
+        return value == null ? null : !value;
+    }
+
+    /**
+     * Evaluate a tree with the bound values.
+     *
+     * @param root the root node of the tree
+     * @return the result of the evaluation, always true if root is null
+     */
+    public Result evaluate(Node root) {
+        if (root == null) {
+            return Result.TRUE;
+        }
+        return switch (root) {
+            case ConstraintNode<?> constraintNode -> constraint(constraintNode);
+            case OperationNode operationNode -> operation(operationNode);
+            default -> Result.of(root);
+        };
+    }
+
+    private Result operation(OperationNode node) {
+        Result left = evaluate(node.getLeft());
+        Result right = evaluate(node.getRight());
+        Operator operator = node.getOperator();
+
+        return switch (operator) {
+            case AND -> {
+                if (left.isAlwaysFalse() || right.isAlwaysFalse()) {
+                    yield Result.FALSE;
+                }
+                yield left.isAlwaysTrue() ? right : right.isAlwaysTrue() ? left : rebuild(node, left, right);
+            }
+            case OR -> {
+                if (left.isAlwaysTrue() || right.isAlwaysTrue()) {
+                    yield Result.TRUE;
+                }
+                yield left.isAlwaysFalse() ? right : right.isAlwaysFalse() ? left : rebuild(node, left, right);
+            }
+            case NAND -> {
+                if (left.isAlwaysFalse() || right.isAlwaysFalse()) {
+                    yield Result.TRUE;
+                }
+                yield left.isAlwaysTrue() ? negate(right) : right.isAlwaysTrue() ? negate(left)
+                        : rebuild(node, left, right);
+            }
+            case NOR -> {
+                if (left.isAlwaysTrue() || right.isAlwaysTrue()) {
+                    yield Result.FALSE;
+                }
+                yield left.isAlwaysFalse() ? negate(right) : right.isAlwaysFalse() ? negate(left)
+                        : rebuild(node, left, right);
+            }
+            default -> rebuild(node, left, right);
+        };
+    }
+
+    private static Result rebuild(OperationNode node, Result left, Result right) {
+        if (left.node() == node.getLeft() && right.node() == node.getRight()) {
+            return Result.of(node);
+        }
+        return Result.of(operation(node.getOperator(), left.node(), right.node()));
+    }
+
+    /**
+     * Result of a partial evaluation.
+     *
+     * @param node  root node of the simplified tree, or null if the tree was decided
+     * @param value the value of a decided tree, or null if undecided
+     */
+    public record Result(Node node, Boolean value) {
+
+        private static final Result TRUE = new Result(null, Boolean.TRUE);
+
+        private static final Result FALSE = new Result(null, Boolean.FALSE);
+
+        private static Result of(Node node) {
+            return new Result(node, null);
+        }
+
+        /**
+         * @return true if the tree matches every candidate, the filter can be dropped
+         */
+        public boolean isAlwaysTrue() {
+            return Boolean.TRUE.equals(value);
+        }
+
+        /**
+         * @return true if the tree matches no candidate, the query is empty
+         */
+        public boolean isAlwaysFalse() {
+            return Boolean.FALSE.equals(value);
+        }
+
+        /**
+         * @return true if the tree was folded into a constant
+         */
+        public boolean isDecided() {
+            return value != null;
+        }
+    }
+
+}
@@ -0,0 +1,39 @@
+package org.hschott.ficum.node;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * The selectors a query should return, e.g. parsed from <code>name,owner.city</code>. Backends translate a
+ * projection into their native form, so only the selected fields are read and transferred. Duplicate selectors are
+ * dropped, the order of the remaining selectors is kept.
+ *
+ * @param selectors the selected selectors, must not be empty
+ */
+public record Projection(List<Selector> selectors) {
+
+    public Projection {
+        Constraint.checkArgNotNull(selectors, "selectors");
+        if (selectors.isEmpty()) {
+            throw new IllegalArgumentException("Projection must contain at least one selector");
+        }
+        selectors.forEach(selector -> Constraint.checkArgNotNull(selector, "selector"));
+        selectors = List.copyOf(new LinkedHashSet<>(selectors));
+    }
+
+    public static Projection of(Selector... selectors) {
+        return new Projection(Arrays.asList(selectors));
+    }
+
+    public static Projection of(String... selectors) {
+        return new Projection(Arrays.stream(selectors).<Selector>map(SimpleSelector::new).toList());
+    }
+
+    @Override
+    public String toString() {
+        return selectors.stream().map(Selector::value).collect(Collectors.joining(","));
+    }
+
+}
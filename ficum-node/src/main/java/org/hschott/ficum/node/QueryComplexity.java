@@ -0,0 +1,18 @@
+package org.hschott.ficum.node;
+
+/**
+ * Metrics of a query computed by {@link ComplexityAnalyzer}.
+ *
+ * @param nodes            number of nodes
+ * @param constraints      number of constraints
+ * @param depth            nesting depth, a single constraint has depth 1
+ * @param wildcards        number of equalities with wildcards, translated to LIKE or regular expressions
+ * @param leadingWildcards number of equalities with a leading wildcard, which can not use an index
+ * @param maxListSize      size of the largest list argument
+ * @param totalListSize    sum of the sizes of all list arguments
+ * @param maxGeoVertices   number of vertices of the largest geo shape
+ * @param cost             weighted cost of the query
+ */
+public record QueryComplexity(int nodes, int constraints, int depth, int wildcards, int leadingWildcards,
+                              int maxListSize, int totalListSize, int maxGeoVertices, double cost) {
+}
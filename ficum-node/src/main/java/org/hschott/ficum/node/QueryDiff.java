@@ -0,0 +1,200 @@
+package org.hschott.ficum.node;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * The difference between a previous and a current version of a {@link Node} tree, e.g. of a saved view whose filter
+ * was edited. Constraints are compared as a multiset: constraints only found in the current tree are added,
+ * constraints only found in the previous tree are removed. An added and a removed constraint with the same selector
+ * are reported as a change instead.
+ * <p>
+ * The relation of both trees is decided with {@link ImplicationChecker}. If the current tree is narrower, its results
+ * can be taken by filtering the previous results. Otherwise the missing results are fetched with
+ * {@link #getDelta()}, the current tree AND NOT the previous tree.
+ */
+public final class QueryDiff {
+
+    private final Node previous;
+
+    private final Node current;
+
+    private final List<ConstraintNode<?>> added;
+
+    private final List<ConstraintNode<?>> removed;
+
+    private final List<Change> changed;
+
+    private final Relation relation;
+
+    private QueryDiff(Node previous, Node current) {
+        this.previous = previous;
+        this.current = current;
+
+        List<ConstraintNode<?>> added = constraints(current);
+        List<ConstraintNode<?>> removed = new ArrayList<>();
+        for (ConstraintNode<?> constraint : constraints(previous)) {
+            if (!added.remove(constraint)) {
+                removed.add(constraint);
+            }
+        }
+
+        List<Change> changed = new ArrayList<>();
+        Iterator<ConstraintNode<?>> iterator = removed.iterator();
+        while (iterator.hasNext()) {
+            ConstraintNode<?> from = iterator.next();
+            for (ConstraintNode<?> to : added) {
+                if (from.getSelector().equals(to.getSelector())) {
+                    changed.add(new Change(from, to));
+                    added.remove(to);
+                    iterator.remove();
+                    break;
+                }
+            }
+        }
+
+        this.added = Collections.unmodifiableList(added);
+        this.removed = Collections.unmodifiableList(removed);
+        this.changed = Collections.unmodifiableList(changed);
+
+        boolean narrower = ImplicationChecker.implies(current, previous).isImplied();
+        boolean wider = ImplicationChecker.implies(previous, current).isImplied();
+        this.relation = narrower && wider ? Relation.EQUIVALENT
+                : narrower ? Relation.NARROWER : wider ? Relation.WIDER : Relation.UNKNOWN;
+    }
+
+    /**
+     * Compute the difference of two trees, a null tree stands for a query without filter.
+     *
+     * @param previous the root node of the previous tree
+     * @param current  the root node of the current tree
+     * @return the difference
+     */
+    public static QueryDiff between(Node previous, Node current) {
+        return new QueryDiff(previous, current);
+    }
+
+    private static List<ConstraintNode<?>> constraints(Node node) {
+        List<ConstraintNode<?>> constraints = new ArrayList<>();
+        collect(node, constraints);
+        return constraints;
+    }
+
+    private static void collect(Node node, List<ConstraintNode<?>> constraints) {
+        if (node instanceof OperationNode operationNode) {
+            collect(operationNode.getLeft(), constraints);
+            collect(operationNode.getRight(), constraints);
+        } else if (node instanceof ConstraintNode<?> constraintNode) {
+            constraints.add(constraintNode);
+        }
+    }
+
+    /**
+     * @return constraints only found in the current tree
+     */
+    public List<ConstraintNode<?>> getAdded() {
+        return added;
+    }
+
+    /**
+     * @return constraints whose comparison or argument changed
+     */
+    public List<Change> getChanged() {
+        return changed;
+    }
+
+    /**
+     * The query matching all candidates which match the current tree but not the previous one. Together with the
+     * previous results filtered by the current tree, it yields the current results regardless of the relation, as
+     * long as every constraint is either true or false.
+     * <p>
+     * Backends with SQL null semantics evaluate a comparison with null to unknown, and NOT unknown is unknown too: a
+     * candidate whose field of the previous tree is null matches neither the previous tree nor the delta, e.g.
+     * {@code x==5} and its negation both miss x being null. Fetch such candidates separately if they matter.
+     *
+     * @return root node of the current tree AND NOT the previous tree, see {@link Builder#not(Node)}
+     * @throws IllegalStateException if the previous tree is null, the delta is always empty then
+     */
+    public Node getDelta() {
+        if (previous == null) {
+            throw new IllegalStateException("Previous query has no filter, the delta is empty");
+        }
+        return Builder.merge(Operator.AND, current, Builder.not(previous));
+    }
+
+    public Relation getRelation() {
+        return relation;
+    }
+
+    /**
+     * @return constraints only found in the previous tree
+     */
+    public List<ConstraintNode<?>> getRemoved() {
+        return removed;
+    }
+
+    /**
+     * @return true if no constraint was added, removed or changed
+     */
+    public boolean isEmpty() {
+        return added.isEmpty() && removed.isEmpty() && changed.isEmpty();
+    }
+
+    /**
+     * @return true if the current tree matches a subset of the previous results, but not provably all of them
+     */
+    public boolean isNarrower() {
+        return relation == Relation.NARROWER;
+    }
+
+    /**
+     * @return true if the current tree matches a superset of the previous results, but not provably only them
+     */
+    public boolean isWider() {
+        return relation == Relation.WIDER;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("QueryDiff[relation=%s, added=%s, removed=%s, changed=%s]", relation, added, removed,
+                changed);
+    }
+
+    /**
+     * How the current tree relates to the previous tree.
+     */
+    public enum Relation {
+
+        /**
+         * Both trees match the same candidates.
+         */
+        EQUIVALENT,
+
+        /**
+         * The current tree implies the previous tree, the opposite could not be proven.
+         */
+        NARROWER,
+
+        /**
+         * The previous tree implies the current tree, the opposite could not be proven.
+         */
+        WIDER,
+
+        /**
+         * No implication could be proven.
+         */
+        UNKNOWN
+    }
+
+    /**
+     * A constraint whose comparison or argument changed.
+     *
+     * @param from the constraint in the previous tree
+     * @param to   the constraint in the current tree
+     */
+    public record Change(ConstraintNode<?> from, ConstraintNode<?> to) {
+    }
+
+}
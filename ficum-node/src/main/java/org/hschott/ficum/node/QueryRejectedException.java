@@ -0,0 +1,31 @@
+package org.hschott.ficum.node;
+
+import java.io.Serial;
+
+/**
+ * Thrown by an {@link AdmissionPolicy} if a query is not admitted.
+ */
+public class QueryRejectedException extends IllegalArgumentException {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private final transient QueryComplexity complexity;
+
+    public QueryRejectedException(String message) {
+        this(message, null);
+    }
+
+    public QueryRejectedException(String message, QueryComplexity complexity) {
+        super(message);
+        this.complexity = complexity;
+    }
+
+    /**
+     * @return the complexity of the rejected query, may be null
+     */
+    public QueryComplexity getComplexity() {
+        return complexity;
+    }
+
+}
@@ -0,0 +1,94 @@
+package org.hschott.ficum.node;
+
+import java.util.function.Predicate;
+
+/**
+ * Splits a {@link Node} tree into a part a backend can evaluate and a residual part to be evaluated on the rows the
+ * backend returns. For every candidate, the tree matches exactly if both the pushdown and the residual match it, so
+ * the pushdown is as selective as possible without ever dropping a matching row.
+ * <p>
+ * AND operations are split operand by operand. An OR operation is pushed down as the OR of the pushdowns of its
+ * operands, which is weaker than the OR itself, so the whole OR stays in the residual unless it is fully supported.
+ * A NOR operation is split into its negated operands, a NAND operation is only pushed down if fully supported.
+ */
+public class QuerySplitter {
+
+    private final Predicate<Selector> supported;
+
+    /**
+     * @param supported tells whether the backend can evaluate constraints of a selector
+     */
+    public QuerySplitter(Predicate<Selector> supported) {
+        super();
+        this.supported = Constraint.checkArgNotNull(supported, "supported");
+    }
+
+    /**
+     * Split a tree.
+     *
+     * @param root the root node of the tree
+     * @return the split, a null pushdown or residual stands for no filter
+     */
+    public Split split(Node root) {
+        if (root == null) {
+            return new Split(null, null);
+        }
+        return splitNode(root);
+    }
+
+    /**
+     * Split bottom up, every node is visited once. A complete split of a node always pushes down the node itself.
+     */
+    private Split splitNode(Node node) {
+        if (node instanceof ConstraintNode<?> constraintNode) {
+            return supported.test(constraintNode.getSelector()) ? new Split(node, null) : new Split(null, node);
+        }
+        if (!(node instanceof OperationNode operationNode)) {
+            return new Split(null, node);
+        }
+
+        Node left = operationNode.getLeft();
+        Node right = operationNode.getRight();
+        Split leftSplit = splitNode(left);
+        Split rightSplit = splitNode(right);
+        if (leftSplit.isComplete() && rightSplit.isComplete()) {
+            return new Split(node, null);
+        }
+        return switch (operationNode.getOperator()) {
+            case AND -> new Split(Builder.merge(Operator.AND, leftSplit.pushdown(), rightSplit.pushdown()),
+                    Builder.merge(Operator.AND, leftSplit.residual(), rightSplit.residual()));
+            case OR -> {
+                Node pushdown = leftSplit.pushdown() == null || rightSplit.pushdown() == null ? null
+                        : Builder.merge(Operator.OR, leftSplit.pushdown(), rightSplit.pushdown());
+                yield new Split(pushdown, node);
+            }
+            case NOR -> {
+                // NOR(a, b) is NOT a AND NOT b, a fully supported operand can be pushed down on its own
+                Node notLeft = Builder.not(left);
+                Node notRight = Builder.not(right);
+                yield new Split(Builder.merge(Operator.AND, leftSplit.isComplete() ? notLeft : null,
+                        rightSplit.isComplete() ? notRight : null),
+                        Builder.merge(Operator.AND, leftSplit.isComplete() ? null : notLeft,
+                                rightSplit.isComplete() ? null : notRight));
+            }
+            default -> new Split(null, node);
+        };
+    }
+
+    /**
+     * Result of a split.
+     *
+     * @param pushdown root node of the tree the backend evaluates, null if the backend can not filter
+     * @param residual root node of the tree to evaluate on the returned rows, null if nothing is left to filter
+     */
+    public record Split(Node pushdown, Node residual) {
+
+        /**
+         * @return true if the backend evaluates the whole tree
+         */
+        public boolean isComplete() {
+            return residual == null;
+        }
+    }
+
+}
@@ -0,0 +1,29 @@
+package org.hschott.ficum.node;
+
+/**
+ * Estimates how selective and how expensive a single {@link Constraint} is. Estimates are keyed by selector and
+ * comparison, the argument is passed along so that implementations can account for wildcards or list sizes.
+ */
+public interface SelectivityEstimator {
+
+    /**
+     * Estimate the fraction of candidates that satisfy a constraint.
+     *
+     * @param selector   the selector of the constraint
+     * @param comparison the comparison of the constraint
+     * @param argument   the argument of the constraint, may be null
+     * @return a value between 0 (nothing matches) and 1 (everything matches)
+     */
+    double selectivity(Selector selector, Comparison comparison, Object argument);
+
+    /**
+     * Estimate the relative cost of evaluating a constraint once. A plain equality check costs 1.
+     *
+     * @param selector   the selector of the constraint
+     * @param comparison the comparison of the constraint
+     * @param argument   the argument of the constraint, may be null
+     * @return a positive relative cost
+     */
+    double cost(Selector selector, Comparison comparison, Object argument);
+
+}
@@ -0,0 +1,90 @@
+package org.hschott.ficum.node;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * The order of query results, e.g. parsed from <code>-date,+name</code>. Backends translate a sort into their native
+ * ordering, so results are sorted server-side. If a selector occurs more than once, only its first order is kept.
+ *
+ * @param orders the orders by priority, must not be empty
+ */
+public record Sort(List<Sort.Order> orders) {
+
+    public Sort {
+        Constraint.checkArgNotNull(orders, "orders");
+        if (orders.isEmpty()) {
+            throw new IllegalArgumentException("Sort must contain at least one order");
+        }
+        Set<Selector> selectors = new HashSet<>();
+        List<Order> distinct = new ArrayList<>(orders.size());
+        for (Order order : orders) {
+            if (selectors.add(Constraint.checkArgNotNull(order, "order").selector())) {
+                distinct.add(order);
+            }
+        }
+        orders = List.copyOf(distinct);
+    }
+
+    public static Sort by(Order... orders) {
+        return new Sort(Arrays.asList(orders));
+    }
+
+    @Override
+    public String toString() {
+        return orders.stream().map(Order::toString).collect(Collectors.joining(","));
+    }
+
+    /**
+     * Direction of an {@link Order}.
+     */
+    public enum Direction {
+        ASC("+"), DESC("-");
+
+        private final String sign;
+
+        Direction(String sign) {
+            this.sign = sign;
+        }
+
+        public String getSign() {
+            return sign;
+        }
+    }
+
+    /**
+     * Sort by a selector.
+     *
+     * @param selector  the selector to sort by
+     * @param direction the direction
+     */
+    public record Order(Selector selector, Direction direction) {
+
+        public Order {
+            Constraint.checkArgNotNull(selector, "selector");
+            Constraint.checkArgNotNull(direction, "direction");
+        }
+
+        public static Order asc(String selector) {
+            return new Order(new SimpleSelector(selector), Direction.ASC);
+        }
+
+        public static Order desc(String selector) {
+            return new Order(new SimpleSelector(selector), Direction.DESC);
+        }
+
+        public boolean isAscending() {
+            return direction == Direction.ASC;
+        }
+
+        @Override
+        public String toString() {
+            return direction.getSign() + selector.value();
+        }
+    }
+
+}
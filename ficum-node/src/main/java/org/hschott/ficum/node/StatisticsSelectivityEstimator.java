@@ -0,0 +1,100 @@
+package org.hschott.ficum.node;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@link SelectivityEstimator} fed with observed match counts or with selectivities derived from histograms. For
+ * any selector and comparison without statistics the estimate is taken from a fallback estimator. This class is
+ * thread safe and meant to be shared.
+ */
+public class StatisticsSelectivityEstimator implements SelectivityEstimator {
+
+    private final SelectivityEstimator fallback;
+
+    private final Map<Key, Statistic> statistics = new ConcurrentHashMap<>();
+
+    public StatisticsSelectivityEstimator() {
+        this(new DefaultSelectivityEstimator());
+    }
+
+    public StatisticsSelectivityEstimator(SelectivityEstimator fallback) {
+        super();
+        this.fallback = Constraint.checkArgNotNull(fallback, "fallback");
+    }
+
+    @Override
+    public double cost(Selector selector, Comparison comparison, Object argument) {
+        return fallback.cost(selector, comparison, argument);
+    }
+
+    /**
+     * Record an observation of how many candidates matched a constraint.
+     *
+     * @param selector   the selector of the constraint
+     * @param comparison the comparison of the constraint
+     * @param matched    number of candidates that matched
+     * @param evaluated  number of candidates the constraint was evaluated on
+     */
+    public void record(Selector selector, Comparison comparison, long matched, long evaluated) {
+        if (matched < 0 || evaluated < matched) {
+            throw new IllegalArgumentException(
+                    String.format("invalid observation: %d matched out of %d evaluated", matched, evaluated));
+        }
+        Statistic statistic = statistics.computeIfAbsent(new Key(selector, comparison), key -> new Statistic());
+        statistic.matched.add(matched);
+        statistic.evaluated.add(evaluated);
+    }
+
+    public void record(String selector, Comparison comparison, long matched, long evaluated) {
+        record(new SimpleSelector(selector), comparison, matched, evaluated);
+    }
+
+    @Override
+    public double selectivity(Selector selector, Comparison comparison, Object argument) {
+        Statistic statistic = statistics.get(new Key(selector, comparison));
+        if (statistic != null) {
+            Double fixed = statistic.fixed;
+            if (fixed != null) {
+                return fixed;
+            }
+            long evaluated = statistic.evaluated.sum();
+            if (evaluated > 0) {
+                return (double) statistic.matched.sum() / evaluated;
+            }
+        }
+        return fallback.selectivity(selector, comparison, argument);
+    }
+
+    /**
+     * Set a fixed selectivity, e.g. derived from a histogram. A fixed selectivity takes precedence over recorded
+     * observations.
+     *
+     * @param selector    the selector of the constraint
+     * @param comparison  the comparison of the constraint
+     * @param selectivity a value between 0 and 1
+     */
+    public void setSelectivity(Selector selector, Comparison comparison, double selectivity) {
+        if (selectivity < 0d || selectivity > 1d) {
+            throw new IllegalArgumentException("selectivity must be between 0 and 1, but was: " + selectivity);
+        }
+        statistics.computeIfAbsent(new Key(selector, comparison), key -> new Statistic()).fixed = selectivity;
+    }
+
+    public void setSelectivity(String selector, Comparison comparison, double selectivity) {
+        setSelectivity(new SimpleSelector(selector), comparison, selectivity);
+    }
+
+    private record Key(Selector selector, Comparison comparison) {
+    }
+
+    private static class Statistic {
+        private final LongAdder matched = new LongAdder();
+
+        private final LongAdder evaluated = new LongAdder();
+
+        private volatile Double fixed;
+    }
+
+}
@@ -0,0 +1,190 @@
+package org.hschott.ficum.node;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class AbstractFoldVisitorTest {
+
+    private static class CountingVisitor extends AbstractFoldVisitor<Integer> {
+
+        private CountingVisitor() {
+            super();
+        }
+
+        private CountingVisitor(boolean dispatching) {
+            super(dispatching);
+        }
+
+        @Override
+        protected Integer foldConstraint(ConstraintNode<?> node) {
+            return 1;
+        }
+
+        @Override
+        protected Integer foldOperation(OperationNode node, Integer left, Integer right) {
+            return left + right + 1;
+        }
+    }
+
+    @Test
+    public void testFoldReturnsValueOfRoot() {
+        Node node = Builder.start().constraint("first", Comparison.EQUALS, 1).and()
+                           .constraint("second", Comparison.EQUALS, 2).or()
+                           .constraint("third", Comparison.EQUALS, 3).build();
+
+        Assert.assertEquals(Integer.valueOf(5), new CountingVisitor().start(node));
+    }
+
+    @Test
+    public void testStartIsReentrant() {
+        Node inner = Builder.start().constraint("first", Comparison.EQUALS, 1).build();
+        Node outer = Builder.start().constraint("first", Comparison.EQUALS, 1).and()
+                            .constraint("second", Comparison.EQUALS, 2).build();
+
+        CountingVisitor visitor = new CountingVisitor() {
+            @Override
+            protected Integer foldConstraint(ConstraintNode<?> node) {
+                return "second".equals(node.getSelector().value()) ? start(inner) + 1 : 1;
+            }
+        };
+
+        Assert.assertEquals(Integer.valueOf(4), visitor.start(outer));
+    }
+
+    private static class TracingVisitor extends AbstractFoldVisitor<Object> {
+
+        private final List<ConstraintNode<?>> folded = new ArrayList<>();
+
+        @Override
+        protected Object foldConstraint(ConstraintNode<?> node) {
+            folded.add(node);
+            return new Object();
+        }
+
+        @Override
+        protected Object foldOperation(OperationNode node, Object left, Object right) {
+            return List.of(left, right);
+        }
+    }
+
+    private static Node permission() {
+        return Builder.start().constraint("owner", Comparison.EQUALS, "Jeff").or()
+                      .constraint("public", Comparison.EQUALS, Boolean.TRUE).build();
+    }
+
+    @Test
+    public void testNoMemoization() {
+        Node permission = permission();
+        Node node = Builder.merge(Operator.OR, permission, permission);
+
+        TracingVisitor visitor = new TracingVisitor();
+        List<?> result = (List<?>) visitor.start(node);
+
+        Assert.assertEquals(4, visitor.folded.size());
+        Assert.assertNotSame(((List<?>) result.get(0)).get(0), ((List<?>) result.get(1)).get(0));
+    }
+
+    @Test
+    public void testIdentityMemoization() {
+        Node permission = permission();
+        Node node = Builder.merge(Operator.OR, Builder.merge(Operator.AND, permission,
+                Builder.start().constraint("status", Comparison.EQUALS, "open").build()), permission, permission());
+
+        TracingVisitor visitor = new TracingVisitor();
+        visitor.setMemoization(Memoization.IDENTITY);
+        visitor.start(node);
+
+        Assert.assertEquals(5, visitor.folded.size());
+    }
+
+    @Test
+    public void testIdentityMemoizationOfCompactTree() {
+        Node node = Builder.merge(Operator.OR, permission(), permission());
+
+        TracingVisitor visitor = new TracingVisitor();
+        visitor.setMemoization(Memoization.IDENTITY);
+        List<?> result = (List<?>) visitor.start(CompactTree.encode(node).root());
+
+        Assert.assertEquals(4, visitor.folded.size());
+        Assert.assertNotSame(((List<?>) result.get(0)).get(0), ((List<?>) result.get(1)).get(0));
+    }
+
+    @Test
+    public void testStructuralMemoization() {
+        Node node = Builder.merge(Operator.OR, Builder.merge(Operator.AND, permission(),
+                Builder.start().constraint("status", Comparison.EQUALS, "open").build()), permission(), permission());
+
+        TracingVisitor visitor = new TracingVisitor();
+        visitor.setMemoization(Memoization.STRUCTURAL);
+        List<?> result = (List<?>) visitor.start(node);
+
+        Assert.assertEquals(3, visitor.folded.size());
+        Assert.assertSame(((List<?>) result.get(0)).get(0), ((List<?>) result.get(1)).get(1));
+    }
+
+    @Test
+    public void testStructuralMemoizationOfCompactTree() {
+        Node node = Builder.start().constraint("first", Comparison.EQUALS, 1).and()
+                           .constraint("second", Comparison.EQUALS, 2).or().sub()
+                           .constraint("first", Comparison.EQUALS, 1).and()
+                           .constraint("second", Comparison.EQUALS, 2).endSub().build();
+
+        AbstractFoldVisitor<String> visitor = new AbstractFoldVisitor<>() {
+            @Override
+            protected String foldConstraint(ConstraintNode<?> node) {
+                return node.getSelector().value();
+            }
+
+            @Override
+            protected String foldOperation(OperationNode node, String left, String right) {
+                return "(" + left + " " + node.getOperator() + " " + right + ")";
+            }
+        };
+        visitor.setMemoization(Memoization.STRUCTURAL);
+
+        Assert.assertEquals("((first AND second) OR (first AND second))",
+                visitor.start(CompactTree.encode(node).root()));
+    }
+
+    @Test
+    public void testMemoizationIsPerStart() {
+        Node node = permission();
+        TracingVisitor visitor = new TracingVisitor();
+        visitor.setMemoization(Memoization.STRUCTURAL);
+
+        Assert.assertNotSame(visitor.start(node), visitor.start(node));
+        Assert.assertEquals(4, visitor.folded.size());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testAcceptOutsideStart() {
+        Node node = Builder.start().constraint("first", Comparison.EQUALS, 1).and()
+                           .constraint("second", Comparison.EQUALS, 2).build();
+
+        node.accept(new TracingVisitor());
+    }
+
+    @Test
+    public void testOverriddenVisit() {
+        Node node = Builder.start().constraint("first", Comparison.EQUALS, 1).and()
+                           .constraint("second", Comparison.EQUALS, 2).or()
+                           .constraint("third", Comparison.EQUALS, 3).build();
+        List<String> visited = new ArrayList<>();
+
+        CountingVisitor visitor = new CountingVisitor(true) {
+            @Override
+            public void visit(ConstraintNode<?> node) {
+                visited.add(node.getSelector().value());
+                super.visit(node);
+            }
+        };
+
+        Assert.assertEquals(Integer.valueOf(5), visitor.start(node));
+        Assert.assertEquals(List.of("first", "second", "third"), visited);
+        Assert.assertThrows(IllegalStateException.class, () -> visitor.setMemoization(Memoization.STRUCTURAL));
+    }
+
+}
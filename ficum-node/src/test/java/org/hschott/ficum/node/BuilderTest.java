@@ -364,4 +364,70 @@ public class BuilderTest {
         Assert.assertTrue(orNode.getRight().getClass().isAssignableFrom(ConstraintNode.class));
     }
 
+    @Test()
+    public void testAllOfBuildsBalancedTree() {
+        List<Constraint<?>> constraints = List.of(new Constraint<>("first", Comparison.EQUALS, 1L),
+                                                  new Constraint<>("second", Comparison.EQUALS, 2L),
+                                                  new Constraint<>("third", Comparison.EQUALS, 3L),
+                                                  new Constraint<>("fourth", Comparison.EQUALS, 4L));
+
+        Node root = Builder.allOf(constraints);
+
+        Assert.assertEquals("first==1L,second==2L,third==3L,fourth==4L", new QueryPrinterVisitor().start(root));
+        LogicalOperationNode node = (LogicalOperationNode) root;
+        Assert.assertEquals(Operator.AND, node.getOperator());
+        Assert.assertTrue(node.getLeft() instanceof LogicalOperationNode);
+        Assert.assertTrue(node.getRight() instanceof LogicalOperationNode);
+    }
+
+    @Test()
+    public void testAnyOfSingleConstraint() {
+        Constraint<Long> constraint = new Constraint<>("first", Comparison.EQUALS, 1L);
+
+        Node root = Builder.anyOf(List.of(constraint));
+
+        Assert.assertEquals(new ConstraintNode<>(constraint), root);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAllOfEmpty() {
+        Builder.allOf(List.of());
+    }
+
+    @Test()
+    public void testMergeSkipsNullTrees() {
+        Node tenant = Builder.start().constraint("tenant", Comparison.EQUALS, "acme").build();
+        Node user = Builder.start().constraint("owner", Comparison.EQUALS, "me").or()
+                           .constraint("shared", Comparison.EQUALS, true).build();
+
+        Node root = Builder.merge(Operator.AND, tenant, null, user);
+
+        Assert.assertEquals("tenant=='acme',(owner=='me';shared==true)", new QueryPrinterVisitor().start(root));
+        Assert.assertNull(Builder.merge(Operator.AND, (Node) null));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMergeNotAssociativeOperator() {
+        Builder.merge(Operator.NAND, Builder.start().constraint("first", Comparison.EQUALS, 1L).build());
+    }
+
+    @Test()
+    public void testNot() {
+        Node tenant = Builder.start().constraint("tenant", Comparison.EQUALS, "acme").build();
+        Node root = Builder.start().constraint("owner", Comparison.EQUALS, "me").or()
+                           .constraint("shared", Comparison.EQUALS, true).build();
+
+        OperationNode notTenant = (OperationNode) Builder.not(tenant);
+        Assert.assertEquals(Operator.NOR, notTenant.getOperator());
+        Assert.assertSame(tenant, notTenant.getLeft());
+        Assert.assertSame(tenant, notTenant.getRight());
+        Assert.assertSame(tenant, Builder.not(notTenant));
+
+        OperationNode notRoot = (OperationNode) Builder.not(root);
+        Assert.assertEquals("owner=='me':shared==true", new QueryPrinterVisitor().start(notRoot));
+        Assert.assertSame(((OperationNode) root).getLeft(), notRoot.getLeft());
+        Assert.assertEquals(root, Builder.not(notRoot));
+        Assert.assertEquals(Operator.OR, ((OperationNode) root).getOperator());
+    }
+
 }
@@ -0,0 +1,80 @@
+package org.hschott.ficum.node;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class CompactTreeTest {
+
+    private final Node node = Builder.start().constraint("name", Comparison.EQUALS, "Chuck").and().sub()
+                                     .constraint("age", Comparison.GREATER_THAN, 3).or()
+                                     .constraint("name", Comparison.IN, "Max", "Leo").endSub().and()
+                                     .constraint("owner", Comparison.EQUALS, (Comparable<?>) null).build();
+
+    @Test
+    public void testDecodeRestoresTree() {
+        CompactTree tree = CompactTree.encode(node);
+
+        Assert.assertEquals(node, tree.decode());
+        Assert.assertEquals(7, tree.size());
+    }
+
+    @Test
+    public void testVisitorsTraverseViews() {
+        CompactTree tree = CompactTree.encode(node);
+
+        Assert.assertEquals(new QueryPrinterVisitor().start(node), new QueryPrinterVisitor().start(tree.root()));
+        Assert.assertEquals(node.toString(), tree.toString());
+    }
+
+    @Test
+    public void testIndexedTraversal() {
+        CompactTree tree = CompactTree.encode(node);
+
+        List<Selector> selectors = new ArrayList<>();
+        int nulls = 0;
+        for (int index = 0; index < tree.size(); index++) {
+            if (tree.isConstraint(index)) {
+                selectors.add(tree.selector(index));
+                nulls += tree.argument(index) == null ? 1 : 0;
+            }
+        }
+        Assert.assertEquals(4, selectors.size());
+        Assert.assertEquals(1, nulls);
+        Assert.assertSame(selectors.get(0), selectors.get(2));
+        Assert.assertEquals(Operator.AND, tree.operator(0));
+        Assert.assertEquals(1, tree.left(0));
+    }
+
+    @Test
+    public void testEqualTreesHaveEqualEncodings() {
+        Node other = Builder.start().constraint("name", Comparison.EQUALS, "Chuck").and().sub()
+                            .constraint("age", Comparison.GREATER_THAN, 3).or()
+                            .constraint("name", Comparison.IN, "Max", "Leo").endSub().and()
+                            .constraint("owner", Comparison.EQUALS, (Comparable<?>) null).build();
+
+        Assert.assertEquals(CompactTree.encode(node), CompactTree.encode(other));
+        Assert.assertEquals(CompactTree.encode(node).hashCode(), CompactTree.encode(other).hashCode());
+        Assert.assertNotEquals(CompactTree.encode(node), CompactTree.encode(((OperationNode) node).getLeft()));
+    }
+
+    @Test
+    public void testViewsAreEqualByNode() {
+        CompactTree tree = CompactTree.encode(node);
+        OperationNode root = (OperationNode) tree.root();
+
+        Assert.assertEquals(root, tree.root());
+        Assert.assertEquals(root.getLeft(), root.getLeft());
+        Assert.assertEquals(root.getLeft().hashCode(), root.getLeft().hashCode());
+        Assert.assertNotEquals(root.getLeft(), root.getRight());
+        Assert.assertNotEquals(root, CompactTree.encode(node).root());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testViewsCanNotBeModified() {
+        ((OperationNode) CompactTree.encode(node).root()).setLeft(null);
+    }
+
+}
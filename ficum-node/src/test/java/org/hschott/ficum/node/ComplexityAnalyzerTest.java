@@ -0,0 +1,70 @@
+package org.hschott.ficum.node;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ComplexityAnalyzerTest {
+
+    @Test
+    public void testMetrics() {
+        Node node = Builder.start().constraint("name", Comparison.EQUALS, "*uck").and().sub()
+                           .constraint("city", Comparison.EQUALS, "Mad*").or()
+                           .constraint("id", Comparison.IN, 1, 2, 3).endSub().and()
+                           .constraint("location", Comparison.WITHIN, 1d, 1d, 2d, 1d, 2d, 2d, 1d, 2d).build();
+
+        QueryComplexity complexity = new ComplexityAnalyzer().analyze(node);
+
+        Assert.assertEquals(7, complexity.nodes());
+        Assert.assertEquals(4, complexity.constraints());
+        Assert.assertEquals(2, complexity.wildcards());
+        Assert.assertEquals(1, complexity.leadingWildcards());
+        Assert.assertEquals(8, complexity.maxListSize());
+        Assert.assertEquals(11, complexity.totalListSize());
+        Assert.assertEquals(4, complexity.maxGeoVertices());
+        Assert.assertTrue(complexity.depth() >= 3);
+    }
+
+    @Test
+    public void testWeightedCost() {
+        ComplexityWeights weights = new ComplexityWeights();
+        weights.setOperationWeight(0d);
+        weights.setDepthWeight(0d);
+        weights.setComparisonWeight(Comparison.EQUALS, 2d);
+        weights.setLeadingWildcardWeight(10d);
+
+        Node node = Builder.start().constraint("name", Comparison.EQUALS, "*uck").and()
+                           .constraint("id", Comparison.EQUALS, 1).build();
+
+        Assert.assertEquals(22d, new ComplexityAnalyzer(weights).analyze(node).cost(), 0.0001d);
+    }
+
+    @Test
+    public void testAlwaysWildcard() {
+        ComplexityAnalyzer analyzer = new ComplexityAnalyzer();
+        analyzer.setAlwaysWildcard(true);
+
+        Node node = Builder.start().constraint("name", Comparison.EQUALS, "Chuck").build();
+
+        Assert.assertEquals(1, analyzer.analyze(node).leadingWildcards());
+    }
+
+    @Test
+    public void testComplexityLimit() {
+        ComplexityLimit limit = new ComplexityLimit(1000d);
+        limit.setMaxListSize(2);
+
+        limit.admit(Builder.start().constraint("id", Comparison.IN, 1, 2).build());
+        try {
+            limit.admit(Builder.start().constraint("id", Comparison.IN, 1, 2, 3).build());
+            Assert.fail("query should be rejected");
+        } catch (QueryRejectedException e) {
+            Assert.assertEquals(3, e.getComplexity().maxListSize());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testComplexityLimitRejectsNonPositiveCost() {
+        new ComplexityLimit(0d);
+    }
+
+}
@@ -0,0 +1,54 @@
+package org.hschott.ficum.node;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class ConstraintTest {
+
+    @Test
+    public void testArgumentIsKept() {
+        ArrayList<Integer> ids = new ArrayList<>(Arrays.asList(1, 2, null));
+        Constraint<ArrayList<Integer>> constraint = new Constraint<>("id", Comparison.IN, ids);
+
+        ArrayList<Integer> argument = constraint.getArgument();
+
+        Assert.assertSame(ids, argument);
+    }
+
+    @Test
+    public void testBuilderListIsImmutable() {
+        ConstraintNode<?> node = (ConstraintNode<?>) Builder.start().constraint("id", Comparison.IN, 1, 2, 3).build();
+        List<?> ids = (List<?>) node.getArgument();
+
+        Assert.assertThrows(UnsupportedOperationException.class, ids::clear);
+        Assert.assertEquals(new ConstraintNode<>(new Constraint<>("id", Comparison.IN, Arrays.asList(1, 2, 3))), node);
+        Assert.assertEquals(new Constraint<>("id", Comparison.IN, Arrays.asList(1, 2, 3)).hashCode(),
+                new Constraint<>("id", Comparison.IN, ids).hashCode());
+    }
+
+    @Test
+    public void testImmutableListWithNull() {
+        List<Integer> ids = Arguments.immutableList(Arrays.asList(1, null));
+
+        Assert.assertEquals(Arrays.asList(1, null), ids);
+        Assert.assertThrows(UnsupportedOperationException.class, () -> ids.add(2));
+    }
+
+    @Test
+    public void testEquality() {
+        Constraint<List<Integer>> constraint = new Constraint<>("id", Comparison.IN, Arrays.asList(1, 2));
+
+        Assert.assertEquals(constraint, new Constraint<>(new SimpleSelector("id"), Comparison.IN, List.of(1, 2)));
+        Assert.assertEquals(constraint.hashCode(), new Constraint<>("id", Comparison.IN, List.of(1, 2)).hashCode());
+        Assert.assertNotEquals(constraint, new Constraint<>("id", Comparison.IN, List.of(1, 2, 3)));
+        Assert.assertNotEquals(constraint, new Constraint<>("id", Comparison.NIN, List.of(1, 2)));
+        Assert.assertNotEquals(constraint, new Constraint<>("key", Comparison.IN, List.of(1, 2)));
+        Assert.assertEquals(new Constraint<>("id", Comparison.EQUALS, null),
+                new Constraint<>("id", Comparison.EQUALS, null));
+    }
+
+}
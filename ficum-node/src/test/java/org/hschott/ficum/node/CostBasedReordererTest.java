@@ -0,0 +1,74 @@
+package org.hschott.ficum.node;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CostBasedReordererTest {
+
+    private final QueryPrinterVisitor printer = new QueryPrinterVisitor();
+
+    @Test
+    public void testAndPutsSelectiveEqualityFirst() {
+        Node node = Builder.start().constraint("name", Comparison.EQUALS, "*uck*").and()
+                           .constraint("age", Comparison.GREATER_THAN, 3).and()
+                           .constraint("id", Comparison.EQUALS, 42).build();
+
+        Node actual = new CostBasedReorderer().reorder(node);
+
+        Assert.assertEquals("id==42,age=gt=3,name=='*uck*'", printer.start(actual));
+    }
+
+    @Test
+    public void testOrPutsLikelyTrueFirst() {
+        Node node = Builder.start().constraint("id", Comparison.EQUALS, 42).or()
+                           .constraint("name", Comparison.NOT_EQUALS, "Max").build();
+
+        Node actual = new CostBasedReorderer().reorder(node);
+
+        Assert.assertEquals("name!='Max';id==42", printer.start(actual));
+    }
+
+    @Test
+    public void testInputTreeIsUntouched() {
+        Node node = Builder.start().constraint("name", Comparison.EQUALS, "*uck*").and()
+                           .constraint("id", Comparison.EQUALS, 42).build();
+        String expected = printer.start(node);
+
+        new CostBasedReorderer().reorder(node);
+
+        Assert.assertEquals(expected, printer.start(node));
+    }
+
+    @Test
+    public void testNestedOrIsEstimatedAsOperand() {
+        Node node = Builder.start().sub().constraint("a", Comparison.EQUALS, 1).or()
+                           .constraint("b", Comparison.EQUALS, 2).endSub().and()
+                           .constraint("c", Comparison.EQUALS, 3).build();
+
+        Node actual = new CostBasedReorderer().reorder(node);
+
+        Assert.assertEquals("c==3,(a==1;b==2)", printer.start(actual));
+    }
+
+    @Test
+    public void testObservedStatisticsTakePrecedence() {
+        StatisticsSelectivityEstimator estimator = new StatisticsSelectivityEstimator();
+        estimator.record("tenant", Comparison.EQUALS, 990, 1000);
+        estimator.setSelectivity("status", Comparison.EQUALS, 0.001d);
+
+        Node node = Builder.start().constraint("tenant", Comparison.EQUALS, "acme").and()
+                           .constraint("status", Comparison.EQUALS, "open").build();
+
+        Node actual = new CostBasedReorderer(estimator).reorder(node);
+
+        Assert.assertEquals("status=='open',tenant=='acme'", printer.start(actual));
+        Assert.assertEquals(0.99d, estimator.selectivity(new SimpleSelector("tenant"), Comparison.EQUALS, "acme"),
+                            0.0001d);
+    }
+
+    @Test
+    public void testNullRoot() {
+        Assert.assertNull(new CostBasedReorderer().reorder(null));
+    }
+
+}
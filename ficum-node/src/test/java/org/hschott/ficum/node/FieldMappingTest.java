@@ -0,0 +1,70 @@
+package org.hschott.ficum.node;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+
+public class FieldMappingTest {
+
+    @Test
+    public void testResolveMappedSelector() {
+        FieldMapping mapping = FieldMapping.of(Map.of("city", "owner.address.city"));
+
+        FieldPath path = mapping.resolve(new SimpleSelector("city"));
+
+        Assert.assertEquals("owner.address.city", path.field());
+        Assert.assertEquals(List.of("owner", "address", "city"), path.segments());
+        Assert.assertSame(path, mapping.resolve(new SimpleSelector("city")));
+    }
+
+    @Test
+    public void testResolveUnmappedSelector() {
+        FieldPath path = FieldMapping.empty().resolve(new SimpleSelector("owner.name"));
+
+        Assert.assertEquals("owner.name", path.field());
+        Assert.assertEquals(2, path.size());
+        Assert.assertEquals("owner", path.segment(0));
+    }
+
+    @Test
+    public void testWithLeavesMappingUntouched() {
+        FieldMapping mapping = FieldMapping.of(Map.of("city", "owner.city"));
+        FieldMapping extended = mapping.with("born", "birthDate");
+
+        Assert.assertEquals(1, mapping.size());
+        Assert.assertEquals(2, extended.size());
+        Assert.assertEquals("born", mapping.resolve(new SimpleSelector("born")).field());
+    }
+
+    @Test
+    public void testVisitorMappingTakesPrecedence() {
+        QueryPrinterVisitor visitor = new QueryPrinterVisitor();
+        visitor.setFieldMapping(FieldMapping.of(Map.of("city", "owner.city")));
+        visitor.addSelectorToFieldMapping("city", "address.city");
+
+        Assert.assertEquals("address.city", visitor.getMappedField(new SimpleSelector("city")));
+        Assert.assertEquals("address.city", visitor.getMappedPath(new SimpleSelector("city")).field());
+        Assert.assertEquals("name", visitor.getMappedField(new SimpleSelector("name")));
+    }
+
+    @Test
+    public void testUnmappedPaths() {
+        QueryPrinterVisitor visitor = new QueryPrinterVisitor();
+        Selector selector = new SimpleSelector("owner.name");
+
+        Assert.assertEquals(FieldPath.of("owner.name"), visitor.getMappedPath(selector));
+        Assert.assertNotSame(FieldMapping.empty().resolve(selector), FieldMapping.empty().resolve(selector));
+        Assert.assertNull(FieldMapping.empty().get(selector));
+    }
+
+    @Test
+    public void testSplit() {
+        Assert.assertEquals(List.of("a", "", "b"), FieldPath.of("a..b").segments());
+        Assert.assertEquals(List.of("", "a"), FieldPath.of(".a").segments());
+        Assert.assertEquals(List.of("a"), FieldPath.of("a..").segments());
+        Assert.assertEquals(List.of(""), FieldPath.of("").segments());
+    }
+
+}
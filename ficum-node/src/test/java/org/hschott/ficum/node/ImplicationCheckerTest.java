@@ -0,0 +1,105 @@
+package org.hschott.ficum.node;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.time.LocalDate;
+
+public class ImplicationCheckerTest {
+
+    private static Node constraint(String selector, Comparison comparison, Comparable<?> argument) {
+        return Builder.start().constraint(selector, comparison, argument).build();
+    }
+
+    @Test
+    public void testAndImpliesOperand() {
+        Node narrower = Builder.start().constraint("status", Comparison.EQUALS, "open").and()
+                               .constraint("region", Comparison.EQUALS, "EU").build();
+        Node wider = constraint("status", Comparison.EQUALS, "open");
+
+        Assert.assertEquals(Implication.IMPLIED, ImplicationChecker.implies(narrower, wider));
+        Assert.assertEquals(Implication.UNKNOWN, ImplicationChecker.implies(wider, narrower));
+    }
+
+    @Test
+    public void testEqualsImpliesIn() {
+        Node narrower = constraint("status", Comparison.EQUALS, "open");
+        Node wider = Builder.start().constraint("status", Comparison.IN, "open", "closed").build();
+
+        Assert.assertTrue(ImplicationChecker.implies(narrower, wider).isImplied());
+        Assert.assertFalse(ImplicationChecker.implies(wider, narrower).isImplied());
+    }
+
+    @Test
+    public void testInImpliesSuperset() {
+        Node narrower = Builder.start().constraint("id", Comparison.IN, 1, 2).build();
+        Node wider = Builder.start().constraint("id", Comparison.IN, 1L, 2L, 3L).build();
+
+        Assert.assertTrue(ImplicationChecker.implies(narrower, wider).isImplied());
+        Assert.assertFalse(ImplicationChecker.implies(wider, narrower).isImplied());
+    }
+
+    @Test
+    public void testRanges() {
+        Assert.assertTrue(ImplicationChecker.implies(constraint("age", Comparison.GREATER_THAN, 10),
+                                                     constraint("age", Comparison.GREATER_EQUALS, 10)).isImplied());
+        Assert.assertTrue(ImplicationChecker.implies(constraint("age", Comparison.GREATER_EQUALS, 11),
+                                                     constraint("age", Comparison.GREATER_THAN, 10.5d)).isImplied());
+        Assert.assertFalse(ImplicationChecker.implies(constraint("age", Comparison.GREATER_EQUALS, 10),
+                                                      constraint("age", Comparison.GREATER_THAN, 10)).isImplied());
+        Assert.assertTrue(ImplicationChecker.implies(constraint("age", Comparison.LESS_THAN, 5),
+                                                     constraint("age", Comparison.NOT_EQUALS, 7)).isImplied());
+        Assert.assertTrue(ImplicationChecker.implies(
+                constraint("born", Comparison.LESS_THAN, LocalDate.of(2000, 1, 1)),
+                constraint("born", Comparison.LESS_THAN, LocalDate.of(2010, 1, 1))).isImplied());
+    }
+
+    @Test
+    public void testIntervalOfConjunction() {
+        Node narrower = Builder.start().constraint("age", Comparison.GREATER_EQUALS, 18).and()
+                               .constraint("age", Comparison.LESS_EQUALS, 18).build();
+
+        Assert.assertTrue(ImplicationChecker.implies(narrower, constraint("age", Comparison.EQUALS, 18)).isImplied());
+
+        Node inRange = Builder.start().constraint("age", Comparison.IN, 17, 18, 30).and()
+                              .constraint("age", Comparison.LESS_THAN, 20).build();
+
+        Assert.assertTrue(ImplicationChecker.implies(inRange, constraint("age", Comparison.LESS_EQUALS, 18))
+                                            .isImplied());
+    }
+
+    @Test
+    public void testOrPremiseAndOrConclusion() {
+        Node narrower = Builder.start().constraint("status", Comparison.EQUALS, "open").or()
+                               .constraint("status", Comparison.EQUALS, "new").build();
+        Node wider = Builder.start().constraint("status", Comparison.IN, "new", "open").or()
+                            .constraint("owner", Comparison.EQUALS, "me").build();
+
+        Assert.assertTrue(ImplicationChecker.implies(narrower, wider).isImplied());
+        Assert.assertFalse(ImplicationChecker.implies(wider, narrower).isImplied());
+    }
+
+    @Test
+    public void testWildcardsAreOnlyImpliedByIdenticalConstraints() {
+        Node wildcard = constraint("name", Comparison.EQUALS, "Chuck*");
+
+        Assert.assertTrue(ImplicationChecker.implies(wildcard, wildcard).isImplied());
+        Assert.assertFalse(ImplicationChecker.implies(constraint("name", Comparison.EQUALS, "Chucky"), wildcard)
+                                             .isImplied());
+    }
+
+    @Test
+    public void testDifferentTypesAreUnknown() {
+        Assert.assertFalse(ImplicationChecker.implies(constraint("id", Comparison.EQUALS, "1"),
+                                                      constraint("id", Comparison.NOT_EQUALS, 2)).isImplied());
+    }
+
+    @Test
+    public void testNullTreeMeansNoFilter() {
+        Node node = constraint("id", Comparison.EQUALS, 1);
+
+        Assert.assertTrue(ImplicationChecker.implies(node, null).isImplied());
+        Assert.assertFalse(ImplicationChecker.implies(null, node).isImplied());
+    }
+
+}
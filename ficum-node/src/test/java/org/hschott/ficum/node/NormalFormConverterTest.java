@@ -0,0 +1,69 @@
+package org.hschott.ficum.node;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class NormalFormConverterTest {
+
+    private final QueryPrinterVisitor printer = new QueryPrinterVisitor();
+
+    private final Node node = Builder.start().sub().constraint("a", Comparison.EQUALS, 1).or()
+                                     .constraint("b", Comparison.EQUALS, 2).endSub().and().sub()
+                                     .constraint("c", Comparison.EQUALS, 3).or()
+                                     .constraint("d", Comparison.EQUALS, 4).endSub().build();
+
+    @Test
+    public void testToDnf() {
+        NormalFormConverter.Result result = new NormalFormConverter(100).toDnf(node);
+
+        Assert.assertTrue(result.converted());
+        Assert.assertEquals(7, result.originalSize());
+        Assert.assertEquals(15, result.size());
+        Assert.assertEquals("a==1,c==3;a==1,d==4;b==2,c==3;b==2,d==4", printer.start(result.node()));
+        Assert.assertEquals(Operator.OR, ((OperationNode) result.node()).getOperator());
+    }
+
+    @Test
+    public void testToCnfOfCnfKeepsClauses() {
+        NormalFormConverter.Result result = new NormalFormConverter(100).toCnf(node);
+
+        Assert.assertTrue(result.converted());
+        Assert.assertEquals(7, result.size());
+        Assert.assertEquals(printer.start(node), printer.start(result.node()));
+    }
+
+    @Test
+    public void testToCnf() {
+        Node dnf = Builder.start().constraint("a", Comparison.EQUALS, 1).and()
+                          .constraint("b", Comparison.EQUALS, 2).or()
+                          .constraint("c", Comparison.EQUALS, 3).build();
+
+        NormalFormConverter.Result result = new NormalFormConverter(100).toCnf(dnf);
+
+        Assert.assertEquals("(a==1;c==3),(b==2;c==3)", printer.start(result.node()));
+    }
+
+    @Test
+    public void testCapFallsBackToOriginal() {
+        NormalFormConverter.Result result = new NormalFormConverter(14).toDnf(node);
+
+        Assert.assertFalse(result.converted());
+        Assert.assertSame(node, result.node());
+        Assert.assertEquals(7, result.size());
+    }
+
+    @Test
+    public void testNegatedOperationsAreKeptAsOperands() {
+        Node nand = Builder.start().constraint("a", Comparison.EQUALS, 1).or()
+                           .constraint("b", Comparison.EQUALS, 2).build();
+        LogicalOperationNode root = new LogicalOperationNode(Operator.NAND);
+        root.setLeft(nand);
+        root.setRight(Builder.start().constraint("c", Comparison.EQUALS, 3).build());
+
+        NormalFormConverter.Result result = new NormalFormConverter(100).toDnf(root);
+
+        Assert.assertTrue(result.converted());
+        Assert.assertSame(root, result.node());
+    }
+
+}
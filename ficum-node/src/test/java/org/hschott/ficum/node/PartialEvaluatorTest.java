@@ -0,0 +1,116 @@
+package org.hschott.ficum.node;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class PartialEvaluatorTest {
+
+    private static Node operation(Operator operator, Node left, Node right) {
+        OperationNode node = new LogicalOperationNode(operator);
+        node.setLeft(left);
+        node.setRight(right);
+        return node;
+    }
+
+    @Test
+    public void testAndDropsDecidedConstraint() {
+        Node node = Builder.start().constraint("tenantId", Comparison.EQUALS, 42L).and()
+                           .constraint("status", Comparison.EQUALS, "open").build();
+
+        PartialEvaluator.Result result = new PartialEvaluator(Map.of("tenantId", 42)).evaluate(node);
+
+        Assert.assertFalse(result.isDecided());
+        Assert.assertEquals(Builder.start().constraint("status", Comparison.EQUALS, "open").build(), result.node());
+    }
+
+    @Test
+    public void testAndIsAlwaysFalse() {
+        Node node = Builder.start().constraint("tenantId", Comparison.EQUALS, 42).and()
+                           .constraint("status", Comparison.EQUALS, "open").build();
+
+        PartialEvaluator.Result result = new PartialEvaluator(Map.of("tenantId", 7)).evaluate(node);
+
+        Assert.assertTrue(result.isAlwaysFalse());
+        Assert.assertNull(result.node());
+    }
+
+    @Test
+    public void testOrIsAlwaysTrue() {
+        Node node = Builder.start().constraint("region", Comparison.IN, "EU", "US").or()
+                           .constraint("status", Comparison.EQUALS, "open").build();
+
+        Assert.assertTrue(new PartialEvaluator(Map.of("region", "EU")).evaluate(node).isAlwaysTrue());
+    }
+
+    @Test
+    public void testNestedBranchRemoved() {
+        Node node = Builder.start().constraint("status", Comparison.EQUALS, "open").and().sub()
+                           .constraint("beta", Comparison.EQUALS, Boolean.TRUE).and()
+                           .constraint("score", Comparison.GREATER_THAN, 10).or()
+                           .constraint("owner", Comparison.EQUALS, "Jeff").endSub().build();
+
+        PartialEvaluator.Result result = new PartialEvaluator(Map.of("beta", false)).evaluate(node);
+
+        Assert.assertEquals(Builder.start().constraint("status", Comparison.EQUALS, "open").and()
+                                   .constraint("owner", Comparison.EQUALS, "Jeff").build(), result.node());
+    }
+
+    @Test
+    public void testNegatedOperations() {
+        Node status = Builder.start().constraint("status", Comparison.EQUALS, "open").build();
+        Node flag = Builder.start().constraint("beta", Comparison.EQUALS, Boolean.TRUE).build();
+        PartialEvaluator evaluator = new PartialEvaluator(Map.of("beta", true));
+
+        Assert.assertEquals(operation(Operator.NOR, status, status),
+                evaluator.evaluate(operation(Operator.NAND, flag, status)).node());
+        Assert.assertTrue(evaluator.evaluate(operation(Operator.NOR, status, flag)).isAlwaysFalse());
+        Assert.assertTrue(new PartialEvaluator(Map.of("beta", false))
+                .evaluate(operation(Operator.NAND, status, flag)).isAlwaysTrue());
+    }
+
+    @Test
+    public void testUndecidableConstraintsKept() {
+        Node node = Builder.start().constraint("name", Comparison.EQUALS, "Chu*").and()
+                           .constraint("score", Comparison.GREATER_THAN, 10).build();
+
+        PartialEvaluator.Result result = new PartialEvaluator(Map.of("name", "Chuck", "score", "high")).evaluate(node);
+
+        Assert.assertSame(node, result.node());
+    }
+
+    @Test
+    public void testNullBinding() {
+        Map<String, Object> bindings = new HashMap<>();
+        bindings.put("deletedAt", null);
+        PartialEvaluator evaluator = new PartialEvaluator(bindings);
+
+        Assert.assertTrue(evaluator.evaluate(new ConstraintNode<>(new Constraint<>("deletedAt", Comparison.EQUALS,
+                null))).isAlwaysTrue());
+        Assert.assertTrue(evaluator.evaluate(new ConstraintNode<>(new Constraint<>("deletedAt",
+                Comparison.NOT_EQUALS, null))).isAlwaysFalse());
+        Assert.assertFalse(evaluator.evaluate(Builder.start().constraint("deletedAt", Comparison.LESS_THAN, 1)
+                                                     .build()).isDecided());
+    }
+
+    @Test
+    public void testNullTreeIsAlwaysTrue() {
+        Assert.assertTrue(new PartialEvaluator(Map.of()).evaluate(null).isAlwaysTrue());
+    }
+
+    @Test
+    public void testAlwaysWildcardLeavesTextUndecided() {
+        Node node = Builder.start().constraint("name", Comparison.EQUALS, "foo").and()
+                           .constraint("tenantId", Comparison.EQUALS, 42).build();
+        Map<String, Object> bindings = Map.of("name", "xfoox", "tenantId", 42);
+
+        Assert.assertTrue(new PartialEvaluator(bindings).evaluate(node).isAlwaysFalse());
+
+        PartialEvaluator.Result result = new PartialEvaluator(bindings, true).evaluate(node);
+        Assert.assertFalse(result.isDecided());
+        Assert.assertEquals(Builder.start().constraint("name", Comparison.EQUALS, "foo").build(), result.node());
+    }
+
+}
@@ -0,0 +1,112 @@
+package org.hschott.ficum.node;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class QueryDiffTest {
+
+    private static Node constraint(String selector, Comparison comparison, Comparable<?> argument) {
+        return Builder.start().constraint(selector, comparison, argument).build();
+    }
+
+    @Test
+    public void testEquivalent() {
+        Node previous = Builder.start().constraint("status", Comparison.EQUALS, "open").and()
+                               .constraint("score", Comparison.GREATER_THAN, 10).build();
+        Node current = Builder.start().constraint("score", Comparison.GREATER_THAN, 10).and()
+                              .constraint("status", Comparison.EQUALS, "open").build();
+
+        QueryDiff diff = QueryDiff.between(previous, current);
+
+        Assert.assertTrue(diff.isEmpty());
+        Assert.assertEquals(QueryDiff.Relation.EQUIVALENT, diff.getRelation());
+    }
+
+    @Test
+    public void testAddedConstraintIsNarrower() {
+        Node previous = constraint("status", Comparison.EQUALS, "open");
+        Node current = Builder.start().constraint("status", Comparison.EQUALS, "open").and()
+                              .constraint("region", Comparison.EQUALS, "EU").build();
+
+        QueryDiff diff = QueryDiff.between(previous, current);
+
+        Assert.assertEquals(1, diff.getAdded().size());
+        Assert.assertEquals(constraint("region", Comparison.EQUALS, "EU"), diff.getAdded().get(0));
+        Assert.assertTrue(diff.getRemoved().isEmpty());
+        Assert.assertTrue(diff.isNarrower());
+    }
+
+    @Test
+    public void testChangedConstraintIsWider() {
+        Node previous = Builder.start().constraint("status", Comparison.EQUALS, "open").and()
+                               .constraint("score", Comparison.GREATER_THAN, 10).build();
+        Node current = Builder.start().constraint("status", Comparison.EQUALS, "open").and()
+                              .constraint("score", Comparison.GREATER_THAN, 5).build();
+
+        QueryDiff diff = QueryDiff.between(previous, current);
+
+        Assert.assertTrue(diff.getAdded().isEmpty());
+        Assert.assertTrue(diff.getRemoved().isEmpty());
+        Assert.assertEquals(1, diff.getChanged().size());
+        Assert.assertEquals(constraint("score", Comparison.GREATER_THAN, 10), diff.getChanged().get(0).from());
+        Assert.assertEquals(constraint("score", Comparison.GREATER_THAN, 5), diff.getChanged().get(0).to());
+        Assert.assertTrue(diff.isWider());
+    }
+
+    @Test
+    public void testRemovedConstraintIsWider() {
+        Node previous = Builder.start().constraint("status", Comparison.EQUALS, "open").and()
+                               .constraint("region", Comparison.EQUALS, "EU").build();
+        Node current = constraint("status", Comparison.EQUALS, "open");
+
+        QueryDiff diff = QueryDiff.between(previous, current);
+
+        Assert.assertEquals(1, diff.getRemoved().size());
+        Assert.assertTrue(diff.isWider());
+    }
+
+    @Test
+    public void testUnknownRelation() {
+        QueryDiff diff = QueryDiff.between(constraint("status", Comparison.EQUALS, "open"),
+                constraint("region", Comparison.EQUALS, "EU"));
+
+        Assert.assertEquals(QueryDiff.Relation.UNKNOWN, diff.getRelation());
+        Assert.assertEquals(1, diff.getAdded().size());
+        Assert.assertEquals(1, diff.getRemoved().size());
+    }
+
+    @Test
+    public void testDelta() {
+        Node previous = constraint("score", Comparison.GREATER_THAN, 10);
+        Node current = constraint("score", Comparison.GREATER_THAN, 5);
+
+        OperationNode not = new LogicalOperationNode(Operator.NOR);
+        not.setLeft(previous);
+        not.setRight(previous);
+
+        Assert.assertEquals(Builder.merge(Operator.AND, current, not), QueryDiff.between(previous, current).getDelta());
+    }
+
+    @Test
+    public void testDeltaSharesPreviousTree() {
+        Node previous = Builder.start().constraint("status", Comparison.EQUALS, "open").or()
+                               .constraint("score", Comparison.GREATER_THAN, 10).build();
+        Node current = constraint("score", Comparison.GREATER_THAN, 5);
+
+        OperationNode delta = (OperationNode) QueryDiff.between(previous, current).getDelta();
+        OperationNode not = (OperationNode) delta.getRight();
+
+        Assert.assertEquals(Operator.NOR, not.getOperator());
+        Assert.assertSame(((OperationNode) previous).getLeft(), not.getLeft());
+        Assert.assertSame(((OperationNode) previous).getRight(), not.getRight());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testDeltaWithoutPreviousFilter() {
+        QueryDiff diff = QueryDiff.between(null, constraint("status", Comparison.EQUALS, "open"));
+
+        Assert.assertTrue(diff.isNarrower());
+        diff.getDelta();
+    }
+
+}
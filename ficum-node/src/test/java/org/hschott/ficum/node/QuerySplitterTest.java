@@ -0,0 +1,123 @@
+package org.hschott.ficum.node;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class QuerySplitterTest {
+
+    private final QuerySplitter splitter = new QuerySplitter(
+            selector -> Set.of("status", "region").contains(selector.value()));
+
+    private static Node constraint(String selector, Comparison comparison, Comparable<?> argument) {
+        return Builder.start().constraint(selector, comparison, argument).build();
+    }
+
+    private static Node operation(Operator operator, Node left, Node right) {
+        OperationNode node = new LogicalOperationNode(operator);
+        node.setLeft(left);
+        node.setRight(right);
+        return node;
+    }
+
+    @Test
+    public void testFullySupported() {
+        Node node = Builder.start().constraint("status", Comparison.EQUALS, "open").or()
+                           .constraint("region", Comparison.EQUALS, "EU").build();
+
+        QuerySplitter.Split split = splitter.split(node);
+
+        Assert.assertSame(node, split.pushdown());
+        Assert.assertTrue(split.isComplete());
+    }
+
+    @Test
+    public void testUnsupported() {
+        Node node = constraint("score", Comparison.GREATER_THAN, 10);
+
+        QuerySplitter.Split split = splitter.split(node);
+
+        Assert.assertNull(split.pushdown());
+        Assert.assertSame(node, split.residual());
+    }
+
+    @Test
+    public void testAndSplitsOperands() {
+        Node node = Builder.start().constraint("status", Comparison.EQUALS, "open").and()
+                           .constraint("score", Comparison.GREATER_THAN, 10).and()
+                           .constraint("region", Comparison.EQUALS, "EU").build();
+
+        QuerySplitter.Split split = splitter.split(node);
+
+        Assert.assertEquals(Builder.start().constraint("status", Comparison.EQUALS, "open").and()
+                                   .constraint("region", Comparison.EQUALS, "EU").build(), split.pushdown());
+        Assert.assertEquals(constraint("score", Comparison.GREATER_THAN, 10), split.residual());
+    }
+
+    @Test
+    public void testOrKeepsWholeResidual() {
+        Node node = Builder.start().sub().constraint("status", Comparison.EQUALS, "open").and()
+                           .constraint("score", Comparison.GREATER_THAN, 10).endSub().or()
+                           .constraint("region", Comparison.EQUALS, "EU").build();
+
+        QuerySplitter.Split split = splitter.split(node);
+
+        Assert.assertEquals(Builder.start().constraint("status", Comparison.EQUALS, "open").or()
+                                   .constraint("region", Comparison.EQUALS, "EU").build(), split.pushdown());
+        Assert.assertSame(node, split.residual());
+    }
+
+    @Test
+    public void testOrWithUnsupportedOperandIsNotPushed() {
+        Node node = Builder.start().constraint("status", Comparison.EQUALS, "open").or()
+                           .constraint("score", Comparison.GREATER_THAN, 10).build();
+
+        QuerySplitter.Split split = splitter.split(node);
+
+        Assert.assertNull(split.pushdown());
+        Assert.assertSame(node, split.residual());
+    }
+
+    @Test
+    public void testNorSplitsNegatedOperands() {
+        Node status = constraint("status", Comparison.EQUALS, "open");
+        Node score = constraint("score", Comparison.GREATER_THAN, 10);
+
+        QuerySplitter.Split split = splitter.split(operation(Operator.NOR, status, score));
+
+        Assert.assertEquals(operation(Operator.NOR, status, status), split.pushdown());
+        Assert.assertEquals(operation(Operator.NOR, score, score), split.residual());
+    }
+
+    @Test
+    public void testNandIsNotSplit() {
+        Node node = operation(Operator.NAND, constraint("status", Comparison.EQUALS, "open"),
+                constraint("score", Comparison.GREATER_THAN, 10));
+
+        QuerySplitter.Split split = splitter.split(node);
+
+        Assert.assertNull(split.pushdown());
+        Assert.assertSame(node, split.residual());
+    }
+
+    @Test
+    public void testSupportIsTestedOncePerConstraint() {
+        AtomicInteger tests = new AtomicInteger();
+        QuerySplitter counting = new QuerySplitter(selector -> {
+            tests.incrementAndGet();
+            return !selector.value().equals("score");
+        });
+        Node node = constraint("score", Comparison.GREATER_THAN, 10);
+        for (int i = 0; i < 100; i++) {
+            node = operation(Operator.AND, constraint("status", Comparison.EQUALS, "open"), node);
+        }
+
+        QuerySplitter.Split split = counting.split(node);
+
+        Assert.assertEquals(101, tests.get());
+        Assert.assertEquals(constraint("score", Comparison.GREATER_THAN, 10), split.residual());
+    }
+
+}
@@ -1,5 +1,6 @@
 package org.hschott.ficum.parser;
 
+import org.hschott.ficum.node.Arguments;
 import org.hschott.ficum.node.Comparison;
 import org.hschott.ficum.node.Constraint;
 import org.hschott.ficum.node.Selector;
@@ -28,6 +29,13 @@ public class ConstraintParser extends ArgumentParser {
         return Sequence(Constraint(), EOI);
     }
 
+    /**
+     * A ',' separating the selectors of a projection or a sort, optionally followed by a space.
+     */
+    protected Rule SelectorSeparator() {
+        return Sequence(Ch(','), Optional(Ch(' ')));
+    }
+
     @SuppressSubnodes
     protected Rule Selector() {
         return Sequence(FirstOf(allowedSelectors), new Action<>() {
@@ -70,7 +78,7 @@ public class ConstraintParser extends ArgumentParser {
                             return push(new Constraint<Comparable<?>>(selector, comparison, arguments.getFirst()));
                         } else {
                             Collections.reverse(arguments);
-                            return push(new Constraint<>(selector, comparison, arguments));
+                            return push(new Constraint<>(selector, comparison, Arguments.immutableList(arguments)));
                         }
                     }
                 });
@@ -2,6 +2,8 @@ package org.hschott.ficum.parser;
 
 import org.hschott.ficum.node.Builder;
 import org.hschott.ficum.node.Node;
+import org.hschott.ficum.node.Projection;
+import org.hschott.ficum.node.Sort;
 import org.parboiled.Parboiled;
 import org.parboiled.errors.ErrorUtils;
 import org.parboiled.parserunners.ReportingParseRunner;
@@ -15,19 +17,42 @@ public class ParseHelper {
     protected ParseHelper() {
     }
 
-    public static Node parse(String query, String... allowedSelectorNames) {
-        if (query == null)
-            return null;
-        ExpressionParser parser = Parboiled.createParser(ExpressionParser.class,
+    /**
+     * Run a parser on the input.
+     *
+     * @throws IllegalArgumentException if the input does not parse
+     */
+    private static <V> V run(Class<? extends ConstraintParser> parserClass, String input,
+                             String... allowedSelectorNames) {
+        ConstraintParser parser = Parboiled.createParser(parserClass,
                                                          (Object) Arrays.copyOf(allowedSelectorNames,
                                                                                 allowedSelectorNames.length));
-        ReportingParseRunner<Deque<Object>> parseRunner = new ReportingParseRunner<>(parser.root());
-        ParsingResult<Deque<Object>> result = parseRunner.run(query);
+        ReportingParseRunner<V> parseRunner = new ReportingParseRunner<>(parser.root());
+        ParsingResult<V> result = parseRunner.run(input);
 
         if (result.hasErrors()) {
             throw new IllegalArgumentException(ErrorUtils.printParseErrors(result.parseErrors));
         }
-        return Builder.build(result.resultValue);
+        return result.resultValue;
+    }
+
+    public static Node parse(String query, String... allowedSelectorNames) {
+        if (query == null)
+            return null;
+        Deque<Object> stack = run(ExpressionParser.class, query, allowedSelectorNames);
+        return Builder.build(stack);
+    }
+
+    public static Projection parseProjection(String projection, String... allowedSelectorNames) {
+        if (projection == null)
+            return null;
+        return run(ProjectionParser.class, projection, allowedSelectorNames);
+    }
+
+    public static Sort parseSort(String sort, String... allowedSelectorNames) {
+        if (sort == null)
+            return null;
+        return run(SortParser.class, sort, allowedSelectorNames);
     }
 
 }
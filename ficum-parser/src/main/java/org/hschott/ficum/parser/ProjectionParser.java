@@ -0,0 +1,35 @@
+package org.hschott.ficum.parser;
+
+import org.hschott.ficum.node.Projection;
+import org.hschott.ficum.node.Selector;
+import org.parboiled.Action;
+import org.parboiled.Context;
+import org.parboiled.Rule;
+import org.parboiled.annotations.BuildParseTree;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+@BuildParseTree
+public class ProjectionParser extends ConstraintParser {
+
+    public ProjectionParser(String... allowedSelectorNames) {
+        super(allowedSelectorNames);
+    }
+
+    @Override
+    public Rule root() {
+        return Sequence(Selector(), ZeroOrMore(SelectorSeparator(), Selector()), EOI, new Action<>() {
+            public boolean run(Context<Object> context) {
+                List<Selector> selectors = new ArrayList<>();
+                while (!context.getValueStack().isEmpty()) {
+                    selectors.add((Selector) pop());
+                }
+                Collections.reverse(selectors);
+                return push(new Projection(selectors));
+            }
+        });
+    }
+
+}
@@ -0,0 +1,53 @@
+package org.hschott.ficum.parser;
+
+import org.hschott.ficum.node.Selector;
+import org.hschott.ficum.node.Sort;
+import org.parboiled.Action;
+import org.parboiled.Context;
+import org.parboiled.Rule;
+import org.parboiled.annotations.BuildParseTree;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+@BuildParseTree
+public class SortParser extends ConstraintParser {
+
+    public SortParser(String... allowedSelectorNames) {
+        super(allowedSelectorNames);
+    }
+
+    /**
+     * A '+' is decoded to a space in URL query strings, so a leading space is taken as ascending as well.
+     */
+    protected Rule Direction() {
+        return FirstOf(Sequence(Ch('-'), push(Sort.Direction.DESC)),
+                Sequence(Optional(AnyOf("+ ")), push(Sort.Direction.ASC)));
+    }
+
+    protected Rule Order() {
+        return Sequence(Direction(), Selector(), new Action<>() {
+            public boolean run(Context<Object> context) {
+                Selector selector = (Selector) pop();
+                Sort.Direction direction = (Sort.Direction) pop();
+                return push(new Sort.Order(selector, direction));
+            }
+        });
+    }
+
+    @Override
+    public Rule root() {
+        return Sequence(Order(), ZeroOrMore(SelectorSeparator(), Order()), EOI, new Action<>() {
+            public boolean run(Context<Object> context) {
+                List<Sort.Order> orders = new ArrayList<>();
+                while (!context.getValueStack().isEmpty()) {
+                    orders.add((Sort.Order) pop());
+                }
+                Collections.reverse(orders);
+                return push(new Sort(orders));
+            }
+        });
+    }
+
+}
@@ -0,0 +1,48 @@
+package org.hschott.ficum.parser;
+
+import org.hschott.ficum.node.Projection;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ProjectionParserTest {
+
+    private static final String[] allowedPaths = { "first", "second", "first.second", "first.second.third" };
+
+    @Test
+    public void testSingleSelector() {
+        Assert.assertEquals(Projection.of("first"), ParseHelper.parseProjection("first", allowedPaths));
+    }
+
+    @Test
+    public void testMultipleSelectors() {
+        Assert.assertEquals(Projection.of("first.second.third", "second", "first"),
+                ParseHelper.parseProjection("first.second.third,second, first", allowedPaths));
+    }
+
+    @Test
+    public void testDuplicateSelectors() {
+        Assert.assertEquals(Projection.of("second", "first"),
+                ParseHelper.parseProjection("second,first,second", allowedPaths));
+    }
+
+    @Test
+    public void testNull() {
+        Assert.assertNull(ParseHelper.parseProjection(null, allowedPaths));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSelectorNotAllowed() {
+        ParseHelper.parseProjection("first,third", allowedPaths);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testEmpty() {
+        ParseHelper.parseProjection("", allowedPaths);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTrailingComma() {
+        ParseHelper.parseProjection("first,", allowedPaths);
+    }
+
+}
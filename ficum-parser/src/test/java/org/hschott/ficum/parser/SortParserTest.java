@@ -0,0 +1,61 @@
+package org.hschott.ficum.parser;
+
+import org.hschott.ficum.node.Sort;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SortParserTest {
+
+    private static final String[] allowedPaths = { "first", "second", "first.second", "first.second.third" };
+
+    @Test
+    public void testDefaultAscending() {
+        Assert.assertEquals(Sort.by(Sort.Order.asc("first")), ParseHelper.parseSort("first", allowedPaths));
+    }
+
+    @Test
+    public void testDirections() {
+        Assert.assertEquals(Sort.by(Sort.Order.desc("first.second"), Sort.Order.asc("second"),
+                Sort.Order.asc("first")), ParseHelper.parseSort("-first.second,+second,first", allowedPaths));
+    }
+
+    @Test
+    public void testUrlDecodedPlus() {
+        Assert.assertEquals(Sort.by(Sort.Order.desc("first"), Sort.Order.asc("second")),
+                ParseHelper.parseSort("-first, second", allowedPaths));
+    }
+
+    @Test
+    public void testSpaceAfterSeparator() {
+        Assert.assertEquals(Sort.by(Sort.Order.asc("first"), Sort.Order.desc("second")),
+                ParseHelper.parseSort("first, -second", allowedPaths));
+        Assert.assertEquals(Sort.by(Sort.Order.asc("first"), Sort.Order.asc("second")),
+                ParseHelper.parseSort("first,  second", allowedPaths));
+    }
+
+    @Test
+    public void testDuplicateSelector() {
+        Assert.assertEquals(Sort.by(Sort.Order.desc("first")), ParseHelper.parseSort("-first,+first", allowedPaths));
+    }
+
+    @Test
+    public void testToString() {
+        Assert.assertEquals("-first,+second", ParseHelper.parseSort("-first,second", allowedPaths).toString());
+    }
+
+    @Test
+    public void testNull() {
+        Assert.assertNull(ParseHelper.parseSort(null, allowedPaths));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSelectorNotAllowed() {
+        ParseHelper.parseSort("-third", allowedPaths);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDoubleSign() {
+        ParseHelper.parseSort("+-first", allowedPaths);
+    }
+
+}
@@ -1,6 +1,8 @@
 package org.hschott.ficum.spring;
 
 import org.hschott.ficum.annotation.FicumExpression;
+import org.hschott.ficum.node.AdmissionPolicy;
+import org.hschott.ficum.node.Constraint;
 import org.hschott.ficum.node.Node;
 import org.hschott.ficum.parser.ParseHelper;
 import org.springframework.core.convert.TypeDescriptor;
@@ -10,10 +12,22 @@ import java.util.Collections;
 import java.util.Set;
 
 /**
- * Converts from a String to an Ficum Node
+ * Converts from a String to an Ficum Node. Every parsed Node is passed to an {@link AdmissionPolicy}, which may
+ * reject expensive queries before they reach a backend.
  */
 public class StringToFicumNodeConverter implements ConditionalGenericConverter {
 
+    private final AdmissionPolicy admissionPolicy;
+
+    public StringToFicumNodeConverter() {
+        this(AdmissionPolicy.ADMIT_ALL);
+    }
+
+    public StringToFicumNodeConverter(AdmissionPolicy admissionPolicy) {
+        Constraint.checkArgNotNull(admissionPolicy, "admissionPolicy");
+        this.admissionPolicy = admissionPolicy;
+    }
+
     @Override
     public boolean matches(TypeDescriptor sourceType, TypeDescriptor targetType) {
         return String.class.isAssignableFrom(sourceType.getType())
@@ -29,6 +43,10 @@ public class StringToFicumNodeConverter implements ConditionalGenericConverter {
     @Override
     public Object convert(Object source, TypeDescriptor sourceType, TypeDescriptor targetType) {
         FicumExpression ficumExpressionAnnotation = targetType.getAnnotation(FicumExpression.class);
-        return ParseHelper.parse((String) source, ficumExpressionAnnotation.value());
+        Node node = ParseHelper.parse((String) source, ficumExpressionAnnotation.value());
+        if (node != null) {
+            admissionPolicy.admit(node);
+        }
+        return node;
     }
 }
@@ -0,0 +1,34 @@
+package org.hschott.ficum.spring;
+
+import org.hschott.ficum.annotation.FicumExpression;
+import org.hschott.ficum.node.Projection;
+import org.hschott.ficum.parser.ParseHelper;
+import org.springframework.core.convert.TypeDescriptor;
+import org.springframework.core.convert.converter.ConditionalGenericConverter;
+
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * Converts from a String to a Ficum Projection, e.g. <code>fields=name,owner.city</code>
+ */
+public class StringToFicumProjectionConverter implements ConditionalGenericConverter {
+
+    @Override
+    public boolean matches(TypeDescriptor sourceType, TypeDescriptor targetType) {
+        return String.class.isAssignableFrom(sourceType.getType())
+                && Projection.class.isAssignableFrom(targetType.getType())
+                && targetType.hasAnnotation(FicumExpression.class);
+    }
+
+    @Override
+    public Set<ConvertiblePair> getConvertibleTypes() {
+        return Collections.singleton(new ConvertiblePair(String.class, Projection.class));
+    }
+
+    @Override
+    public Object convert(Object source, TypeDescriptor sourceType, TypeDescriptor targetType) {
+        FicumExpression ficumExpressionAnnotation = targetType.getAnnotation(FicumExpression.class);
+        return ParseHelper.parseProjection((String) source, ficumExpressionAnnotation.value());
+    }
+}
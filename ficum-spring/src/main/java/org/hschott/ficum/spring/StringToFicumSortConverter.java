@@ -0,0 +1,34 @@
+package org.hschott.ficum.spring;
+
+import org.hschott.ficum.annotation.FicumExpression;
+import org.hschott.ficum.node.Sort;
+import org.hschott.ficum.parser.ParseHelper;
+import org.springframework.core.convert.TypeDescriptor;
+import org.springframework.core.convert.converter.ConditionalGenericConverter;
+
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * Converts from a String to a Ficum Sort, e.g. <code>sort=-date,+name</code>
+ */
+public class StringToFicumSortConverter implements ConditionalGenericConverter {
+
+    @Override
+    public boolean matches(TypeDescriptor sourceType, TypeDescriptor targetType) {
+        return String.class.isAssignableFrom(sourceType.getType())
+                && Sort.class.isAssignableFrom(targetType.getType())
+                && targetType.hasAnnotation(FicumExpression.class);
+    }
+
+    @Override
+    public Set<ConvertiblePair> getConvertibleTypes() {
+        return Collections.singleton(new ConvertiblePair(String.class, Sort.class));
+    }
+
+    @Override
+    public Object convert(Object source, TypeDescriptor sourceType, TypeDescriptor targetType) {
+        FicumExpression ficumExpressionAnnotation = targetType.getAnnotation(FicumExpression.class);
+        return ParseHelper.parseSort((String) source, ficumExpressionAnnotation.value());
+    }
+}
@@ -3,7 +3,9 @@ package org.hschott.ficum.spring;
 import org.hschott.ficum.annotation.FicumExpression;
 import org.hschott.ficum.node.Builder;
 import org.hschott.ficum.node.Comparison;
+import org.hschott.ficum.node.ComplexityLimit;
 import org.hschott.ficum.node.Node;
+import org.hschott.ficum.node.QueryRejectedException;
 import org.junit.Before;
 import org.junit.Test;
 import org.springframework.core.convert.TypeDescriptor;
@@ -92,4 +94,24 @@ public class StringToFicumNodeConverterTest {
                             .build(), result);
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testAdmissionPolicyRejectsQuery() throws NoSuchFieldException {
+        Field field = getClass().getDeclaredField("node");
+        TypeDescriptor sourceType = TypeDescriptor.valueOf(String.class);
+        TypeDescriptor targetType = new TypeDescriptor(field);
+
+        ComplexityLimit limit = new ComplexityLimit(100d);
+        limit.setMaxLeadingWildcards(0);
+        StringToFicumNodeConverter limitedConverter = new StringToFicumNodeConverter(limit);
+
+        assertNotNull(limitedConverter.convert("foo=='bar*'", sourceType, targetType));
+        assertThrows(QueryRejectedException.class,
+                     () -> limitedConverter.convert("foo=='*bar'", sourceType, targetType));
+    }
+
+    @Test
+    public void testNullAdmissionPolicy() {
+        assertThrows(IllegalArgumentException.class, () -> new StringToFicumNodeConverter(null));
+    }
+
+}
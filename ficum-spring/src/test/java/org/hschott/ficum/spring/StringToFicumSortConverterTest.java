@@ -0,0 +1,58 @@
+package org.hschott.ficum.spring;
+
+import org.hschott.ficum.annotation.FicumExpression;
+import org.hschott.ficum.node.Sort;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.core.convert.ConversionFailedException;
+import org.springframework.core.convert.TypeDescriptor;
+import org.springframework.core.convert.support.GenericConversionService;
+
+import java.lang.reflect.Field;
+
+import static org.junit.Assert.*;
+
+public class StringToFicumSortConverterTest {
+    private StringToFicumSortConverter converter;
+    private GenericConversionService conversionService;
+
+    @FicumExpression({"foo", "bar.baz"})
+    private Sort sort;
+
+    @Before
+    public void setUp() {
+        converter = new StringToFicumSortConverter();
+        conversionService = new GenericConversionService();
+        conversionService.addConverter(converter);
+    }
+
+    @Test
+    public void testMatches() throws NoSuchFieldException {
+        Field field = getClass().getDeclaredField("sort");
+        TypeDescriptor sourceType = TypeDescriptor.valueOf(String.class);
+        TypeDescriptor targetType = new TypeDescriptor(field);
+
+        assertTrue(converter.matches(sourceType, targetType));
+        assertFalse(converter.matches(sourceType, TypeDescriptor.valueOf(Sort.class)));
+    }
+
+    @Test
+    public void testConvertValidInput() throws NoSuchFieldException {
+        Field field = getClass().getDeclaredField("sort");
+        TypeDescriptor sourceType = TypeDescriptor.valueOf(String.class);
+        TypeDescriptor targetType = new TypeDescriptor(field);
+
+        Object result = conversionService.convert("-bar.baz,+foo", sourceType, targetType);
+
+        assertEquals(Sort.by(Sort.Order.desc("bar.baz"), Sort.Order.asc("foo")), result);
+    }
+
+    @Test(expected = ConversionFailedException.class)
+    public void testConvertInvalidInput() throws NoSuchFieldException {
+        Field field = getClass().getDeclaredField("sort");
+        TypeDescriptor sourceType = TypeDescriptor.valueOf(String.class);
+        TypeDescriptor targetType = new TypeDescriptor(field);
+
+        conversionService.convert("foo,unknown", sourceType, targetType);
+    }
+}
@@ -0,0 +1,457 @@
+package org.hschott.ficum.visitor;
+
+import org.hschott.ficum.node.*;
+import org.hschott.ficum.visitor.ColumnBatch.Column;
+import org.hschott.ficum.visitor.ColumnBatch.DoubleColumn;
+import org.hschott.ficum.visitor.ColumnBatch.LongColumn;
+import org.hschott.ficum.visitor.ColumnBatch.StringColumn;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Compiles a {@link Node} tree into a function selecting the matching rows of a {@link ColumnBatch} as a bitmap.
+ * Constraints are evaluated column at a time in tight loops over primitive arrays, one bitmap word per 64 rows, which
+ * the JIT compiles to branch free code. Text constraints are evaluated once per dictionary entry. Operations combine
+ * the bitmaps of their operands word by word, the right operand of AND and OR is skipped if the left one already
+ * decides the result.
+ * <p>
+ * The semantics follow the {@link InMemoryPredicateVisitor}: null only matches equality with null, != and =nin= are
+ * the negation of == and =in=, =in= compares text exactly even if it contains wildcards. Long columns are compared with integral, boolean and date arguments, dates as
+ * milliseconds since the epoch at UTC, and with floating point arguments as doubles. Geospatial comparisons are not
+ * supported.
+ */
+public class BatchPredicateVisitor extends AbstractFoldVisitor<Function<ColumnBatch, long[]>> {
+
+    private static long[] not(long[] bits, int size) {
+        for (int i = 0; i < bits.length; i++) {
+            bits[i] = ~bits[i];
+        }
+        clearTail(bits, size);
+        return bits;
+    }
+
+    private static void clearTail(long[] bits, int size) {
+        if ((size & 63) != 0) {
+            bits[bits.length - 1] &= (1L << size) - 1;
+        }
+    }
+
+    private static boolean isEmpty(long[] bits) {
+        for (long word : bits) {
+            if (word != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isFull(long[] bits, int size) {
+        for (int i = 0; i < size >>> 6; i++) {
+            if (bits[i] != -1L) {
+                return false;
+            }
+        }
+        return (size & 63) == 0 || bits[bits.length - 1] == (1L << size) - 1;
+    }
+
+    private static long[] andNot(long[] bits, long[] nulls) {
+        if (nulls != null) {
+            for (int i = 0; i < bits.length; i++) {
+                bits[i] &= ~nulls[i];
+            }
+        }
+        return bits;
+    }
+
+    private static long[] nulls(long[] nulls, int size) {
+        long[] bits = new long[ColumnBatch.words(size)];
+        if (nulls != null) {
+            System.arraycopy(nulls, 0, bits, 0, bits.length);
+            clearTail(bits, size);
+        }
+        return bits;
+    }
+
+    private static long toLong(Object argument) {
+        return switch (argument) {
+            case Long value -> value;
+            case Integer value -> value;
+            case Short value -> value;
+            case Byte value -> value;
+            case Boolean value -> value ? 1L : 0L;
+            case LocalDate value -> value.atStartOfDay().toInstant(ZoneOffset.UTC).toEpochMilli();
+            case OffsetDateTime value -> value.toInstant().toEpochMilli();
+            case Date value -> value.getTime();
+            case Calendar value -> value.getTimeInMillis();
+            default -> throw new IllegalArgumentException(
+                    "Unable to handle argument of type " + argument.getClass().getName());
+        };
+    }
+
+    private static double toDouble(Object argument) {
+        if (argument instanceof Number number) {
+            return number.doubleValue();
+        }
+        throw new IllegalArgumentException("Unable to handle argument of type " + argument.getClass().getName());
+    }
+
+    private static boolean isFloatingPoint(Object argument) {
+        return argument instanceof Double || argument instanceof Float || argument instanceof BigDecimal;
+    }
+
+    private static long[] select(long[] values, int size, Comparison comparison, long x) {
+        long[] bits = new long[ColumnBatch.words(size)];
+        for (int word = 0; word < bits.length; word++) {
+            int base = word << 6;
+            int end = Math.min(64, size - base);
+            long w = 0;
+            switch (comparison) {
+                case EQUALS -> {
+                    for (int j = 0; j < end; j++) {
+                        w |= (values[base + j] == x ? 1L : 0L) << j;
+                    }
+                }
+                case GREATER_THAN -> {
+                    for (int j = 0; j < end; j++) {
+                        w |= (values[base + j] > x ? 1L : 0L) << j;
+                    }
+                }
+                case GREATER_EQUALS -> {
+                    for (int j = 0; j < end; j++) {
+                        w |= (values[base + j] >= x ? 1L : 0L) << j;
+                    }
+                }
+                case LESS_THAN -> {
+                    for (int j = 0; j < end; j++) {
+                        w |= (values[base + j] < x ? 1L : 0L) << j;
+                    }
+                }
+                case LESS_EQUALS -> {
+                    for (int j = 0; j < end; j++) {
+                        w |= (values[base + j] <= x ? 1L : 0L) << j;
+                    }
+                }
+                default -> throw new IllegalStateException("Unexpected comparison " + comparison);
+            }
+            bits[word] = w;
+        }
+        return bits;
+    }
+
+    private static long[] select(long[] values, int size, Comparison comparison, double x) {
+        long[] bits = new long[ColumnBatch.words(size)];
+        for (int word = 0; word < bits.length; word++) {
+            int base = word << 6;
+            int end = Math.min(64, size - base);
+            long w = 0;
+            switch (comparison) {
+                case EQUALS -> {
+                    for (int j = 0; j < end; j++) {
+                        w |= ((double) values[base + j] == x ? 1L : 0L) << j;
+                    }
+                }
+                case GREATER_THAN -> {
+                    for (int j = 0; j < end; j++) {
+                        w |= ((double) values[base + j] > x ? 1L : 0L) << j;
+                    }
+                }
+                case GREATER_EQUALS -> {
+                    for (int j = 0; j < end; j++) {
+                        w |= ((double) values[base + j] >= x ? 1L : 0L) << j;
+                    }
+                }
+                case LESS_THAN -> {
+                    for (int j = 0; j < end; j++) {
+                        w |= ((double) values[base + j] < x ? 1L : 0L) << j;
+                    }
+                }
+                case LESS_EQUALS -> {
+                    for (int j = 0; j < end; j++) {
+                        w |= ((double) values[base + j] <= x ? 1L : 0L) << j;
+                    }
+                }
+                default -> throw new IllegalStateException("Unexpected comparison " + comparison);
+            }
+            bits[word] = w;
+        }
+        return bits;
+    }
+
+    private static long[] select(double[] values, int size, Comparison comparison, double x) {
+        long[] bits = new long[ColumnBatch.words(size)];
+        for (int word = 0; word < bits.length; word++) {
+            int base = word << 6;
+            int end = Math.min(64, size - base);
+            long w = 0;
+            switch (comparison) {
+                case EQUALS -> {
+                    for (int j = 0; j < end; j++) {
+                        w |= (values[base + j] == x ? 1L : 0L) << j;
+                    }
+                }
+                case GREATER_THAN -> {
+                    for (int j = 0; j < end; j++) {
+                        w |= (values[base + j] > x ? 1L : 0L) << j;
+                    }
+                }
+                case GREATER_EQUALS -> {
+                    for (int j = 0; j < end; j++) {
+                        w |= (values[base + j] >= x ? 1L : 0L) << j;
+                    }
+                }
+                case LESS_THAN -> {
+                    for (int j = 0; j < end; j++) {
+                        w |= (values[base + j] < x ? 1L : 0L) << j;
+                    }
+                }
+                case LESS_EQUALS -> {
+                    for (int j = 0; j < end; j++) {
+                        w |= (values[base + j] <= x ? 1L : 0L) << j;
+                    }
+                }
+                default -> throw new IllegalStateException("Unexpected comparison " + comparison);
+            }
+            bits[word] = w;
+        }
+        return bits;
+    }
+
+    private static long[] select(int[] codes, int size, long[] matches) {
+        long[] bits = new long[ColumnBatch.words(size)];
+        for (int word = 0; word < bits.length; word++) {
+            int base = word << 6;
+            int end = Math.min(64, size - base);
+            long w = 0;
+            for (int j = 0; j < end; j++) {
+                // code -1 is null and maps to the first entry
+                w |= matches[codes[base + j] + 1] << j;
+            }
+            bits[word] = w;
+        }
+        return bits;
+    }
+
+    private static long[] select(long[] values, int size, long[] set) {
+        long[] bits = new long[ColumnBatch.words(size)];
+        for (int word = 0; word < bits.length; word++) {
+            int base = word << 6;
+            int end = Math.min(64, size - base);
+            long w = 0;
+            for (int j = 0; j < end; j++) {
+                w |= (Arrays.binarySearch(set, values[base + j]) >= 0 ? 1L : 0L) << j;
+            }
+            bits[word] = w;
+        }
+        return bits;
+    }
+
+    private static long[] select(double[] values, int size, double[] set) {
+        long[] bits = new long[ColumnBatch.words(size)];
+        for (int word = 0; word < bits.length; word++) {
+            int base = word << 6;
+            int end = Math.min(64, size - base);
+            long w = 0;
+            for (int j = 0; j < end; j++) {
+                // + 0.0 turns -0.0 into 0.0, which == takes as equal
+                w |= (Arrays.binarySearch(set, values[base + j] + 0.0) >= 0 ? 1L : 0L) << j;
+            }
+            bits[word] = w;
+        }
+        return bits;
+    }
+
+    /**
+     * Select the rows whose value is exactly equal to one of the elements, text with wildcards included, in one pass
+     * over the column. Numbers are looked up in a sorted array of the distinct elements, text in a dictionary.
+     */
+    private static long[] selectIn(Column column, int size, List<?> elements) {
+        boolean withNull = false;
+        for (Object element : elements) {
+            withNull |= element == null;
+        }
+        return switch (column) {
+            case LongColumn longColumn -> {
+                long[] set = elements.stream().filter(element -> element != null
+                        && (!isFloatingPoint(element) || isIntegral(toDouble(element))))
+                        .mapToLong(element -> isFloatingPoint(element) ? (long) toDouble(element) : toLong(element))
+                        .sorted().distinct().toArray();
+                yield orNulls(andNot(select(longColumn.values(), size, set), longColumn.nulls()),
+                        longColumn.nulls(), size, withNull);
+            }
+            case DoubleColumn doubleColumn -> {
+                double[] set = elements.stream().filter(element -> element != null)
+                        .mapToDouble(element -> toDouble(element) + 0.0).filter(value -> !Double.isNaN(value))
+                        .sorted().distinct().toArray();
+                yield orNulls(andNot(select(doubleColumn.values(), size, set), doubleColumn.nulls()),
+                        doubleColumn.nulls(), size, withNull);
+            }
+            case StringColumn stringColumn -> {
+                Set<Object> set = new HashSet<>(elements);
+                String[] dictionary = stringColumn.dictionary();
+                long[] matches = new long[dictionary.length + 1];
+                matches[0] = withNull ? 1L : 0L;
+                for (int i = 0; i < dictionary.length; i++) {
+                    matches[i + 1] = dictionary[i] != null && set.contains(dictionary[i]) ? 1L : 0L;
+                }
+                yield select(stringColumn.codes(), size, matches);
+            }
+        };
+    }
+
+    private static boolean isIntegral(double value) {
+        return value == Math.rint(value) && value >= -0x1p63 && value < 0x1p63;
+    }
+
+    private static long[] orNulls(long[] bits, long[] nulls, int size, boolean withNull) {
+        if (withNull && nulls != null) {
+            long[] nullBits = nulls(nulls, size);
+            for (int i = 0; i < bits.length; i++) {
+                bits[i] |= nullBits[i];
+            }
+        }
+        return bits;
+    }
+
+    private long[] select(Column column, int size, Comparison comparison, Object argument) {
+        if (Comparison.IN.equals(comparison)) {
+            return selectIn(column, size, Arguments.asList(argument));
+        }
+
+        return switch (column) {
+            case LongColumn longColumn -> {
+                if (argument == null) {
+                    yield Comparison.EQUALS.equals(comparison) ? nulls(longColumn.nulls(), size)
+                            : new long[ColumnBatch.words(size)];
+                }
+                long[] bits = isFloatingPoint(argument)
+                        ? select(longColumn.values(), size, comparison, toDouble(argument))
+                        : select(longColumn.values(), size, comparison, toLong(argument));
+                yield andNot(bits, longColumn.nulls());
+            }
+            case DoubleColumn doubleColumn -> {
+                if (argument == null) {
+                    yield Comparison.EQUALS.equals(comparison) ? nulls(doubleColumn.nulls(), size)
+                            : new long[ColumnBatch.words(size)];
+                }
+                yield andNot(select(doubleColumn.values(), size, comparison, toDouble(argument)),
+                        doubleColumn.nulls());
+            }
+            case StringColumn stringColumn -> select(stringColumn.codes(), size,
+                    matches(stringColumn.dictionary(), comparison, argument));
+        };
+    }
+
+    /**
+     * Evaluate a constraint on each entry of a dictionary, the first entry stands for null.
+     */
+    private long[] matches(String[] dictionary, Comparison comparison, Object argument) {
+        long[] matches = new long[dictionary.length + 1];
+        if (argument == null) {
+            matches[0] = Comparison.EQUALS.equals(comparison) ? 1L : 0L;
+            return matches;
+        }
+        GlobMatcher matcher = null;
+        if (Comparison.EQUALS.equals(comparison) && argument instanceof String text
+                && (containsWildcard(text) || isAlwaysWildcard())) {
+            matcher = GlobMatcher.compile(text, isAlwaysWildcard(), false);
+        }
+        for (int i = 0; i < dictionary.length; i++) {
+            String value = dictionary[i];
+            boolean match;
+            if (value == null) {
+                match = false;
+            } else if (matcher != null) {
+                match = matcher.matches(value);
+            } else if (Comparison.EQUALS.equals(comparison)) {
+                match = Arguments.isEqual(value, argument);
+            } else {
+                match = Arguments.isComparable(value, argument)
+                        && isSelected(comparison, Arguments.compare(value, argument));
+            }
+            matches[i + 1] = match ? 1L : 0L;
+        }
+        return matches;
+    }
+
+    private static boolean isSelected(Comparison comparison, int result) {
+        return switch (comparison) {
+            case GREATER_THAN -> result > 0;
+            case GREATER_EQUALS -> result >= 0;
+            case LESS_THAN -> result < 0;
+            case LESS_EQUALS -> result <= 0;
+            default -> throw new IllegalStateException("Unexpected comparison " + comparison);
+        };
+    }
+
+    protected Function<ColumnBatch, long[]> foldConstraint(ConstraintNode<?> node) {
+        String field = getMappedField(node.getSelector());
+        Comparison comparison = node.getComparison();
+        Object argument = node.getArgument();
+
+        // != and =nin= select the rows not selected by == and =in=
+        boolean negated = Comparison.NOT_EQUALS.equals(comparison) || Comparison.NIN.equals(comparison);
+        Comparison positive = switch (comparison) {
+            case NOT_EQUALS -> Comparison.EQUALS;
+            case NIN -> Comparison.IN;
+            case EQUALS, IN, GREATER_THAN, GREATER_EQUALS, LESS_THAN, LESS_EQUALS -> comparison;
+            default -> throw new IllegalArgumentException("Constraint: " + node + " does not resolve to a predicate");
+        };
+        if (argument instanceof List<?> && !Comparison.IN.equals(positive)) {
+            throw new IllegalArgumentException("Constraint: " + node + " does not resolve to a predicate");
+        }
+
+        return batch -> {
+            long[] bits = select(batch.getColumn(field), batch.getSize(), positive, argument);
+            return negated ? not(bits, batch.getSize()) : bits;
+        };
+    }
+
+    protected Function<ColumnBatch, long[]> foldOperation(OperationNode node, Function<ColumnBatch, long[]> left,
+                                                          Function<ColumnBatch, long[]> right) {
+        return switch (node.getOperator()) {
+            case AND -> batch -> and(batch, left, right);
+            case OR -> batch -> or(batch, left, right);
+            case NAND -> batch -> not(and(batch, left, right), batch.getSize());
+            case NOR -> batch -> not(or(batch, left, right), batch.getSize());
+            default ->
+                    throw new IllegalArgumentException("OperationNode: " + node + " does not resolve to a operation");
+        };
+    }
+
+    private static long[] and(ColumnBatch batch, Function<ColumnBatch, long[]> left,
+                              Function<ColumnBatch, long[]> right) {
+        long[] bits = left.apply(batch);
+        if (isEmpty(bits)) {
+            return bits;
+        }
+        long[] other = right.apply(batch);
+        for (int i = 0; i < bits.length; i++) {
+            bits[i] &= other[i];
+        }
+        return bits;
+    }
+
+    private static long[] or(ColumnBatch batch, Function<ColumnBatch, long[]> left,
+                             Function<ColumnBatch, long[]> right) {
+        long[] bits = left.apply(batch);
+        if (isFull(bits, batch.getSize())) {
+            return bits;
+        }
+        long[] other = right.apply(batch);
+        for (int i = 0; i < bits.length; i++) {
+            bits[i] |= other[i];
+        }
+        return bits;
+    }
+
+}
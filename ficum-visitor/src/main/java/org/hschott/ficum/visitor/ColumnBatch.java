@@ -0,0 +1,125 @@
+package org.hschott.ficum.visitor;
+
+import org.hschott.ficum.node.Constraint;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A batch of rows stored column by column, evaluated by {@link BatchPredicateVisitor}. Numbers, booleans and
+ * timestamps are stored in primitive arrays, text is dictionary encoded. Columns are added by field name, the name a
+ * selector is mapped to.
+ * <p>
+ * Bitmaps mark the row at index i with bit {@code i % 64} of word {@code i / 64}, the layout of
+ * {@link java.util.BitSet#valueOf(long[])}.
+ */
+public final class ColumnBatch {
+
+    private final int size;
+
+    private final Map<String, Column> columns = new HashMap<>();
+
+    /**
+     * @param size number of rows
+     */
+    public ColumnBatch(int size) {
+        super();
+        if (size < 0) {
+            throw new IllegalArgumentException("size must not be negative");
+        }
+        this.size = size;
+    }
+
+    /**
+     * @param size number of rows
+     * @return number of words of a bitmap with one bit per row
+     */
+    public static int words(int size) {
+        return (size + 63) >>> 6;
+    }
+
+    private void checkLength(String field, int length) {
+        if (length < size) {
+            throw new IllegalArgumentException(
+                    String.format("Column %s has %d values, expected %d", field, length, size));
+        }
+    }
+
+    private long[] checkNulls(String field, long[] nulls) {
+        if (nulls != null && nulls.length < words(size)) {
+            throw new IllegalArgumentException(String.format("Null bitmap of column %s is too short", field));
+        }
+        return nulls;
+    }
+
+    /**
+     * Add a column of double values.
+     *
+     * @param field  the field name
+     * @param values the values
+     * @param nulls  bitmap of the rows whose value is null, may be null
+     */
+    public void addDoubleColumn(String field, double[] values, long[] nulls) {
+        Constraint.checkArgNotNull(values, "values");
+        checkLength(field, values.length);
+        columns.put(Constraint.checkArgNotNull(field, "field"), new DoubleColumn(values, checkNulls(field, nulls)));
+    }
+
+    /**
+     * Add a column of integral values. Booleans are stored as 0 and 1, timestamps as milliseconds since the epoch.
+     *
+     * @param field  the field name
+     * @param values the values
+     * @param nulls  bitmap of the rows whose value is null, may be null
+     */
+    public void addLongColumn(String field, long[] values, long[] nulls) {
+        Constraint.checkArgNotNull(values, "values");
+        checkLength(field, values.length);
+        columns.put(Constraint.checkArgNotNull(field, "field"), new LongColumn(values, checkNulls(field, nulls)));
+    }
+
+    /**
+     * Add a dictionary encoded column of text.
+     *
+     * @param field      the field name
+     * @param codes      index of the value of each row in the dictionary, -1 for null
+     * @param dictionary the distinct values
+     */
+    public void addStringColumn(String field, int[] codes, String[] dictionary) {
+        Constraint.checkArgNotNull(codes, "codes");
+        Constraint.checkArgNotNull(dictionary, "dictionary");
+        checkLength(field, codes.length);
+        for (int i = 0; i < size; i++) {
+            if (codes[i] < -1 || codes[i] >= dictionary.length) {
+                throw new IllegalArgumentException(
+                        String.format("Code %d of column %s is not in the dictionary", codes[i], field));
+            }
+        }
+        columns.put(Constraint.checkArgNotNull(field, "field"), new StringColumn(codes, dictionary));
+    }
+
+    Column getColumn(String field) {
+        Column column = columns.get(field);
+        if (column == null) {
+            throw new IllegalArgumentException("No column for field " + field);
+        }
+        return column;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    sealed interface Column permits LongColumn, DoubleColumn, StringColumn {
+    }
+
+    record LongColumn(long[] values, long[] nulls) implements Column {
+    }
+
+    record DoubleColumn(double[] values, long[] nulls) implements Column {
+    }
+
+    record StringColumn(int[] codes, String[] dictionary) implements Column {
+    }
+
+}
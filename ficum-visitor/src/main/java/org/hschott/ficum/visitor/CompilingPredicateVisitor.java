@@ -0,0 +1,665 @@
+package org.hschott.ficum.visitor;
+
+import org.apache.commons.lang3.ClassUtils;
+import org.apache.commons.lang3.reflect.FieldUtils;
+import org.hschott.ficum.node.*;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+
+import java.lang.constant.ConstantDescs;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * Compiles a {@link Node} tree into a hidden class dedicated to the query class and the shape of the tree, instead of
+ * composing lambdas like {@link InMemoryPredicateVisitor}. The generated predicate reads fields directly where the
+ * query class grants access, else through constant method handles, compares numbers as primitives without boxing and
+ * branches through the tree in tree order, so the JIT sees no megamorphic call sites.
+ * <p>
+ * Classes are cached per query class by a fingerprint of the operators, selectors, comparisons and argument types, so
+ * trees that only differ in their arguments share a class and the arguments are passed to its constructor.
+ * Constraints without a specialized form, e.g. wildcards, collections or =in=, delegate to the interpreted predicate,
+ * the results are always the same as of {@link InMemoryPredicateVisitor}. If no class can be defined for the query
+ * class, the whole tree is interpreted. As each shape defines a class, at most {@link #setMaxShapes(int) maxShapes}
+ * shapes are compiled per query class, further shapes are interpreted.
+ * <p>
+ * Requires ASM at runtime.
+ *
+ * @param <T> type of the filtered objects
+ */
+public class CompilingPredicateVisitor<T> extends InMemoryPredicateVisitor<T> {
+
+    private static final ClassValue<Map<String, MethodHandle>> CONSTRUCTORS = new ClassValue<>() {
+        @Override
+        protected Map<String, MethodHandle> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    private static final MethodType CONSTRUCTOR = MethodType.methodType(Predicate.class, Object[].class);
+
+    private static final int DEFAULT_MAX_SHAPES = 1024;
+
+    private final Class<T> queryClass;
+
+    private final MethodHandles.Lookup host;
+
+    private int maxShapes = DEFAULT_MAX_SHAPES;
+
+    public CompilingPredicateVisitor(Class<T> queryClass) {
+        super(queryClass);
+        this.queryClass = queryClass;
+        this.host = hostLookup(queryClass);
+    }
+
+    private static MethodHandles.Lookup hostLookup(Class<?> queryClass) {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(queryClass, MethodHandles.lookup());
+            return lookup.hasFullPrivilegeAccess() ? lookup : null;
+        } catch (IllegalAccessException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    public int getMaxShapes() {
+        return maxShapes;
+    }
+
+    /**
+     * @param maxShapes the number of shapes of the query class, including those compiled by other visitors, above
+     *                  which no more classes are defined, defaults to 1024
+     */
+    public void setMaxShapes(int maxShapes) {
+        if (maxShapes < 0) {
+            throw new IllegalArgumentException("maxShapes must not be negative, but was: " + maxShapes);
+        }
+        this.maxShapes = maxShapes;
+    }
+
+    /**
+     * @param node the root node of the tree
+     * @return the compiled predicate, or the interpreted predicate if no class can be defined for the query class or
+     *         the shape of the tree is not compiled yet and maxShapes are compiled already
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public Predicate<T> start(Node node) {
+        if (host == null) {
+            return super.start(node);
+        }
+        Shape shape = new Shape();
+        shape.add(node);
+
+        Map<String, MethodHandle> constructors = CONSTRUCTORS.get(queryClass);
+        String fingerprint = shape.fingerprint.toString();
+        MethodHandle constructor = constructors.get(fingerprint);
+        if (constructor == null) {
+            if (constructors.size() >= maxShapes) {
+                return super.start(node);
+            }
+            try {
+                constructor = new Generator(shape).define(node);
+            } catch (RuntimeException | IllegalAccessException e) {
+                // e.g. a tree too large for a single method
+                return super.start(node);
+            }
+            synchronized (constructors) {
+                MethodHandle existing = constructors.get(fingerprint);
+                if (existing != null) {
+                    constructor = existing;
+                } else if (constructors.size() >= maxShapes) {
+                    // the class defined meanwhile is not referenced and gets unloaded
+                    return super.start(node);
+                } else {
+                    constructors.put(fingerprint, constructor);
+                }
+            }
+        }
+
+        try {
+            return (Predicate<T>) constructor.invokeExact(shape.arguments.toArray());
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * How a constraint is compiled. The value is first read as the type of the field.
+     */
+    private enum Kind {
+
+        /**
+         * Interpreted predicate.
+         */
+        INTERPRETED(Type.getDescriptor(Predicate.class)),
+
+        /**
+         * Integral or boolean value and argument, compared as long.
+         */
+        LONG("J"),
+
+        /**
+         * Double value and argument, compared like {@link Double#compare(double, double)}.
+         */
+        DOUBLE("D"),
+
+        /**
+         * Integral value and finite double argument, compared as double.
+         */
+        WIDENED("D"),
+
+        /**
+         * String value and argument, without wildcards on equality.
+         */
+        STRING(Type.getDescriptor(String.class)),
+
+        /**
+         * Enum value and argument, compared by identity.
+         */
+        ENUM(Type.getDescriptor(Object.class)),
+
+        /**
+         * Null argument, the value is compared by identity.
+         */
+        NULL(null);
+
+        private final String descriptor;
+
+        Kind(String descriptor) {
+            this.descriptor = descriptor;
+        }
+    }
+
+    /**
+     * A field read, directly or by the method handle at index.
+     */
+    private record Step(Field field, int handle) {
+
+        private boolean isDirect() {
+            return handle < 0;
+        }
+    }
+
+    /**
+     * A compiled constraint, its argument is passed to the constructor at slot.
+     */
+    private record Leaf(Kind kind, Step[] steps, Comparison comparison, boolean onNull, int slot) {
+    }
+
+    /**
+     * The shape of a tree, with the arguments and method handles of a class compiled for it.
+     */
+    private final class Shape {
+
+        private final StringBuilder fingerprint = new StringBuilder();
+
+        private final List<Object> arguments = new ArrayList<>();
+
+        private final List<MethodHandle> handles = new ArrayList<>();
+
+        private final Map<Field, Integer> handleIndex = new HashMap<>();
+
+        private final List<Leaf> leaves = new ArrayList<>();
+
+        private void add(Node node) {
+            switch (node) {
+                case ConstraintNode<?> constraintNode -> add(constraintNode);
+                case OperationNode operationNode -> {
+                    fingerprint.append(operationNode.getOperator()).append('(');
+                    add(operationNode.getLeft());
+                    fingerprint.append(',');
+                    add(operationNode.getRight());
+                    fingerprint.append(')');
+                }
+                default -> throw new IllegalArgumentException("Node: " + node + " can not be folded");
+            }
+        }
+
+        private void add(ConstraintNode<?> node) {
+            Comparison comparison = node.getComparison();
+            FieldPath path = getMappedPath(node.getSelector());
+            Step[] steps = isOrdered(comparison) ? resolve(path) : null;
+            Object argument = node.getArgument();
+            Kind kind = steps == null ? Kind.INTERPRETED
+                    : kindOf(steps[steps.length - 1].field().getType(), comparison, argument);
+
+            if (kind == Kind.INTERPRETED) {
+                leaves.add(new Leaf(kind, null, comparison, false, arguments.size()));
+                arguments.add(foldConstraint(node));
+                fingerprint.append('?');
+                return;
+            }
+
+            // a missing value only matches == null and != argument
+            boolean onNull = kind == Kind.NULL ? Comparison.EQUALS.equals(comparison)
+                    : Comparison.NOT_EQUALS.equals(comparison);
+            leaves.add(new Leaf(kind, steps, comparison, onNull, kind == Kind.NULL ? -1 : arguments.size()));
+            switch (kind) {
+                case LONG -> arguments.add(argument instanceof Boolean bool ? (bool ? 1L : 0L)
+                        : ((Number) argument).longValue());
+                case DOUBLE, WIDENED -> arguments.add(((Number) argument).doubleValue());
+                case ENUM -> arguments.add(Values.convert((Comparable<?>) argument, steps[steps.length - 1].field()
+                        .getType()));
+                case STRING -> arguments.add(argument);
+                default -> {
+                    // no argument
+                }
+            }
+            fingerprint.append(kind).append(' ').append(path).append(' ').append(comparison);
+        }
+
+        private boolean isOrdered(Comparison comparison) {
+            return switch (comparison) {
+                case EQUALS, NOT_EQUALS, GREATER_THAN, GREATER_EQUALS, LESS_THAN, LESS_EQUALS -> true;
+                default -> false;
+            };
+        }
+
+        private Kind kindOf(Class<?> type, Comparison comparison, Object argument) {
+            boolean equality = Comparison.EQUALS.equals(comparison) || Comparison.NOT_EQUALS.equals(comparison);
+            Class<?> wrapper = ClassUtils.primitiveToWrapper(type);
+            if (argument == null) {
+                return equality && !type.isPrimitive() ? Kind.NULL : Kind.INTERPRETED;
+            }
+            if (isIntegral(wrapper) && isIntegral(argument.getClass())
+                    || wrapper == Boolean.class && argument instanceof Boolean) {
+                return Kind.LONG;
+            }
+            if (wrapper == Double.class && argument instanceof Double) {
+                return Kind.DOUBLE;
+            }
+            if (isIntegral(wrapper) && wrapper != Long.class && argument instanceof Double number
+                    && Double.isFinite(number)) {
+                return Kind.WIDENED;
+            }
+            if (type == String.class && argument instanceof String text) {
+                return equality && (containsWildcard(text) || isAlwaysWildcard()) ? Kind.INTERPRETED : Kind.STRING;
+            }
+            if (type.isEnum() && argument instanceof String && equality) {
+                return Kind.ENUM;
+            }
+            return Kind.INTERPRETED;
+        }
+
+        private boolean isIntegral(Class<?> type) {
+            return type == Long.class || type == Integer.class || type == Short.class || type == Byte.class;
+        }
+
+        /**
+         * Resolve a path of plain fields, null if it crosses a collection or can not be resolved.
+         */
+        private Step[] resolve(FieldPath path) {
+            Step[] steps = new Step[path.size()];
+            Class<?> clazz = queryClass;
+            for (int i = 0; i < steps.length; i++) {
+                Field field = FieldUtils.getField(clazz, path.segment(i), true);
+                if (field == null || Modifier.isStatic(field.getModifiers())
+                        || Collection.class.isAssignableFrom(field.getType())
+                        || i < steps.length - 1 && field.getType().isPrimitive()) {
+                    return null;
+                }
+                if (isAccessible(field)) {
+                    steps[i] = new Step(field, -1);
+                } else {
+                    Integer handle = handleIndex.get(field);
+                    if (handle == null) {
+                        try {
+                            handles.add(MethodHandles.lookup().unreflectGetter(field)
+                                    .asType(MethodType.methodType(erase(field.getType()), Object.class)));
+                        } catch (IllegalAccessException e) {
+                            return null;
+                        }
+                        handle = handles.size() - 1;
+                        handleIndex.put(field, handle);
+                    }
+                    steps[i] = new Step(field, handle);
+                }
+                clazz = field.getType();
+            }
+            return steps;
+        }
+
+        /**
+         * A field can be read directly if the hidden class, a nestmate of the query class, has access to it.
+         */
+        private boolean isAccessible(Field field) {
+            Class<?> owner = field.getDeclaringClass();
+            if (Modifier.isProtected(field.getModifiers())
+                    && !owner.getPackageName().equals(queryClass.getPackageName())) {
+                // protected access is granted to subclasses, but the hidden class is none
+                return false;
+            }
+            try {
+                host.accessClass(owner);
+                host.findGetter(owner, field.getName(), field.getType());
+                return Class.forName(owner.getName(), false, queryClass.getClassLoader()) == owner;
+            } catch (IllegalAccessException | NoSuchFieldException | ClassNotFoundException e) {
+                return false;
+            }
+        }
+    }
+
+    private static Class<?> erase(Class<?> type) {
+        return type.isPrimitive() ? type : Object.class;
+    }
+
+    /**
+     * Generates the hidden class of a {@link Shape}.
+     */
+    private final class Generator implements Opcodes {
+
+        private static final String OBJECT = Type.getInternalName(Object.class);
+
+        private static final String METHOD_HANDLE = Type.getInternalName(MethodHandle.class);
+
+        private final Shape shape;
+
+        private final String className;
+
+        private Iterator<Leaf> leaves;
+
+        private MethodVisitor mv;
+
+        private Generator(Shape shape) {
+            this.shape = shape;
+            String packageName = queryClass.getPackageName();
+            this.className = (packageName.isEmpty() ? "" : packageName.replace('.', '/') + '/')
+                    + "CompiledPredicate";
+        }
+
+        private MethodHandle define(Node node) throws IllegalAccessException {
+            ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_FRAMES) {
+                @Override
+                protected String getCommonSuperClass(String type1, String type2) {
+                    // only locals and operands of the same type are merged
+                    return OBJECT;
+                }
+            };
+            cw.visit(V21, ACC_FINAL | ACC_SUPER | ACC_SYNTHETIC, className, null, OBJECT,
+                    new String[]{Type.getInternalName(Predicate.class)});
+
+            for (int i = 0; i < shape.handles.size(); i++) {
+                cw.visitField(ACC_PRIVATE | ACC_STATIC | ACC_FINAL, "h" + i, Type.getDescriptor(MethodHandle.class),
+                        null, null).visitEnd();
+            }
+            for (Leaf leaf : shape.leaves) {
+                if (leaf.slot() >= 0) {
+                    cw.visitField(ACC_PRIVATE | ACC_FINAL, "c" + leaf.slot(), leaf.kind().descriptor, null, null)
+                            .visitEnd();
+                }
+            }
+
+            if (!shape.handles.isEmpty()) {
+                generateStaticInitializer(cw);
+            }
+            generateConstructor(cw);
+            generateTest(cw, node);
+            cw.visitEnd();
+
+            MethodHandles.Lookup lookup = host.defineHiddenClassWithClassData(cw.toByteArray(),
+                    List.copyOf(shape.handles), true, MethodHandles.Lookup.ClassOption.NESTMATE);
+            try {
+                return lookup.findConstructor(lookup.lookupClass(), MethodType.methodType(void.class, Object[].class))
+                        .asType(CONSTRUCTOR);
+            } catch (NoSuchMethodException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        /**
+         * Load the method handles from the class data into static final fields, the JIT treats them as constants.
+         */
+        private void generateStaticInitializer(ClassWriter cw) {
+            mv = cw.visitMethod(ACC_STATIC, "<clinit>", "()V", null, null);
+            mv.visitCode();
+            for (int i = 0; i < shape.handles.size(); i++) {
+                mv.visitMethodInsn(INVOKESTATIC, Type.getInternalName(MethodHandles.class), "lookup",
+                        Type.getMethodDescriptor(Type.getType(MethodHandles.Lookup.class)), false);
+                mv.visitLdcInsn(ConstantDescs.DEFAULT_NAME);
+                mv.visitLdcInsn(Type.getType(MethodHandle.class));
+                mv.visitLdcInsn(i);
+                mv.visitMethodInsn(INVOKESTATIC, Type.getInternalName(MethodHandles.class), "classDataAt",
+                        Type.getMethodDescriptor(Type.getType(Object.class), Type.getType(MethodHandles.Lookup.class),
+                                Type.getType(String.class), Type.getType(Class.class), Type.INT_TYPE), false);
+                mv.visitTypeInsn(CHECKCAST, METHOD_HANDLE);
+                mv.visitFieldInsn(PUTSTATIC, className, "h" + i, Type.getDescriptor(MethodHandle.class));
+            }
+            mv.visitInsn(RETURN);
+            mv.visitMaxs(0, 0);
+            mv.visitEnd();
+        }
+
+        private void generateConstructor(ClassWriter cw) {
+            mv = cw.visitMethod(ACC_PRIVATE, "<init>", "([Ljava/lang/Object;)V", null, null);
+            mv.visitCode();
+            mv.visitVarInsn(ALOAD, 0);
+            mv.visitMethodInsn(INVOKESPECIAL, OBJECT, "<init>", "()V", false);
+            for (Leaf leaf : shape.leaves) {
+                if (leaf.slot() < 0) {
+                    continue;
+                }
+                mv.visitVarInsn(ALOAD, 0);
+                mv.visitVarInsn(ALOAD, 1);
+                mv.visitLdcInsn(leaf.slot());
+                mv.visitInsn(AALOAD);
+                switch (leaf.kind()) {
+                    case LONG -> unbox(Long.class, "longValue", Type.LONG_TYPE);
+                    case DOUBLE, WIDENED -> unbox(Double.class, "doubleValue", Type.DOUBLE_TYPE);
+                    case STRING -> mv.visitTypeInsn(CHECKCAST, Type.getInternalName(String.class));
+                    case INTERPRETED -> mv.visitTypeInsn(CHECKCAST, Type.getInternalName(Predicate.class));
+                    default -> {
+                        // stored as object
+                    }
+                }
+                mv.visitFieldInsn(PUTFIELD, className, "c" + leaf.slot(), leaf.kind().descriptor);
+            }
+            mv.visitInsn(RETURN);
+            mv.visitMaxs(0, 0);
+            mv.visitEnd();
+        }
+
+        private void unbox(Class<?> wrapper, String method, Type type) {
+            mv.visitTypeInsn(CHECKCAST, Type.getInternalName(wrapper));
+            mv.visitMethodInsn(INVOKEVIRTUAL, Type.getInternalName(wrapper), method, Type.getMethodDescriptor(type),
+                    false);
+        }
+
+        private void generateTest(ClassWriter cw, Node node) {
+            mv = cw.visitMethod(ACC_PUBLIC, "test", "(Ljava/lang/Object;)Z", null, null);
+            mv.visitCode();
+            leaves = shape.leaves.iterator();
+            Label yes = new Label();
+            Label no = new Label();
+            branch(node, yes, no);
+            mv.visitLabel(yes);
+            mv.visitInsn(ICONST_1);
+            mv.visitInsn(IRETURN);
+            mv.visitLabel(no);
+            mv.visitInsn(ICONST_0);
+            mv.visitInsn(IRETURN);
+            mv.visitMaxs(0, 0);
+            mv.visitEnd();
+        }
+
+        /**
+         * Jump to yes if the node matches, else to no. Operands are evaluated left to right and short circuit.
+         */
+        private void branch(Node node, Label yes, Label no) {
+            if (!(node instanceof OperationNode operationNode)) {
+                branch(leaves.next(), yes, no);
+                return;
+            }
+            Node left = operationNode.getLeft();
+            Node right = operationNode.getRight();
+            Label next = new Label();
+            switch (operationNode.getOperator()) {
+                case AND -> {
+                    branch(left, next, no);
+                    mv.visitLabel(next);
+                    branch(right, yes, no);
+                }
+                case OR -> {
+                    branch(left, yes, next);
+                    mv.visitLabel(next);
+                    branch(right, yes, no);
+                }
+                case NAND -> {
+                    branch(left, next, yes);
+                    mv.visitLabel(next);
+                    branch(right, no, yes);
+                }
+                case NOR -> {
+                    branch(left, no, next);
+                    mv.visitLabel(next);
+                    branch(right, no, yes);
+                }
+                default -> throw new IllegalArgumentException(
+                        "OperationNode: " + node + " does not resolve to a operation");
+            }
+        }
+
+        private void branch(Leaf leaf, Label yes, Label no) {
+            if (leaf.kind() == Kind.INTERPRETED) {
+                loadArgument(leaf);
+                mv.visitVarInsn(ALOAD, 1);
+                mv.visitMethodInsn(INVOKEINTERFACE, Type.getInternalName(Predicate.class), "test",
+                        "(Ljava/lang/Object;)Z", true);
+                mv.visitJumpInsn(IFNE, yes);
+                mv.visitJumpInsn(GOTO, no);
+                return;
+            }
+
+            Label onNull = new Label();
+            mv.visitVarInsn(ALOAD, 1);
+            for (Step step : leaf.steps()) {
+                checkNull(onNull);
+                Field field = step.field();
+                if (step.isDirect()) {
+                    String owner = Type.getInternalName(field.getDeclaringClass());
+                    mv.visitTypeInsn(CHECKCAST, owner);
+                    mv.visitFieldInsn(GETFIELD, owner, field.getName(), Type.getDescriptor(field.getType()));
+                } else {
+                    mv.visitFieldInsn(GETSTATIC, className, "h" + step.handle(),
+                            Type.getDescriptor(MethodHandle.class));
+                    mv.visitInsn(SWAP);
+                    mv.visitMethodInsn(INVOKEVIRTUAL, METHOD_HANDLE, "invokeExact", Type.getMethodDescriptor(
+                            Type.getType(erase(field.getType())), Type.getType(Object.class)), false);
+                }
+            }
+
+            Class<?> type = leaf.steps()[leaf.steps().length - 1].field().getType();
+            boolean equals = Comparison.EQUALS.equals(leaf.comparison());
+            switch (leaf.kind()) {
+                case LONG -> {
+                    if (type == boolean.class || type == byte.class || type == short.class || type == int.class) {
+                        mv.visitInsn(I2L);
+                    } else if (type == Boolean.class) {
+                        checkNull(onNull);
+                        unbox(Boolean.class, "booleanValue", Type.BOOLEAN_TYPE);
+                        mv.visitInsn(I2L);
+                    } else if (!type.isPrimitive()) {
+                        checkNull(onNull);
+                        unbox(Number.class, "longValue", Type.LONG_TYPE);
+                    }
+                    loadArgument(leaf);
+                    mv.visitInsn(LCMP);
+                    compare(leaf.comparison(), yes, no);
+                }
+                case DOUBLE -> {
+                    if (!type.isPrimitive()) {
+                        checkNull(onNull);
+                        unbox(Double.class, "doubleValue", Type.DOUBLE_TYPE);
+                    }
+                    loadArgument(leaf);
+                    mv.visitMethodInsn(INVOKESTATIC, Type.getInternalName(Double.class), "compare", "(DD)I", false);
+                    compare(leaf.comparison(), yes, no);
+                }
+                case WIDENED -> {
+                    if (type.isPrimitive()) {
+                        mv.visitInsn(I2D);
+                    } else {
+                        checkNull(onNull);
+                        unbox(Number.class, "doubleValue", Type.DOUBLE_TYPE);
+                    }
+                    loadArgument(leaf);
+                    mv.visitInsn(DCMPL);
+                    compare(leaf.comparison(), yes, no);
+                }
+                case STRING -> {
+                    checkNull(onNull);
+                    mv.visitTypeInsn(CHECKCAST, Type.getInternalName(String.class));
+                    loadArgument(leaf);
+                    if (equals || Comparison.NOT_EQUALS.equals(leaf.comparison())) {
+                        mv.visitMethodInsn(INVOKEVIRTUAL, Type.getInternalName(String.class), "equals",
+                                "(Ljava/lang/Object;)Z", false);
+                        mv.visitJumpInsn(IFNE, equals ? yes : no);
+                        mv.visitJumpInsn(GOTO, equals ? no : yes);
+                    } else {
+                        mv.visitMethodInsn(INVOKEVIRTUAL, Type.getInternalName(String.class), "compareTo",
+                                "(Ljava/lang/String;)I", false);
+                        compare(leaf.comparison(), yes, no);
+                    }
+                }
+                case ENUM -> {
+                    loadArgument(leaf);
+                    mv.visitJumpInsn(IF_ACMPEQ, equals ? yes : no);
+                    mv.visitJumpInsn(GOTO, equals ? no : yes);
+                }
+                case NULL -> {
+                    mv.visitJumpInsn(IFNULL, equals ? yes : no);
+                    mv.visitJumpInsn(GOTO, equals ? no : yes);
+                }
+                default -> throw new IllegalStateException("Unexpected kind " + leaf.kind());
+            }
+
+            mv.visitLabel(onNull);
+            mv.visitJumpInsn(GOTO, leaf.onNull() ? yes : no);
+        }
+
+        private void checkNull(Label onNull) {
+            Label notNull = new Label();
+            mv.visitInsn(DUP);
+            mv.visitJumpInsn(IFNONNULL, notNull);
+            mv.visitInsn(POP);
+            mv.visitJumpInsn(GOTO, onNull);
+            mv.visitLabel(notNull);
+        }
+
+        private void loadArgument(Leaf leaf) {
+            mv.visitVarInsn(ALOAD, 0);
+            mv.visitFieldInsn(GETFIELD, className, "c" + leaf.slot(), leaf.kind().descriptor);
+        }
+
+        /**
+         * Jump on the result of a three way comparison.
+         */
+        private void compare(Comparison comparison, Label yes, Label no) {
+            int opcode = switch (comparison) {
+                case EQUALS -> IFEQ;
+                case NOT_EQUALS -> IFNE;
+                case GREATER_THAN -> IFGT;
+                case GREATER_EQUALS -> IFGE;
+                case LESS_THAN -> IFLT;
+                case LESS_EQUALS -> IFLE;
+                default -> throw new IllegalStateException("Unexpected comparison " + comparison);
+            };
+            mv.visitJumpInsn(opcode, yes);
+            mv.visitJumpInsn(GOTO, no);
+        }
+    }
+
+}
@@ -0,0 +1,300 @@
+package org.hschott.ficum.visitor;
+
+import org.hschott.ficum.node.*;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.UUID;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+
+/**
+ * Compiles a {@link Node} tree into a {@link Predicate} on schemaless documents: nested maps and lists, e.g. parsed
+ * JSON, or Jackson {@code JsonNode} trees if Jackson is present. Selectors are split into path segments once, the
+ * compiled predicate is immutable and thread-safe.
+ * <p>
+ * The semantics follow the MongoDB visitor: a constraint matches if any element of an array on its path matches, a
+ * numeric segment also selects the array element at that index, and a missing value only matches equality with null.
+ * != and =nin= are the negation of == and =in=. Values are coerced to the type of the argument: dates, ISO text and
+ * extended JSON dates like {@code {"$date": 1393804800000}} are compared as instants, a date argument at the start of
+ * its day in UTC. Text is compared with UUID and single character arguments, numbers of different types by their
+ * numeric value. Geospatial comparisons test points as described in {@link GeoShape}, an array at the end of the path
+ * is tested as a whole.
+ */
+public class DocumentPredicateVisitor extends AbstractFoldVisitor<Predicate<Object>> {
+
+    private static final boolean JACKSON = isPresent("com.fasterxml.jackson.databind.JsonNode");
+
+    private static final String DATE = "$date";
+
+    private static boolean isPresent(String className) {
+        try {
+            Class.forName(className, false, DocumentPredicateVisitor.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    /**
+     * @param value the value of an extended JSON date, milliseconds since the epoch or ISO text
+     * @return the instant, or null if the value is no date
+     */
+    static Instant toDate(Object value) {
+        if (value instanceof Number millis) {
+            return Instant.ofEpochMilli(millis.longValue());
+        }
+        if (value instanceof String text) {
+            Object instant = toInstant(text);
+            return instant instanceof Instant ? (Instant) instant : null;
+        }
+        return null;
+    }
+
+    private static Object toInstant(Object value) {
+        return switch (value) {
+            case Instant instant -> instant;
+            case Date date -> date.toInstant();
+            case Calendar calendar -> calendar.toInstant();
+            case OffsetDateTime dateTime -> dateTime.toInstant();
+            case ZonedDateTime dateTime -> dateTime.toInstant();
+            case LocalDateTime dateTime -> dateTime.toInstant(ZoneOffset.UTC);
+            case LocalDate date -> date.atStartOfDay().toInstant(ZoneOffset.UTC);
+            case String text -> {
+                try {
+                    yield OffsetDateTime.parse(text).toInstant();
+                } catch (DateTimeParseException e) {
+                    try {
+                        yield LocalDate.parse(text).atStartOfDay().toInstant(ZoneOffset.UTC);
+                    } catch (DateTimeParseException ignored) {
+                        yield text;
+                    }
+                }
+            }
+            case null, default -> value;
+        };
+    }
+
+    /**
+     * Bring an argument into the form values are coerced to.
+     */
+    private static Object normalize(Object argument) {
+        return switch (argument) {
+            case null -> null;
+            case Character character -> character.toString();
+            case LocalDate date -> toInstant(date);
+            case OffsetDateTime dateTime -> toInstant(dateTime);
+            case List<?> list -> list.stream().map(DocumentPredicateVisitor::normalize).toList();
+            default -> argument;
+        };
+    }
+
+    private static Object coerce(Object value, Object argument) {
+        if (argument instanceof Instant) {
+            return toInstant(value);
+        }
+        if (argument instanceof UUID && value instanceof String text) {
+            try {
+                return UUID.fromString(text);
+            } catch (IllegalArgumentException e) {
+                return text;
+            }
+        }
+        if (argument instanceof String && value instanceof Character character) {
+            return character.toString();
+        }
+        return value;
+    }
+
+    private static boolean anyMatch(Object value, Path path, int index, boolean expandLast, Predicate<Object> test) {
+        if (JACKSON && JsonNodes.isNode(value)) {
+            value = JsonNodes.unwrap(value);
+            if (JsonNodes.isNode(value)) {
+                if (JsonNodes.isArray(value) && (expandLast || index < path.size())) {
+                    int size = JsonNodes.size(value);
+                    for (int i = 0; i < size; i++) {
+                        if (anyMatch(JsonNodes.element(value, i), path, index, expandLast, test)) {
+                            return true;
+                        }
+                    }
+                    int element = path.index(index);
+                    return element >= 0 && element < size
+                            && anyMatch(JsonNodes.element(value, element), path, index + 1, expandLast, test);
+                }
+                return index == path.size() ? test.test(value)
+                        : anyMatch(JsonNodes.field(value, path.segment(index)), path, index + 1, expandLast, test);
+            }
+        }
+
+        if (value instanceof Map<?, ?> map && map.size() == 1 && map.containsKey(DATE)) {
+            value = toDate(map.get(DATE));
+        }
+
+        if (value instanceof Collection<?> collection && (expandLast || index < path.size())) {
+            if (collection instanceof List<?> list && collection instanceof RandomAccess) {
+                for (int i = 0; i < list.size(); i++) {
+                    if (anyMatch(list.get(i), path, index, expandLast, test)) {
+                        return true;
+                    }
+                }
+                int element = path.index(index);
+                return element >= 0 && element < list.size()
+                        && anyMatch(list.get(element), path, index + 1, expandLast, test);
+            }
+            for (Object element : collection) {
+                if (anyMatch(element, path, index, expandLast, test)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        if (index == path.size()) {
+            return test.test(value);
+        }
+        if (value instanceof Map<?, ?> map) {
+            return anyMatch(map.get(path.segment(index)), path, index + 1, expandLast, test);
+        }
+        // a path through a scalar or null is missing
+        return test.test(null);
+    }
+
+    private Predicate<Object> buildEquals(Object argument) {
+        if (argument == null) {
+            return value -> value == null;
+        }
+        if (argument instanceof String text && (containsWildcard(text) || isAlwaysWildcard())) {
+            GlobMatcher matcher = GlobMatcher.compile(text, isAlwaysWildcard(), false);
+            return value -> value instanceof CharSequence sequence && matcher.matches(sequence);
+        }
+        return value -> value != null && Arguments.isEqual(coerce(value, argument), argument);
+    }
+
+    private static Predicate<Object> buildCompare(Object argument, IntPredicate result) {
+        return value -> {
+            Object coerced = coerce(value, argument);
+            return coerced != null && argument != null && Arguments.isComparable(coerced, argument)
+                    && result.test(Arguments.compare(coerced, argument));
+        };
+    }
+
+    private static Predicate<Object> in(List<?> arguments) {
+        return value -> {
+            for (Object argument : arguments) {
+                if (value == null ? argument == null
+                        : argument != null && Arguments.isEqual(coerce(value, argument), argument)) {
+                    return true;
+                }
+            }
+            return false;
+        };
+    }
+
+    private Predicate<Object> doBuildPredicate(Comparison comparison, Object argument) {
+        return switch (comparison) {
+            case EQUALS -> buildEquals(argument);
+            case GREATER_THAN -> buildCompare(argument, result -> result > 0);
+            case GREATER_EQUALS -> buildCompare(argument, result -> result >= 0);
+            case LESS_THAN -> buildCompare(argument, result -> result < 0);
+            case LESS_EQUALS -> buildCompare(argument, result -> result <= 0);
+            case IN -> in(Arguments.asList(argument));
+            default -> null;
+        };
+    }
+
+    protected Predicate<Object> foldConstraint(ConstraintNode<?> node) {
+        Path path = new Path(getMappedPath(node.getSelector()));
+        Comparison comparison = node.getComparison();
+
+        if (GeoShape.isGeospatial(comparison)) {
+            GeoShape shape = GeoShape.of(comparison, Arguments.asList(node.getArgument()));
+            if (shape == null) {
+                throw new IllegalArgumentException("Constraint: " + node + " does not resolve to a predicate");
+            }
+            Predicate<Object> pred = JACKSON ? value -> shape.matches(JsonNodes.isNode(value)
+                    ? JsonNodes.toValue(value) : value) : shape::matches;
+            return document -> anyMatch(document, path, 0, false, pred);
+        }
+
+        // != and =nin= match if no value matches == and =in=
+        boolean negated = Comparison.NOT_EQUALS.equals(comparison) || Comparison.NIN.equals(comparison);
+        if (negated) {
+            comparison = Comparison.NOT_EQUALS.equals(comparison) ? Comparison.EQUALS : Comparison.IN;
+        }
+        Predicate<Object> pred = doBuildPredicate(comparison, normalize(node.getArgument()));
+        if (pred == null) {
+            throw new IllegalArgumentException("Constraint: " + node + " does not resolve to a predicate");
+        }
+        return negated ? document -> !anyMatch(document, path, 0, true, pred)
+                : document -> anyMatch(document, path, 0, true, pred);
+    }
+
+    protected Predicate<Object> foldOperation(OperationNode node, Predicate<Object> leftHandSide,
+                                              Predicate<Object> rightHandSide) {
+        return switch (node.getOperator()) {
+            case AND -> leftHandSide.and(rightHandSide);
+            case OR -> leftHandSide.or(rightHandSide);
+            case NAND -> leftHandSide.negate().or(rightHandSide.negate());
+            case NOR -> leftHandSide.negate().and(rightHandSide.negate());
+            default ->
+                    throw new IllegalArgumentException("OperationNode: " + node + " does not resolve to a operation");
+        };
+    }
+
+    /**
+     * Path segments of a field, with the array index a segment stands for.
+     */
+    private static final class Path {
+
+        private final String[] segments;
+
+        private final int[] indexes;
+
+        private Path(FieldPath fieldPath) {
+            segments = fieldPath.segments().toArray(new String[0]);
+            indexes = new int[segments.length];
+            for (int i = 0; i < segments.length; i++) {
+                indexes[i] = isIndex(segments[i]) ? Integer.parseInt(segments[i]) : -1;
+            }
+        }
+
+        private static boolean isIndex(String segment) {
+            if (segment.isEmpty() || segment.length() > 9) {
+                return false;
+            }
+            for (int i = 0; i < segment.length(); i++) {
+                if (!Character.isDigit(segment.charAt(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * @return the array index of the segment, -1 if it is no index or past the end of the path
+         */
+        private int index(int index) {
+            return index < indexes.length ? indexes[index] : -1;
+        }
+
+        private String segment(int index) {
+            return segments[index];
+        }
+
+        private int size() {
+            return segments.length;
+        }
+    }
+
+}
@@ -0,0 +1,344 @@
+package org.hschott.ficum.visitor;
+
+import org.hschott.ficum.node.Comparison;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The shape of a geospatial comparison, decoded from its arguments like {@link MongoDBFilterVisitor} does: only Double
+ * arguments count, coordinates are x, y respectively longitude, latitude.
+ * <ul>
+ * <li>=nr= with 3 or 4 arguments: within the maximum and minimum distance in meters, by the haversine formula</li>
+ * <li>=wi= with 3 arguments: within a circle, radius in radians on the sphere</li>
+ * <li>=wi= with 4 arguments: within a box of bottom left and upper right corner</li>
+ * <li>=wi= and =ix= with 6 or more arguments: within a polygon, including its boundary</li>
+ * <li>=ix= with 2 arguments: equal to a point</li>
+ * <li>=ix= with 4 arguments: on the line between two points</li>
+ * </ul>
+ * Boxes, lines and polygons are planar in longitude and latitude. Values are points: an array or list of two or more
+ * numbers, or a GeoJSON Point like {@code {"type": "Point", "coordinates": [x, y]}}.
+ */
+public abstract sealed class GeoShape permits GeoShape.Near, GeoShape.Circle, GeoShape.Box, GeoShape.Polygon,
+        GeoShape.Point, GeoShape.Line {
+
+    /**
+     * The radius of the earth in meters MongoDB calculates spherical distances with.
+     */
+    public static final double EARTH_RADIUS = 6_378_100.0;
+
+    private static final double EPSILON = 1e-9;
+
+    /**
+     * @param comparison the comparison
+     * @return true for =nr=, =wi= and =ix=
+     */
+    public static boolean isGeospatial(Comparison comparison) {
+        return comparison == Comparison.NEAR || comparison == Comparison.WITHIN || comparison == Comparison.INTERSECT;
+    }
+
+    /**
+     * @param comparison the comparison
+     * @param arguments  the arguments of the comparison
+     * @return the shape, null if the comparison and the number of arguments do not resolve to a shape
+     */
+    public static GeoShape of(Comparison comparison, List<?> arguments) {
+        double[] args = arguments.stream().filter(Double.class::isInstance).mapToDouble(Double.class::cast).toArray();
+        return switch (comparison) {
+            case NEAR -> args.length == 3 || args.length == 4
+                    ? new Near(args[0], args[1], args[2], args.length == 4 ? args[3] : 0) : null;
+            case WITHIN -> switch (args.length) {
+                case 0, 1, 2 -> null;
+                case 3 -> new Circle(args[0], args[1], args[2]);
+                case 4 -> new Box(args[0], args[1], args[2], args[3]);
+                default -> polygon(args);
+            };
+            case INTERSECT -> switch (args.length) {
+                case 0, 1, 3 -> null;
+                case 2 -> new Point(args[0], args[1]);
+                case 4 -> new Line(args[0], args[1], args[2], args[3]);
+                default -> polygon(args);
+            };
+            default -> null;
+        };
+    }
+
+    private static GeoShape polygon(double[] args) {
+        return args.length < 6 ? null : new Polygon(args);
+    }
+
+    /**
+     * @return the distance in meters between two points on the sphere
+     */
+    public static double distance(double x1, double y1, double x2, double y2) {
+        return EARTH_RADIUS * angle(x1, y1, x2, y2);
+    }
+
+    /**
+     * The central angle between two points in radians, by the haversine formula.
+     */
+    private static double angle(double x1, double y1, double x2, double y2) {
+        double sinLat = Math.sin(Math.toRadians(y2 - y1) / 2);
+        double sinLon = Math.sin(Math.toRadians(x2 - x1) / 2);
+        double a = sinLat * sinLat + Math.cos(Math.toRadians(y1)) * Math.cos(Math.toRadians(y2)) * sinLon * sinLon;
+        return 2 * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    /**
+     * Bounds of the points within an angle around a center, a spherical cap. Longitude spans all if the cap covers a
+     * pole or crosses the antimeridian.
+     */
+    private static double[] capBounds(double x, double y, double angle) {
+        double degrees = Math.toDegrees(angle);
+        double minY = y - degrees;
+        double maxY = y + degrees;
+        if (angle >= Math.PI || minY <= -90 || maxY >= 90) {
+            return new double[]{-180, Math.max(minY, -90), 180, Math.min(maxY, 90)};
+        }
+        double sin = Math.sin(angle) / Math.cos(Math.toRadians(y));
+        double spread = sin >= 1 ? 180 : Math.toDegrees(Math.asin(sin));
+        if (x - spread < -180 || x + spread > 180) {
+            return new double[]{-180, minY, 180, maxY};
+        }
+        return new double[]{x - spread, minY, x + spread, maxY};
+    }
+
+    /**
+     * @param value a value
+     * @return the x and y coordinate of a point, null if the value is no point
+     */
+    public static double[] toPoint(Object value) {
+        return switch (value) {
+            case double[] array when array.length >= 2 -> array;
+            case float[] array when array.length >= 2 -> new double[]{array[0], array[1]};
+            case Object[] array when array.length >= 2 && array[0] instanceof Number x
+                    && array[1] instanceof Number y -> new double[]{x.doubleValue(), y.doubleValue()};
+            case List<?> list when list.size() >= 2 && list.get(0) instanceof Number x
+                    && list.get(1) instanceof Number y -> new double[]{x.doubleValue(), y.doubleValue()};
+            case Map<?, ?> map when "Point".equals(map.get("type")) -> toPoint(map.get("coordinates"));
+            case null, default -> null;
+        };
+    }
+
+    /**
+     * @param x the x coordinate, longitude
+     * @param y the y coordinate, latitude
+     * @return true if the point is in the shape
+     */
+    public abstract boolean contains(double x, double y);
+
+    /**
+     * @return the bounding box of the shape as min x, min y, max x, max y, the points of the shape are in it
+     */
+    public abstract double[] bounds();
+
+    /**
+     * @param value a point or a collection of points
+     * @return true if the point or any point of the collection is in the shape
+     */
+    public boolean matches(Object value) {
+        double[] point = toPoint(value);
+        if (point != null) {
+            return contains(point[0], point[1]);
+        }
+        if (value instanceof Collection<?> collection) {
+            for (Object element : collection) {
+                if (matches(element)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    static final class Near extends GeoShape {
+
+        private final double x;
+
+        private final double y;
+
+        private final double max;
+
+        private final double min;
+
+        private Near(double x, double y, double max, double min) {
+            this.x = x;
+            this.y = y;
+            this.max = max;
+            this.min = min;
+        }
+
+        @Override
+        public boolean contains(double x, double y) {
+            double distance = distance(this.x, this.y, x, y);
+            return distance <= max && distance >= min;
+        }
+
+        @Override
+        public double[] bounds() {
+            return capBounds(x, y, max / EARTH_RADIUS);
+        }
+    }
+
+    static final class Circle extends GeoShape {
+
+        private final double x;
+
+        private final double y;
+
+        private final double radius;
+
+        private Circle(double x, double y, double radius) {
+            this.x = x;
+            this.y = y;
+            this.radius = radius;
+        }
+
+        @Override
+        public boolean contains(double x, double y) {
+            return angle(this.x, this.y, x, y) <= radius;
+        }
+
+        @Override
+        public double[] bounds() {
+            return capBounds(x, y, radius);
+        }
+    }
+
+    static final class Box extends GeoShape {
+
+        private final double[] bounds;
+
+        private Box(double x1, double y1, double x2, double y2) {
+            this.bounds = new double[]{Math.min(x1, x2), Math.min(y1, y2), Math.max(x1, x2), Math.max(y1, y2)};
+        }
+
+        @Override
+        public boolean contains(double x, double y) {
+            return x >= bounds[0] && y >= bounds[1] && x <= bounds[2] && y <= bounds[3];
+        }
+
+        @Override
+        public double[] bounds() {
+            return bounds.clone();
+        }
+    }
+
+    static final class Point extends GeoShape {
+
+        private final double x;
+
+        private final double y;
+
+        private Point(double x, double y) {
+            this.x = x;
+            this.y = y;
+        }
+
+        @Override
+        public boolean contains(double x, double y) {
+            return Math.abs(this.x - x) <= EPSILON && Math.abs(this.y - y) <= EPSILON;
+        }
+
+        @Override
+        public double[] bounds() {
+            return new double[]{x, y, x, y};
+        }
+    }
+
+    static final class Line extends GeoShape {
+
+        private final double x1;
+
+        private final double y1;
+
+        private final double x2;
+
+        private final double y2;
+
+        private Line(double x1, double y1, double x2, double y2) {
+            this.x1 = x1;
+            this.y1 = y1;
+            this.x2 = x2;
+            this.y2 = y2;
+        }
+
+        /**
+         * @return true if the point is on the segment between the two points
+         */
+        private static boolean onSegment(double x1, double y1, double x2, double y2, double x, double y) {
+            double dx = x2 - x1;
+            double dy = y2 - y1;
+            double cross = dx * (y - y1) - dy * (x - x1);
+            if (Math.abs(cross) > EPSILON * Math.max(1, Math.hypot(dx, dy))) {
+                return false;
+            }
+            return x >= Math.min(x1, x2) - EPSILON && x <= Math.max(x1, x2) + EPSILON
+                    && y >= Math.min(y1, y2) - EPSILON && y <= Math.max(y1, y2) + EPSILON;
+        }
+
+        @Override
+        public boolean contains(double x, double y) {
+            return onSegment(x1, y1, x2, y2, x, y);
+        }
+
+        @Override
+        public double[] bounds() {
+            return new double[]{Math.min(x1, x2), Math.min(y1, y2), Math.max(x1, x2), Math.max(y1, y2)};
+        }
+    }
+
+    static final class Polygon extends GeoShape {
+
+        private final double[] xs;
+
+        private final double[] ys;
+
+        private final double[] bounds = {Double.MAX_VALUE, Double.MAX_VALUE, -Double.MAX_VALUE, -Double.MAX_VALUE};
+
+        private Polygon(double[] args) {
+            List<double[]> positions = new ArrayList<>();
+            for (int i = 0; i + 1 < args.length; i += 2) {
+                positions.add(new double[]{args[i], args[i + 1]});
+            }
+            xs = new double[positions.size()];
+            ys = new double[positions.size()];
+            for (int i = 0; i < xs.length; i++) {
+                xs[i] = positions.get(i)[0];
+                ys[i] = positions.get(i)[1];
+                bounds[0] = Math.min(bounds[0], xs[i]);
+                bounds[1] = Math.min(bounds[1], ys[i]);
+                bounds[2] = Math.max(bounds[2], xs[i]);
+                bounds[3] = Math.max(bounds[3], ys[i]);
+            }
+        }
+
+        /**
+         * The boundary is part of the polygon, inside are the points a ray crossing the edges an odd number of times.
+         */
+        @Override
+        public boolean contains(double x, double y) {
+            if (x < bounds[0] || y < bounds[1] || x > bounds[2] || y > bounds[3]) {
+                return false;
+            }
+            boolean inside = false;
+            for (int i = 0, j = xs.length - 1; i < xs.length; j = i++) {
+                if (Line.onSegment(xs[j], ys[j], xs[i], ys[i], x, y)) {
+                    return true;
+                }
+                if (ys[i] > y != ys[j] > y && x < (xs[j] - xs[i]) * (y - ys[i]) / (ys[j] - ys[i]) + xs[i]) {
+                    inside = !inside;
+                }
+            }
+            return inside;
+        }
+
+        @Override
+        public double[] bounds() {
+            return bounds.clone();
+        }
+    }
+
+}
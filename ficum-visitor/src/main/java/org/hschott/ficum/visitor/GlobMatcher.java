@@ -0,0 +1,237 @@
+package org.hschott.ficum.visitor;
+
+import org.hschott.ficum.node.Constraint;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A compiled ficum wildcard literal, '*' matches any characters and '?' matches zero or one character, the same as the
+ * '.*' and '.?' of {@link Wildcards#escapeAndConvertToRegexWildcards(String, boolean)}, but both also match line
+ * terminators. So results differ from the regular expression MongoDB evaluates on multi-line text only: there '.' does
+ * not match a line terminator and '$' also matches before a final line terminator. Matching never backtracks: a
+ * literal, prefix, suffix or contains pattern is a single startsWith, endsWith or indexOf, a pattern of literals
+ * separated by '*' matches each literal at its leftmost position, and a pattern with '?' is simulated as an automaton
+ * over the pattern positions. Instances are immutable and thread safe.
+ */
+public final class GlobMatcher {
+
+    private final String glob;
+
+    private final boolean ignoreCase;
+
+    private final boolean leading;
+
+    private final boolean trailing;
+
+    /**
+     * Literals separated by '*', null if the pattern contains '?'.
+     */
+    private final String[] segments;
+
+    /**
+     * The pattern for the automaton, null if it contains no '?'.
+     */
+    private final char[] tokens;
+
+    private GlobMatcher(String glob, String pattern, boolean ignoreCase) {
+        this.glob = glob;
+        this.ignoreCase = ignoreCase;
+        this.leading = pattern.startsWith("*");
+        this.trailing = pattern.endsWith("*");
+        if (pattern.indexOf('?') >= 0) {
+            this.segments = null;
+            this.tokens = pattern.toCharArray();
+        } else {
+            List<String> literals = new ArrayList<>();
+            for (String literal : pattern.split("\\*")) {
+                if (!literal.isEmpty()) {
+                    literals.add(literal);
+                }
+            }
+            this.segments = literals.toArray(new String[0]);
+            this.tokens = null;
+        }
+    }
+
+    /**
+     * Compile an anchored, case sensitive wildcard literal.
+     *
+     * @param glob the literal with '*' and '?' wildcards
+     * @return the matcher
+     */
+    public static GlobMatcher compile(String glob) {
+        return compile(glob, false, false);
+    }
+
+    /**
+     * @param glob           the literal with '*' and '?' wildcards
+     * @param alwaysWildcard match the literal anywhere in the input, like {@code *glob*}
+     * @param ignoreCase     compare characters case insensitive, like {@link String#equalsIgnoreCase(String)}
+     * @return the matcher
+     */
+    public static GlobMatcher compile(String glob, boolean alwaysWildcard, boolean ignoreCase) {
+        Constraint.checkArgNotNull(glob, "glob");
+        return new GlobMatcher(glob, normalize(alwaysWildcard ? "*" + glob + "*" : glob), ignoreCase);
+    }
+
+    /**
+     * Collapse runs of '*' and drop '?' next to a '*', both match nothing '*' does not already match.
+     */
+    private static String normalize(String glob) {
+        StringBuilder pattern = new StringBuilder(glob.length());
+        int pending = 0;
+        boolean star = false;
+        for (int i = 0; i < glob.length(); i++) {
+            char c = glob.charAt(i);
+            if (c == '*') {
+                star = true;
+                pending = 0;
+            } else if (c == '?') {
+                pending += star ? 0 : 1;
+            } else {
+                if (star) {
+                    pattern.append('*');
+                    star = false;
+                }
+                pattern.append("?".repeat(pending));
+                pending = 0;
+                pattern.append(c);
+            }
+        }
+        if (star) {
+            pattern.append('*');
+        } else {
+            pattern.append("?".repeat(pending));
+        }
+        return pattern.toString();
+    }
+
+    /**
+     * @param input the input, null never matches
+     * @return true if the whole input matches the pattern
+     */
+    public boolean matches(CharSequence input) {
+        if (input == null) {
+            return false;
+        }
+        String text = input.toString();
+        return segments != null ? matchSegments(text) : matchTokens(text);
+    }
+
+    private boolean matchSegments(String text) {
+        int first = 0;
+        int last = segments.length;
+        int position = 0;
+        int limit = text.length();
+        if (last == 0) {
+            // empty pattern or '*'
+            return leading || limit == 0;
+        }
+        if (!leading) {
+            String prefix = segments[first++];
+            if (!text.regionMatches(ignoreCase, 0, prefix, 0, prefix.length())) {
+                return false;
+            }
+            position = prefix.length();
+            if (first == last) {
+                return trailing || position == limit;
+            }
+        }
+        if (!trailing) {
+            String suffix = segments[--last];
+            limit -= suffix.length();
+            if (limit < position || !text.regionMatches(ignoreCase, limit, suffix, 0, suffix.length())) {
+                return false;
+            }
+        }
+        for (int i = first; i < last; i++) {
+            int index = indexOf(text, segments[i], position, limit);
+            if (index < 0) {
+                return false;
+            }
+            position = index + segments[i].length();
+        }
+        return true;
+    }
+
+    private int indexOf(String text, String literal, int from, int limit) {
+        if (!ignoreCase) {
+            int index = text.indexOf(literal, from, limit);
+            return index >= 0 && index + literal.length() <= limit ? index : -1;
+        }
+        for (int index = from; index + literal.length() <= limit; index++) {
+            if (text.regionMatches(true, index, literal, 0, literal.length())) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Simulate the automaton whose state i means the first i tokens matched, all active states at once.
+     */
+    private boolean matchTokens(String text) {
+        int length = tokens.length;
+        boolean[] current = new boolean[length + 1];
+        boolean[] next = new boolean[length + 1];
+        current[0] = true;
+        close(current);
+        for (int position = 0; position < text.length(); position++) {
+            char c = text.charAt(position);
+            boolean active = false;
+            for (int state = 0; state < length; state++) {
+                if (!current[state]) {
+                    continue;
+                }
+                char token = tokens[state];
+                if (token == '*') {
+                    next[state] = true;
+                    active = true;
+                } else if (token == '?' || equals(token, c)) {
+                    next[state + 1] = true;
+                    active = true;
+                }
+            }
+            if (!active) {
+                return false;
+            }
+            close(next);
+            boolean[] swap = current;
+            current = next;
+            next = swap;
+            Arrays.fill(next, false);
+        }
+        return current[length];
+    }
+
+    /**
+     * Wildcards match empty input too, so a state before a wildcard also activates the state after it.
+     */
+    private void close(boolean[] states) {
+        for (int state = 0; state < tokens.length; state++) {
+            if (states[state] && (tokens[state] == '*' || tokens[state] == '?')) {
+                states[state + 1] = true;
+            }
+        }
+    }
+
+    private boolean equals(char token, char c) {
+        if (token == c) {
+            return true;
+        }
+        if (!ignoreCase) {
+            return false;
+        }
+        char upperToken = Character.toUpperCase(token);
+        char upper = Character.toUpperCase(c);
+        return upperToken == upper || Character.toLowerCase(upperToken) == Character.toLowerCase(upper);
+    }
+
+    @Override
+    public String toString() {
+        return glob;
+    }
+
+}
@@ -1,20 +1,26 @@
 package org.hschott.ficum.visitor;
 
+import com.hazelcast.projection.Projections;
 import com.hazelcast.query.Predicate;
 import com.hazelcast.query.Predicates;
 import org.hschott.ficum.node.*;
 
+import org.apache.commons.lang3.reflect.FieldUtils;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.lang.reflect.Field;
 import java.time.LocalDate;
 import java.time.OffsetDateTime;
 import java.time.ZoneId;
-import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
-public class HazelcastPredicateVisitor extends AbstractVisitor<Predicate<?, ?>> {
-
-    private List<Predicate<?, ?>> filters;
+public class HazelcastPredicateVisitor extends AbstractFoldVisitor<Predicate<?, ?>> {
 
     private Predicate<?, ?> buildEquals(String fieldName, Comparable<?> argument) {
         Predicate<?, ?> pred;
@@ -69,16 +75,44 @@ public class HazelcastPredicateVisitor extends AbstractVisitor<Predicate<?, ?>>
         };
     }
 
-    public Predicate<?, ?> start(Node node) {
-        filters = new ArrayList<>();
-        node.accept(this);
-        if (filters.size() != 1) {
-            throw new IllegalStateException("single predicate expected, but was: " + filters);
+    /**
+     * Translate a {@link org.hschott.ficum.node.Projection} into a projection of the selected attributes, the
+     * attribute values of an entry are returned in the order of the projection.
+     *
+     * @param projection the projection
+     * @param <I>        type of the projected entries
+     * @return the attribute projection
+     */
+    public <I> com.hazelcast.projection.Projection<I, Object[]> getProjection(Projection projection) {
+        return Projections.multiAttribute(projection.selectors().stream().map(this::getMappedField)
+                                                    .toArray(String[]::new));
+    }
+
+    /**
+     * Translate a {@link Sort} into a comparator of map entries, to be passed to
+     * {@link Predicates#pagingPredicate(Predicate, Comparator, int)}. The comparator is serializable and reads the
+     * sorted attributes from the entry values by reflection, null values are sorted first. Attribute paths are split
+     * once here. Values only readable through Hazelcast's extractors, like Compact or Portable serialized values, can
+     * not be sorted by this comparator: entry values must be deserialized Java objects holding the attributes as
+     * fields.
+     *
+     * @param sort the sort
+     * @param <K>  type of the keys
+     * @param <V>  type of the values
+     * @return the comparator
+     */
+    public <K, V> Comparator<Map.Entry<K, V>> getComparator(Sort sort) {
+        String[][] paths = new String[sort.orders().size()][];
+        boolean[] ascending = new boolean[paths.length];
+        for (int i = 0; i < paths.length; i++) {
+            Sort.Order order = sort.orders().get(i);
+            paths[i] = getMappedPath(order.selector()).segments().toArray(String[]::new);
+            ascending[i] = order.isAscending();
         }
-        return filters.getFirst();
+        return new AttributeComparator<>(paths, ascending);
     }
 
-    public void visit(ConstraintNode<?> node) {
+    protected Predicate<?, ?> foldConstraint(ConstraintNode<?> node) {
         Object argument = node.getArgument();
         String fieldName = getMappedField(node.getSelector());
 
@@ -99,21 +133,15 @@ public class HazelcastPredicateVisitor extends AbstractVisitor<Predicate<?, ?>>
                     "Unable to handle argument of type " + argument.getClass().getName());
         }
 
-        if (pred != null) {
-            filters.add(pred);
-        } else {
+        if (pred == null) {
             throw new IllegalArgumentException("Constraint: " + node + " does not resolve to a predicate");
         }
+        return pred;
     }
 
-    public void visit(OperationNode node) {
-        node.getLeft().accept(this);
-        node.getRight().accept(this);
-
-        Predicate<?, ?> pred;
-        Predicate<?, ?> leftHandSide = filters.get(filters.size() - 2);
-        Predicate<?, ?> rightHandSide = filters.get(filters.size() - 1);
-        pred = switch (node.getOperator()) {
+    protected Predicate<?, ?> foldOperation(OperationNode node, Predicate<?, ?> leftHandSide,
+                                            Predicate<?, ?> rightHandSide) {
+        return switch (node.getOperator()) {
             case AND -> Predicates.and(leftHandSide, rightHandSide);
             case OR -> Predicates.or(leftHandSide, rightHandSide);
             case NAND -> Predicates.or(Predicates.not(leftHandSide), Predicates.not(rightHandSide));
@@ -121,10 +149,69 @@ public class HazelcastPredicateVisitor extends AbstractVisitor<Predicate<?, ?>>
             default ->
                     throw new IllegalArgumentException("OperationNode: " + node + " does not resolve to a operation");
         };
+    }
+
+    private static class AttributeComparator<K, V> implements Comparator<Map.Entry<K, V>>, Serializable {
+
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private static final ClassValue<Map<String, Field>> FIELDS = new ClassValue<>() {
+            @Override
+            protected Map<String, Field> computeValue(Class<?> type) {
+                return new ConcurrentHashMap<>();
+            }
+        };
+
+        /**
+         * The path segments of the sorted attributes.
+         */
+        private final String[][] paths;
 
-        filters.remove(leftHandSide);
-        filters.remove(rightHandSide);
-        filters.add(pred);
+        private final boolean[] ascending;
+
+        private AttributeComparator(String[][] paths, boolean[] ascending) {
+            this.paths = paths;
+            this.ascending = ascending;
+        }
+
+        private static Object read(Object value, String[] path) {
+            for (String name : path) {
+                if (value == null) {
+                    return null;
+                }
+                Class<?> type = value.getClass();
+                Field reflected = FIELDS.get(type).computeIfAbsent(name, key -> {
+                    Field found = FieldUtils.getField(type, key, true);
+                    if (found == null) {
+                        throw new IllegalArgumentException(
+                                String.format("Can not find field %s in %s", key, type.getName()));
+                    }
+                    return found;
+                });
+                try {
+                    value = reflected.get(value);
+                } catch (IllegalAccessException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+            return value;
+        }
+
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        @Override
+        public int compare(Map.Entry<K, V> left, Map.Entry<K, V> right) {
+            for (int i = 0; i < paths.length; i++) {
+                Comparable leftValue = (Comparable) read(left.getValue(), paths[i]);
+                Comparable rightValue = (Comparable) read(right.getValue(), paths[i]);
+                int compared = leftValue == null ? (rightValue == null ? 0 : -1)
+                        : rightValue == null ? 1 : leftValue.compareTo(rightValue);
+                if (compared != 0) {
+                    return ascending[i] ? compared : -compared;
+                }
+            }
+            return 0;
+        }
     }
 
 }
@@ -0,0 +1,264 @@
+package org.hschott.ficum.visitor;
+
+import org.apache.commons.lang3.ClassUtils;
+import org.apache.commons.lang3.reflect.FieldUtils;
+import org.apache.commons.lang3.reflect.TypeUtils;
+import org.hschott.ficum.node.*;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * Compiles a {@link Node} tree into a {@link Predicate} on Java objects, e.g. to filter caches or collections in
+ * memory. Dotted selectors are resolved once into chains of field accessors, the compiled predicate is immutable
+ * and thread-safe.
+ * <p>
+ * The semantics follow the MongoDB visitor: text with wildcards matches like a regular expression except on
+ * multi-line text, see {@link GlobMatcher}, a selector crossing a collection matches if any element matches, and a
+ * missing or null value only matches equality with null. != and =nin= are the negation of == and =in=. Like the JPA
+ * visitor, comparing a collection with an Integer compares its size. Geospatial comparisons test points as described
+ * in {@link GeoShape}.
+ *
+ * @param <T> type of the filtered objects
+ */
+public class InMemoryPredicateVisitor<T> extends AbstractFoldVisitor<Predicate<T>> {
+
+    private final Class<T> queryClass;
+
+    private final Map<FieldPath, Accessor> accessors = new ConcurrentHashMap<>();
+
+    public InMemoryPredicateVisitor(Class<T> queryClass) {
+        super();
+        this.queryClass = Constraint.checkArgNotNull(queryClass, "queryClass");
+    }
+
+    private static int compare(Object value, Object argument) {
+        return Arguments.compare(value, argument);
+    }
+
+    private static boolean isComparable(Object value, Object argument) {
+        return value != null && argument != null && Arguments.isComparable(value, argument);
+    }
+
+    private static Predicate<Object> in(List<?> arguments) {
+        return value -> {
+            for (Object argument : arguments) {
+                if (value == null ? argument == null : Arguments.isEqual(value, argument)) {
+                    return true;
+                }
+            }
+            return false;
+        };
+    }
+
+    private Predicate<Object> buildEquals(Object argument, Class<?> type) {
+        if (argument == null) {
+            return value -> value == null;
+        }
+        if (argument instanceof String text && type.isAssignableFrom(String.class)
+                && (containsWildcard(text) || isAlwaysWildcard())) {
+            GlobMatcher matcher = GlobMatcher.compile(text, isAlwaysWildcard(), false);
+            return value -> value instanceof CharSequence sequence && matcher.matches(sequence);
+        }
+        return value -> value != null && Arguments.isEqual(value, argument);
+    }
+
+    private Predicate<Object> doBuildPredicate(Comparison comparison, Object argument, Class<?> type) {
+        return switch (comparison) {
+            case EQUALS -> buildEquals(argument, type);
+            case GREATER_THAN -> value -> isComparable(value, argument) && compare(value, argument) > 0;
+            case GREATER_EQUALS -> value -> isComparable(value, argument) && compare(value, argument) >= 0;
+            case LESS_THAN -> value -> isComparable(value, argument) && compare(value, argument) < 0;
+            case LESS_EQUALS -> value -> isComparable(value, argument) && compare(value, argument) <= 0;
+            case IN -> in(Arguments.asList(argument));
+            default -> null;
+        };
+    }
+
+    private Predicate<Object> doBuildCollectionSizePredicate(Comparison comparison, Integer argument) {
+        return switch (comparison) {
+            case GREATER_THAN -> value -> sizeOf(value) > argument;
+            case EQUALS -> value -> sizeOf(value) == argument;
+            case NOT_EQUALS -> value -> sizeOf(value) != argument;
+            case LESS_THAN -> value -> sizeOf(value) < argument;
+            case LESS_EQUALS -> value -> sizeOf(value) <= argument;
+            case GREATER_EQUALS -> value -> sizeOf(value) >= argument;
+            default -> null;
+        };
+    }
+
+    /**
+     * A null collection is taken as empty, like in a database.
+     */
+    private static int sizeOf(Object value) {
+        return value instanceof Collection<?> collection ? collection.size() : 0;
+    }
+
+    private Object convert(Object argument, Class<?> type) {
+        if (argument instanceof Comparable<?> comparable) {
+            return Values.convert(comparable, type);
+        }
+        if (argument instanceof List<?> list) {
+            return list.stream().map(element -> convert(element, type)).toList();
+        }
+        return argument;
+    }
+
+    private Accessor getAccessor(FieldPath fieldPath) {
+        return accessors.computeIfAbsent(fieldPath, path -> new Accessor(queryClass, path));
+    }
+
+    protected Predicate<T> foldConstraint(ConstraintNode<?> node) {
+        Accessor accessor = getAccessor(getMappedPath(node.getSelector()));
+        Comparison comparison = node.getComparison();
+        Object argument = node.getArgument();
+
+        if (GeoShape.isGeospatial(comparison)) {
+            GeoShape shape = GeoShape.of(comparison, Arguments.asList(argument));
+            if (shape == null) {
+                throw new IllegalArgumentException("Constraint: " + node + " does not resolve to a predicate");
+            }
+            // a point may be a collection of coordinates, so collections are tested as a whole
+            return target -> accessor.anyMatch(target, false, shape::matches);
+        }
+
+        if (accessor.isCollection() && argument instanceof Integer size) {
+            Predicate<Object> sizeCheck = doBuildCollectionSizePredicate(comparison, size);
+            if (sizeCheck == null) {
+                throw new IllegalArgumentException("Constraint: " + node + " does not resolve to a predicate");
+            }
+            return target -> accessor.anyMatch(target, false, sizeCheck);
+        }
+
+        // != and =nin= match if no value matches == and =in=
+        boolean negated = Comparison.NOT_EQUALS.equals(comparison) || Comparison.NIN.equals(comparison);
+        if (negated) {
+            comparison = Comparison.NOT_EQUALS.equals(comparison) ? Comparison.EQUALS : Comparison.IN;
+        }
+        Predicate<Object> pred = doBuildPredicate(comparison, convert(argument, accessor.getType()),
+                accessor.getType());
+        if (pred == null) {
+            throw new IllegalArgumentException("Constraint: " + node + " does not resolve to a predicate");
+        }
+        return negated ? target -> !accessor.anyMatch(target, true, pred)
+                : target -> accessor.anyMatch(target, true, pred);
+    }
+
+    protected Predicate<T> foldOperation(OperationNode node, Predicate<T> leftHandSide, Predicate<T> rightHandSide) {
+        return switch (node.getOperator()) {
+            case AND -> leftHandSide.and(rightHandSide);
+            case OR -> leftHandSide.or(rightHandSide);
+            case NAND -> leftHandSide.negate().or(rightHandSide.negate());
+            case NOR -> leftHandSide.negate().and(rightHandSide.negate());
+            default ->
+                    throw new IllegalArgumentException("OperationNode: " + node + " does not resolve to a operation");
+        };
+    }
+
+    /**
+     * A chain of field getters resolved from a {@link FieldPath}.
+     */
+    private static class Accessor {
+
+        private static final MethodType GETTER = MethodType.methodType(Object.class, Object.class);
+
+        private final MethodHandle[] getters;
+
+        private final boolean[] collections;
+
+        private final Class<?> type;
+
+        private Accessor(Class<?> queryClass, FieldPath fieldPath) {
+            int size = fieldPath.size();
+            getters = new MethodHandle[size];
+            collections = new boolean[size];
+
+            Class<?> clazz = queryClass;
+            for (int i = 0; i < size; i++) {
+                String name = fieldPath.segment(i);
+                Field field = FieldUtils.getField(clazz, name, true);
+                if (field == null) {
+                    throw new IllegalArgumentException(
+                            String.format("Can not find field %s in %s", name, clazz.getName()));
+                }
+                try {
+                    getters[i] = MethodHandles.lookup().unreflectGetter(field).asType(GETTER);
+                } catch (IllegalAccessException e) {
+                    throw new IllegalArgumentException(
+                            String.format("Can not access field %s in %s", name, clazz.getName()), e);
+                }
+
+                clazz = ClassUtils.primitiveToWrapper(field.getType());
+                if (Collection.class.isAssignableFrom(clazz)) {
+                    collections[i] = true;
+                    clazz = getElementType(field.getGenericType());
+                }
+            }
+            type = clazz;
+        }
+
+        private static Class<?> getElementType(Type type) {
+            Map<TypeVariable<?>, Type> typeArguments = TypeUtils.getTypeArguments(type,
+                    Collection.class);
+            Iterator<Type> it = typeArguments == null ? null : typeArguments.values().iterator();
+            if (it != null && it.hasNext()) {
+                Class<?> elementType = TypeUtils.getRawType(it.next(), null);
+                if (elementType != null) {
+                    return elementType;
+                }
+            }
+            return Object.class;
+        }
+
+        /**
+         * @param target     the object to read the values from
+         * @param expandLast if the elements of a collection at the end of the chain are tested, or the collection
+         * @param test       the test of a single value
+         * @return true if any value passes the test
+         */
+        private boolean anyMatch(Object target, boolean expandLast, Predicate<Object> test) {
+            return anyMatch(target, 0, expandLast, test);
+        }
+
+        private boolean anyMatch(Object target, int index, boolean expandLast, Predicate<Object> test) {
+            if (index == getters.length || target == null) {
+                return test.test(target);
+            }
+            Object value;
+            try {
+                value = getters[index].invokeExact(target);
+            } catch (Throwable e) {
+                throw new IllegalStateException(e);
+            }
+            if (collections[index] && value instanceof Collection<?> collection
+                    && (expandLast || index < getters.length - 1)) {
+                for (Object element : collection) {
+                    if (anyMatch(element, index + 1, expandLast, test)) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+            return anyMatch(value, index + 1, expandLast, test);
+        }
+
+        private Class<?> getType() {
+            return type;
+        }
+
+        private boolean isCollection() {
+            return collections[collections.length - 1];
+        }
+    }
+
+}
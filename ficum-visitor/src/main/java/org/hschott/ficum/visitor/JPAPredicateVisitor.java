@@ -13,11 +13,10 @@ import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.time.LocalDate;
 import java.time.OffsetDateTime;
-import java.time.ZoneId;
 import java.util.*;
 import java.util.stream.Collectors;
 
-public class JPAPredicateVisitor<T> extends AbstractVisitor<Predicate> {
+public class JPAPredicateVisitor<T> extends AbstractFoldVisitor<Predicate> {
 
     public static final char ESCAPE_CHAR = '\\';
 
@@ -27,8 +26,6 @@ public class JPAPredicateVisitor<T> extends AbstractVisitor<Predicate> {
 
     private final Class<T> queryClass;
 
-    private List<Predicate> predicates;
-
     private final Set<Class<? extends Comparable<?>>> mappedTypes = new HashSet<>();
 
     public JPAPredicateVisitor(Class<T> queryClass, Root<T> root, CriteriaBuilder criteriaBuilder) {
@@ -152,14 +149,14 @@ public class JPAPredicateVisitor<T> extends AbstractVisitor<Predicate> {
         };
     }
 
-    private Path<?> findPath(String names) {
+    private Path<?> findPath(FieldPath fieldPath) {
         Path<?> path = root;
         Class<?> clazz = queryClass;
 
-        Iterator<String> namesIterator = Arrays.asList(names.split("\\.")).iterator();
-        while (namesIterator.hasNext()) {
-            String name = namesIterator.next();
-            boolean isLast = !namesIterator.hasNext();
+        int size = fieldPath.size();
+        for (int i = 0; i < size; i++) {
+            String name = fieldPath.segment(i);
+            boolean isLast = i == size - 1;
 
             Field field = getField(clazz, name);
             clazz = field.getType();
@@ -184,11 +181,42 @@ public class JPAPredicateVisitor<T> extends AbstractVisitor<Predicate> {
 
         if (path == null)
             throw new IllegalArgumentException(
-                    String.format("%s can not be applied to %s", names, queryClass.getName()));
+                    String.format("%s can not be applied to %s", fieldPath, queryClass.getName()));
 
         return path;
     }
 
+    /**
+     * Translate a {@link Sort} into orders for <code>query.orderBy(visitor.getOrders(sort))</code>.
+     *
+     * @param sort the sort
+     * @return the orders by priority
+     */
+    public List<Order> getOrders(Sort sort) {
+        List<Order> orders = new ArrayList<>(sort.orders().size());
+        for (Sort.Order order : sort.orders()) {
+            Path<?> path = findPath(getMappedPath(order.selector()));
+            orders.add(order.isAscending() ? criteriaBuilder.asc(path) : criteriaBuilder.desc(path));
+        }
+        return orders;
+    }
+
+    /**
+     * Resolve the paths of a {@link Projection} for a tuple or constructor select, e.g.
+     * <code>query.multiselect(visitor.getSelections(projection))</code>. Every path is aliased with its selector.
+     * Selecting the elements of a collection joins the collection.
+     *
+     * @param projection the projection
+     * @return the selections in the order of the projection
+     */
+    public List<Selection<?>> getSelections(Projection projection) {
+        List<Selection<?>> selections = new ArrayList<>(projection.selectors().size());
+        for (Selector selector : projection.selectors()) {
+            selections.add(findPath(getMappedPath(selector)).alias(selector.value()));
+        }
+        return selections;
+    }
+
     private Path<?> getExistingJoin(From<?, ?> element, String prop) {
         final Set<? extends Join<?, ?>> joins = element.getJoins();
         for (Join<?, ?> join : joins) {
@@ -242,50 +270,18 @@ public class JPAPredicateVisitor<T> extends AbstractVisitor<Predicate> {
         return false;
     }
 
-    @SuppressWarnings({"rawtypes", "unchecked"})
-    private Comparable<?> convertValue(Comparable<?> value,  Class<? extends Comparable> clazz ){
-        // convert from string to enum
-        if (value instanceof String && clazz.isEnum()) {
-            value = Enum.valueOf((Class<? extends Enum>) clazz, value.toString());
-        }
-
-        // convert date and time types
-        if (value instanceof LocalDate && clazz.isAssignableFrom(Date.class)) {
-            value = Date.from(((LocalDate) value).atStartOfDay()
-                    .atZone(ZoneId.of("UTC"))
-                    .toInstant());
-        }
-
-        if (value instanceof LocalDate && clazz.isAssignableFrom(Calendar.class)) {
-            value = GregorianCalendar.from(((LocalDate) value).atStartOfDay()
-                    .atZone(ZoneId.of("UTC")));
-        }
-
-        if (value instanceof LocalDate && clazz.isAssignableFrom(OffsetDateTime.class)) {
-            value = OffsetDateTime.from(((LocalDate) value).atStartOfDay()
-                    .atZone(ZoneId.of("UTC")));
-        }
-
-        if (value instanceof OffsetDateTime && clazz.isAssignableFrom(Date.class)) {
-            value = Date.from(((OffsetDateTime) value).toInstant());
-        }
-
-        if (value instanceof OffsetDateTime && clazz.isAssignableFrom(Calendar.class)) {
-            value = GregorianCalendar.from(((OffsetDateTime) value).toZonedDateTime());
-        }
-        return value;
-    }
-
+    /**
+     * @param node the root node of the tree
+     * @return the conjunction of the folded predicate
+     */
+    @Override
     public Predicate start(Node node) {
-        predicates = new ArrayList<>();
-        node.accept(this);
-        return criteriaBuilder.and(predicates.toArray(new Predicate[0]));
-
+        return criteriaBuilder.and(super.start(node));
     }
 
     @SuppressWarnings({"unchecked", "rawtypes"})
-    public void visit(ConstraintNode node) {
-        Path<?> path = findPath(getMappedField(node.getSelector()));
+    protected Predicate foldConstraint(ConstraintNode<?> node) {
+        Path<?> path = findPath(getMappedPath(node.getSelector()));
 
         Class<? extends Comparable> clazz = (Class<? extends Comparable>) path.getJavaType();
         Object argument = node.getArgument();
@@ -295,7 +291,7 @@ public class JPAPredicateVisitor<T> extends AbstractVisitor<Predicate> {
             case Comparable<?> comparable -> {
                 Comparable<?> value = comparable;
 
-                value = convertValue(value, clazz);
+                value = Values.convert(value, clazz);
 
                 pred = isCollectionSizeCheck(path, value)
                         ? doBuildCollectionSizePredicate(node.getComparison(), path, (Integer) value)
@@ -305,7 +301,7 @@ public class JPAPredicateVisitor<T> extends AbstractVisitor<Predicate> {
                 //convert all values to the supported data-type
                 List<Comparable<?>> transformedValues =
                         ((List<Comparable<?>>) argument).stream()
-                                                        .map(v -> convertValue(v, clazz))
+                                                        .map(v -> Values.convert(v, clazz))
                                                         .collect(Collectors.toList());
                 pred = doBuildPredicate(node.getComparison(), path.as(clazz), sanitizeToComparable(transformedValues));
             }
@@ -314,22 +310,14 @@ public class JPAPredicateVisitor<T> extends AbstractVisitor<Predicate> {
                     "Unable to handle argument of type " + argument.getClass().getName());
         }
 
-        if (pred != null) {
-            predicates.add(pred);
-        } else {
+        if (pred == null) {
             throw new IllegalArgumentException("Constraint: " + node + " does not resolve to a predicate");
         }
-
+        return pred;
     }
 
-    public void visit(OperationNode node) {
-        node.getLeft().accept(this);
-        node.getRight().accept(this);
-
-        Predicate pred;
-        Predicate leftHandSide = predicates.get(predicates.size() - 2);
-        Predicate rightHandSide = predicates.get(predicates.size() - 1);
-        pred = switch (node.getOperator()) {
+    protected Predicate foldOperation(OperationNode node, Predicate leftHandSide, Predicate rightHandSide) {
+        return switch (node.getOperator()) {
             case AND -> criteriaBuilder.and(leftHandSide, rightHandSide);
             case OR -> criteriaBuilder.or(leftHandSide, rightHandSide);
             case NAND -> criteriaBuilder.or(criteriaBuilder.not(leftHandSide), criteriaBuilder.not(rightHandSide));
@@ -337,10 +325,6 @@ public class JPAPredicateVisitor<T> extends AbstractVisitor<Predicate> {
             default ->
                     throw new IllegalArgumentException("OperationNode: " + node + " does not resolve to a operation");
         };
-
-        predicates.remove(leftHandSide);
-        predicates.remove(rightHandSide);
-        predicates.add(pred);
     }
 
 }
@@ -0,0 +1,86 @@
+package org.hschott.ficum.visitor;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Access to Jackson {@link JsonNode} trees for {@link DocumentPredicateVisitor}, kept apart so Jackson is only loaded
+ * if present.
+ */
+final class JsonNodes {
+
+    private JsonNodes() {
+        // static helper
+    }
+
+    static boolean isNode(Object value) {
+        return value instanceof JsonNode;
+    }
+
+    static boolean isArray(Object node) {
+        return ((JsonNode) node).isArray();
+    }
+
+    static boolean isObject(Object node) {
+        return ((JsonNode) node).isObject();
+    }
+
+    static int size(Object node) {
+        return ((JsonNode) node).size();
+    }
+
+    static Object element(Object node, int index) {
+        return ((JsonNode) node).get(index);
+    }
+
+    static Object field(Object node, String name) {
+        return ((JsonNode) node).get(name);
+    }
+
+    /**
+     * @param value a node
+     * @return the Java value of a node, arrays as lists and objects as maps
+     */
+    static Object toValue(Object value) {
+        JsonNode node = (JsonNode) value;
+        if (node.isArray()) {
+            List<Object> list = new ArrayList<>(node.size());
+            node.forEach(element -> list.add(toValue(element)));
+            return list;
+        }
+        if (node.isObject()) {
+            Map<String, Object> map = new LinkedHashMap<>();
+            node.fields().forEachRemaining(field -> map.put(field.getKey(), toValue(field.getValue())));
+            return map;
+        }
+        return unwrap(node);
+    }
+
+    /**
+     * @param value a node
+     * @return the Java value of a scalar node, null for a null node, objects and arrays are returned as is
+     */
+    static Object unwrap(Object value) {
+        JsonNode node = (JsonNode) value;
+        if (node.isObject()) {
+            JsonNode date = node.size() == 1 ? node.get("$date") : null;
+            if (date != null) {
+                return DocumentPredicateVisitor.toDate(date.isNumber() ? date.numberValue() : date.textValue());
+            }
+            return node;
+        }
+        return switch (node.getNodeType()) {
+            case ARRAY -> node;
+            case STRING -> node.textValue();
+            case NUMBER -> node.numberValue();
+            case BOOLEAN -> node.booleanValue();
+            case NULL, MISSING -> null;
+            default -> node.asText();
+        };
+    }
+
+}
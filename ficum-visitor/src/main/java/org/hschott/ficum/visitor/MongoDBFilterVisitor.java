@@ -1,6 +1,8 @@
 package org.hschott.ficum.visitor;
 
 import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.Sorts;
 import com.mongodb.client.model.geojson.LineString;
 import com.mongodb.client.model.geojson.Point;
 import com.mongodb.client.model.geojson.Polygon;
@@ -15,9 +17,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.stream.Collectors;
 
-public class MongoDBFilterVisitor extends AbstractVisitor<Bson> {
-
-    private List<Bson> filters;
+public class MongoDBFilterVisitor extends AbstractFoldVisitor<Bson> {
 
     private Bson buildEquals(String fieldName, Comparable<?> argument) {
         Bson pred;
@@ -132,13 +132,26 @@ public class MongoDBFilterVisitor extends AbstractVisitor<Bson> {
         };
     }
 
-    public Bson start(Node node) {
-        filters = new ArrayList<>();
-        node.accept(this);
-        if (filters.size() != 1) {
-            throw new IllegalStateException("single predicate expected, but was: " + filters);
-        }
-        return filters.getFirst();
+    /**
+     * Translate a {@link Projection} into a projection document including the selected fields.
+     *
+     * @param projection the projection
+     * @return the projection document
+     */
+    public Bson getProjection(Projection projection) {
+        return Projections.include(projection.selectors().stream().map(this::getMappedField).toList());
+    }
+
+    /**
+     * Translate a {@link Sort} into a sort document.
+     *
+     * @param sort the sort
+     * @return the sort document
+     */
+    public Bson getSort(Sort sort) {
+        return Sorts.orderBy(sort.orders().stream().map(order -> order.isAscending()
+                ? Sorts.ascending(getMappedField(order.selector()))
+                : Sorts.descending(getMappedField(order.selector()))).toList());
     }
 
     private List<Position> toPositions(List<Double> arguments, boolean close) {
@@ -164,7 +177,7 @@ public class MongoDBFilterVisitor extends AbstractVisitor<Bson> {
         return arguments.stream().filter(Double.class::isInstance).map(Double.class::cast).collect(Collectors.toList());
     }
 
-    public void visit(ConstraintNode<?> node) {
+    protected Bson foldConstraint(ConstraintNode<?> node) {
         Object argument = node.getArgument();
         String fieldName = getMappedField(node.getSelector());
 
@@ -185,21 +198,14 @@ public class MongoDBFilterVisitor extends AbstractVisitor<Bson> {
                     "Unable to handle argument of type " + argument.getClass().getName());
         }
 
-        if (pred != null) {
-            filters.add(pred);
-        } else {
+        if (pred == null) {
             throw new IllegalArgumentException("Constraint: " + node + " does not resolve to a predicate");
         }
+        return pred;
     }
 
-    public void visit(OperationNode node) {
-        node.getLeft().accept(this);
-        node.getRight().accept(this);
-
-        Bson pred;
-        Bson leftHandSide = filters.get(filters.size() - 2);
-        Bson rightHandSide = filters.get(filters.size() - 1);
-        pred = switch (node.getOperator()) {
+    protected Bson foldOperation(OperationNode node, Bson leftHandSide, Bson rightHandSide) {
+        return switch (node.getOperator()) {
             case AND -> Filters.and(leftHandSide, rightHandSide);
             case OR -> Filters.or(leftHandSide, rightHandSide);
             case NAND -> Filters.or(Filters.not(leftHandSide), Filters.not(rightHandSide));
@@ -207,10 +213,6 @@ public class MongoDBFilterVisitor extends AbstractVisitor<Bson> {
             default ->
                     throw new IllegalArgumentException("OperationNode: " + node + " does not resolve to a operation");
         };
-
-        filters.remove(leftHandSide);
-        filters.remove(rightHandSide);
-        filters.add(pred);
     }
 
 }
@@ -0,0 +1,325 @@
+package org.hschott.ficum.visitor;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.hschott.ficum.node.Constraint;
+import org.hschott.ficum.node.ConstraintNode;
+import org.hschott.ficum.node.FieldPath;
+import org.hschott.ficum.node.Node;
+import org.hschott.ficum.node.OperationNode;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Filters newline delimited JSON with a {@link DocumentPredicateVisitor} predicate. Each line is read with a Jackson
+ * {@link JsonParser}, only the fields the query references are extracted, all other values are skipped without being
+ * bound. Matching lines are handed out as byte ranges of the read buffer, as they were read.
+ * <p>
+ * Input is read in large blocks, a buffer grows if a line does not fit. Lines are separated by \n, a trailing \r is
+ * dropped and blank lines are skipped. A filter is not thread-safe.
+ */
+public class NdjsonFilter {
+
+    private static final int DEFAULT_BUFFER_SIZE = 1 << 20;
+
+    private static final int OUTPUT_BUFFER_SIZE = 1 << 16;
+
+    private final JsonFactory factory = new JsonFactory();
+
+    private final Predicate<Object> predicate;
+
+    private final Fields fields = new Fields();
+
+    private int bufferSize = DEFAULT_BUFFER_SIZE;
+
+    /**
+     * @param visitor the visitor, with its field mapping
+     * @param node    the query
+     */
+    public NdjsonFilter(DocumentPredicateVisitor visitor, Node node) {
+        super();
+        Constraint.checkArgNotNull(visitor, "visitor");
+        Constraint.checkArgNotNull(node, "node");
+        this.predicate = visitor.start(node);
+        collect(visitor, node);
+    }
+
+    private static int indexOf(byte[] buffer, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (buffer[i] == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isBlank(byte[] buffer, int from, int to) {
+        for (int i = from; i < to; i++) {
+            byte b = buffer[i];
+            if (b != ' ' && b != '\t' && b != '\r') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Object readValue(JsonParser parser) throws IOException {
+        return switch (parser.currentToken()) {
+            case START_OBJECT -> {
+                Map<String, Object> map = new LinkedHashMap<>();
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String name = parser.currentName();
+                    parser.nextToken();
+                    map.put(name, readValue(parser));
+                }
+                yield map;
+            }
+            case START_ARRAY -> {
+                List<Object> list = new ArrayList<>();
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    list.add(readValue(parser));
+                }
+                yield list;
+            }
+            case VALUE_STRING -> parser.getText();
+            case VALUE_NUMBER_INT -> parser.getNumberValue();
+            case VALUE_NUMBER_FLOAT -> parser.getDoubleValue();
+            case VALUE_TRUE -> Boolean.TRUE;
+            case VALUE_FALSE -> Boolean.FALSE;
+            case VALUE_EMBEDDED_OBJECT -> parser.getEmbeddedObject();
+            default -> null;
+        };
+    }
+
+    private static Object extract(JsonParser parser, Fields fields) throws IOException {
+        if (fields.whole) {
+            return readValue(parser);
+        }
+        return switch (parser.currentToken()) {
+            case START_OBJECT -> {
+                Map<String, Object> map = new HashMap<>();
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String name = parser.currentName();
+                    Fields child = fields.children.get(name);
+                    parser.nextToken();
+                    if (child == null) {
+                        parser.skipChildren();
+                    } else {
+                        map.put(name, extract(parser, child));
+                    }
+                }
+                yield map;
+            }
+            case START_ARRAY -> {
+                if (fields.indexed) {
+                    yield readValue(parser);
+                }
+                List<Object> list = new ArrayList<>();
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    list.add(extract(parser, fields));
+                }
+                yield list;
+            }
+            default -> readValue(parser);
+        };
+    }
+
+    private void collect(DocumentPredicateVisitor visitor, Node node) {
+        switch (node) {
+            case ConstraintNode<?> constraintNode -> fields.add(visitor.getMappedPath(constraintNode.getSelector()));
+            case OperationNode operationNode -> {
+                collect(visitor, operationNode.getLeft());
+                collect(visitor, operationNode.getRight());
+            }
+            default -> throw new IllegalArgumentException("Node: " + node + " is not supported");
+        }
+    }
+
+    /**
+     * @param in      the input, it is not closed
+     * @param handler receives the matching lines
+     * @return the number of matching lines
+     * @throws IOException if reading fails, a line is no valid JSON or the handler fails
+     */
+    public long filter(InputStream in, LineHandler handler) throws IOException {
+        Constraint.checkArgNotNull(in, "in");
+        return filter(in::read, Constraint.checkArgNotNull(handler, "handler"));
+    }
+
+    /**
+     * @param in      the input, e.g. a {@link FileChannel}, it is not closed
+     * @param handler receives the matching lines
+     * @return the number of matching lines
+     * @throws IOException if reading fails, a line is no valid JSON or the handler fails
+     */
+    public long filter(ReadableByteChannel in, LineHandler handler) throws IOException {
+        Constraint.checkArgNotNull(in, "in");
+        return filter((buffer, offset, length) -> in.read(ByteBuffer.wrap(buffer, offset, length)),
+                Constraint.checkArgNotNull(handler, "handler"));
+    }
+
+    /**
+     * @param file    the input file
+     * @param handler receives the matching lines
+     * @return the number of matching lines
+     * @throws IOException if reading fails, a line is no valid JSON or the handler fails
+     */
+    public long filter(Path file, LineHandler handler) throws IOException {
+        try (FileChannel channel = FileChannel.open(Constraint.checkArgNotNull(file, "file"),
+                StandardOpenOption.READ)) {
+            return filter(channel, handler);
+        }
+    }
+
+    /**
+     * @param in  the input, it is not closed
+     * @param out receives the matching lines, each terminated by \n, it is flushed but not closed
+     * @return the number of matching lines
+     * @throws IOException if reading, writing fails or a line is no valid JSON
+     */
+    public long filter(InputStream in, OutputStream out) throws IOException {
+        BufferedOutputStream target = new BufferedOutputStream(Constraint.checkArgNotNull(out, "out"),
+                OUTPUT_BUFFER_SIZE);
+        long matches = filter(in, (buffer, offset, length) -> {
+            target.write(buffer, offset, length);
+            target.write('\n');
+        });
+        target.flush();
+        return matches;
+    }
+
+    private long filter(Reader reader, LineHandler handler) throws IOException {
+        byte[] buffer = new byte[bufferSize];
+        int start = 0;
+        int scan = 0;
+        int end = 0;
+        long matches = 0;
+        while (true) {
+            int newline = indexOf(buffer, scan, end);
+            if (newline >= 0) {
+                if (line(buffer, start, newline, handler)) {
+                    matches++;
+                }
+                start = scan = newline + 1;
+                continue;
+            }
+            scan = end;
+            if (end == buffer.length) {
+                if (start > 0) {
+                    System.arraycopy(buffer, start, buffer, 0, end - start);
+                    end -= start;
+                    scan = end;
+                    start = 0;
+                } else {
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                }
+            }
+            int read = reader.read(buffer, end, buffer.length - end);
+            if (read < 0) {
+                break;
+            }
+            end += read;
+        }
+        if (start < end && line(buffer, start, end, handler)) {
+            matches++;
+        }
+        return matches;
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    /**
+     * @param bufferSize initial size of the read buffer in bytes, defaults to 1 MiB
+     */
+    public void setBufferSize(int bufferSize) {
+        if (bufferSize < 1) {
+            throw new IllegalArgumentException("bufferSize must be positive");
+        }
+        this.bufferSize = bufferSize;
+    }
+
+    private boolean line(byte[] buffer, int from, int to, LineHandler handler) throws IOException {
+        int end = to > from && buffer[to - 1] == '\r' ? to - 1 : to;
+        if (isBlank(buffer, from, end) || !matches(buffer, from, end - from)) {
+            return false;
+        }
+        handler.accept(buffer, from, end - from);
+        return true;
+    }
+
+    /**
+     * @param buffer holds a JSON document
+     * @param offset offset of the document
+     * @param length length of the document
+     * @return true if the document matches the query
+     * @throws IOException if the document is no valid JSON
+     */
+    public boolean matches(byte[] buffer, int offset, int length) throws IOException {
+        try (JsonParser parser = factory.createParser(buffer, offset, length)) {
+            if (parser.nextToken() == null) {
+                return false;
+            }
+            return predicate.test(extract(parser, fields));
+        }
+    }
+
+    /**
+     * Receives a line of the input. The buffer is reused, the line must be consumed before returning.
+     */
+    @FunctionalInterface
+    public interface LineHandler {
+
+        void accept(byte[] buffer, int offset, int length) throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface Reader {
+
+        int read(byte[] buffer, int offset, int length) throws IOException;
+    }
+
+    /**
+     * The fields to extract, as a tree of path segments. A whole value is read completely, the arrays of an indexed
+     * value are read completely for numeric segments to index into.
+     */
+    private static final class Fields {
+
+        private final Map<String, Fields> children = new HashMap<>();
+
+        private boolean whole;
+
+        private boolean indexed;
+
+        private void add(FieldPath path) {
+            Fields current = this;
+            for (int i = 0; i < path.size() && !current.whole; i++) {
+                String segment = path.segment(i);
+                if (!segment.isEmpty() && segment.chars().allMatch(Character::isDigit)) {
+                    current.indexed = true;
+                }
+                current = current.children.computeIfAbsent(segment, s -> new Fields());
+            }
+            current.whole = true;
+            current.children.clear();
+        }
+    }
+
+}
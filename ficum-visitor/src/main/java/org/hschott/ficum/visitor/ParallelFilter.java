@@ -0,0 +1,192 @@
+package org.hschott.ficum.visitor;
+
+import org.hschott.ficum.node.Constraint;
+
+import java.io.Serial;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Filters large collections, e.g. the values of a cache, with a predicate of {@link InMemoryPredicateVisitor} or
+ * {@link CompilingPredicateVisitor} on a {@link ForkJoinPool}. The source is split into about four chunks per thread
+ * of the pool, but not into chunks of less than 1024 elements, so every thread stays busy while few partial results
+ * have to be merged. The predicate must be thread-safe. Unlike a parallel stream filtered by the predicate, the
+ * streams returned by {@link #stream(Collection)} filter on the configured pool with the same chunks.
+ * <p>
+ * Without a limit, the matching elements are returned in encounter order. With a limit, filtering stops once enough
+ * elements match and any N matching elements are returned, not necessarily the first N in encounter order.
+ *
+ * @param <T> type of the filtered objects
+ */
+public class ParallelFilter<T> {
+
+    private static final int MIN_CHUNK_SIZE = 1024;
+
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    private final Predicate<? super T> predicate;
+
+    private ForkJoinPool pool = ForkJoinPool.commonPool();
+
+    public ParallelFilter(Predicate<? super T> predicate) {
+        super();
+        this.predicate = Constraint.checkArgNotNull(predicate, "predicate");
+    }
+
+    /**
+     * @param source the elements to filter
+     * @return the matching elements in encounter order
+     */
+    public List<T> filter(Collection<? extends T> source) {
+        return filter(Constraint.checkArgNotNull(source, "source").spliterator(), Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param source the elements to filter
+     * @param limit  maximum number of matching elements
+     * @return any matching elements up to limit, not necessarily the first ones in encounter order
+     */
+    public List<T> filter(Collection<? extends T> source, int limit) {
+        return filter(Constraint.checkArgNotNull(source, "source").spliterator(), limit);
+    }
+
+    /**
+     * @param source the elements to filter, it is consumed
+     * @param limit  maximum number of matching elements
+     * @return any matching elements up to limit, not necessarily the first ones in encounter order
+     */
+    public List<T> filter(Spliterator<? extends T> source, int limit) {
+        Constraint.checkArgNotNull(source, "source");
+        if (limit < 0) {
+            throw new IllegalArgumentException("limit must not be negative");
+        }
+        if (limit == 0) {
+            return new ArrayList<>();
+        }
+
+        long size = source.estimateSize();
+        long chunkSize = size == Long.MAX_VALUE ? MIN_CHUNK_SIZE
+                : Math.max(MIN_CHUNK_SIZE, size / ((long) pool.getParallelism() * CHUNKS_PER_THREAD));
+        AtomicInteger matches = limit == Integer.MAX_VALUE ? null : new AtomicInteger();
+        List<T> result = pool.invoke(new FilterTask(source, chunkSize, matches, limit));
+        return result.size() > limit ? new ArrayList<>(result.subList(0, limit)) : result;
+    }
+
+    /**
+     * @param source the map whose values are filtered
+     * @param limit  maximum number of matching values
+     * @return any matching values up to limit
+     */
+    public List<T> filterValues(Map<?, ? extends T> source, int limit) {
+        return filter(Constraint.checkArgNotNull(source, "source").values().spliterator(), limit);
+    }
+
+    /**
+     * @param source the elements to filter
+     * @return a sequential stream of the matching elements in encounter order, filtered on the pool when the terminal
+     *         operation starts
+     */
+    public Stream<T> stream(Collection<? extends T> source) {
+        return stream(Constraint.checkArgNotNull(source, "source").spliterator());
+    }
+
+    /**
+     * @param source the elements to filter, it is consumed when the terminal operation starts
+     * @return a sequential stream of the matching elements in encounter order, filtered on the pool when the terminal
+     *         operation starts
+     */
+    public Stream<T> stream(Spliterator<? extends T> source) {
+        Constraint.checkArgNotNull(source, "source");
+        return StreamSupport.stream(() -> filter(source, Integer.MAX_VALUE).spliterator(),
+                Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED, false);
+    }
+
+    public ForkJoinPool getPool() {
+        return pool;
+    }
+
+    /**
+     * @param pool the pool to filter on, defaults to the common pool
+     */
+    public void setPool(ForkJoinPool pool) {
+        this.pool = Constraint.checkArgNotNull(pool, "pool");
+    }
+
+    /**
+     * Filters a part of the source. Prefixes are split off and forked while the part is larger than a chunk, the rest
+     * is filtered in the current thread.
+     */
+    private final class FilterTask extends RecursiveTask<List<T>> {
+
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private final transient Spliterator<? extends T> spliterator;
+
+        private final long chunkSize;
+
+        private final AtomicInteger matches;
+
+        private final int limit;
+
+        private FilterTask(Spliterator<? extends T> spliterator, long chunkSize, AtomicInteger matches, int limit) {
+            this.spliterator = spliterator;
+            this.chunkSize = chunkSize;
+            this.matches = matches;
+            this.limit = limit;
+        }
+
+        @Override
+        protected List<T> compute() {
+            List<FilterTask> prefixes = null;
+            Spliterator<? extends T> prefix;
+            while (spliterator.estimateSize() > chunkSize && (prefix = spliterator.trySplit()) != null) {
+                FilterTask task = new FilterTask(prefix, chunkSize, matches, limit);
+                task.fork();
+                if (prefixes == null) {
+                    prefixes = new ArrayList<>();
+                }
+                prefixes.add(task);
+            }
+
+            List<T> rest = new ArrayList<>();
+            if (matches == null) {
+                spliterator.forEachRemaining(element -> {
+                    if (predicate.test(element)) {
+                        rest.add(element);
+                    }
+                });
+            } else {
+                boolean more = matches.get() < limit;
+                while (more && spliterator.tryAdvance(element -> {
+                    if (predicate.test(element)) {
+                        rest.add(element);
+                        matches.incrementAndGet();
+                    }
+                })) {
+                    more = matches.get() < limit;
+                }
+            }
+
+            if (prefixes == null) {
+                return rest;
+            }
+            List<T> result = prefixes.getFirst().join();
+            for (int i = 1; i < prefixes.size(); i++) {
+                result.addAll(prefixes.get(i).join());
+            }
+            result.addAll(rest);
+            return result;
+        }
+    }
+
+}
@@ -0,0 +1,53 @@
+package org.hschott.ficum.visitor;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.GregorianCalendar;
+
+/**
+ * Converts parsed arguments to the type of the field they are compared with.
+ */
+final class Values {
+
+    private Values() {
+        // static helper
+    }
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    static Comparable<?> convert(Comparable<?> value, Class<?> clazz) {
+        // convert from string to enum
+        if (value instanceof String && clazz.isEnum()) {
+            value = Enum.valueOf((Class<? extends Enum>) clazz, value.toString());
+        }
+
+        // convert date and time types
+        if (value instanceof LocalDate && clazz.isAssignableFrom(Date.class)) {
+            value = Date.from(((LocalDate) value).atStartOfDay()
+                    .atZone(ZoneId.of("UTC"))
+                    .toInstant());
+        }
+
+        if (value instanceof LocalDate && clazz.isAssignableFrom(Calendar.class)) {
+            value = GregorianCalendar.from(((LocalDate) value).atStartOfDay()
+                    .atZone(ZoneId.of("UTC")));
+        }
+
+        if (value instanceof LocalDate && clazz.isAssignableFrom(OffsetDateTime.class)) {
+            value = OffsetDateTime.from(((LocalDate) value).atStartOfDay()
+                    .atZone(ZoneId.of("UTC")));
+        }
+
+        if (value instanceof OffsetDateTime && clazz.isAssignableFrom(Date.class)) {
+            value = Date.from(((OffsetDateTime) value).toInstant());
+        }
+
+        if (value instanceof OffsetDateTime && clazz.isAssignableFrom(Calendar.class)) {
+            value = GregorianCalendar.from(((OffsetDateTime) value).toZonedDateTime());
+        }
+        return value;
+    }
+
+}
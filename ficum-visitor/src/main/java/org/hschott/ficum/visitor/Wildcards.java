@@ -1,31 +1,45 @@
 package org.hschott.ficum.visitor;
 
-import java.util.regex.Pattern;
-
 public class Wildcards {
 
-    private static final Pattern SPECIAL_REGEX_CHARS = Pattern.compile("[{}()\\[\\].+^$\\\\|]");
+    private static final String SPECIAL_REGEX_CHARS = "{}()[].+^$\\|";
 
     private Wildcards() {
         // static helper
     }
 
     public static String escapeAndConvertToRegexWildcards(String value, boolean alwaysWildcard) {
-        String ret = SPECIAL_REGEX_CHARS.matcher(value).replaceAll("\\\\$0").replaceAll("\\*", ".*").replaceAll("\\?",
-                ".?");
-        return alwaysWildcard ? ".*" + ret + ".*" : "^" + ret + "$";
+        StringBuilder ret = new StringBuilder(value.length() + 8).append(alwaysWildcard ? ".*" : "^");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '*') {
+                ret.append(".*");
+            } else if (c == '?') {
+                ret.append(".?");
+            } else {
+                if (SPECIAL_REGEX_CHARS.indexOf(c) >= 0) {
+                    ret.append('\\');
+                }
+                ret.append(c);
+            }
+        }
+        return ret.append(alwaysWildcard ? ".*" : "$").toString();
     }
 
     public static String escapeAndConvertToSQLWildcards(String value, boolean alwaysWildcard) {
-        String ret = value.replaceAll("\\\\", "\\\\\\\\") // escape 'sql escape'
-                                                          // char
-                .replaceAll("_", "\\\\_").replaceAll("%", "\\\\%") // escape sql
-                                                                   // wildcards
-                .replaceAll("\\*", "%").replaceAll("\\?", "_"); // replace rql
-                                                                // wildcard with
-                                                                // sql wildcard
-
-        return alwaysWildcard ? "%" + ret + "%" : ret;
+        StringBuilder ret = new StringBuilder(value.length() + 8).append(alwaysWildcard ? "%" : "");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                // escape 'sql escape' char and sql wildcards
+                case '\\', '_', '%' -> ret.append('\\').append(c);
+                // replace rql wildcard with sql wildcard
+                case '*' -> ret.append('%');
+                case '?' -> ret.append('_');
+                default -> ret.append(c);
+            }
+        }
+        return ret.append(alwaysWildcard ? "%" : "").toString();
     }
 
 }
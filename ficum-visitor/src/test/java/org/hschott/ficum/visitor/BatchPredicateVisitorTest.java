@@ -0,0 +1,206 @@
+package org.hschott.ficum.visitor;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hschott.ficum.node.Node;
+import org.hschott.ficum.parser.ParseHelper;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+public class BatchPredicateVisitorTest {
+
+    private static final List<Restaurant> restaurants = new ArrayList<>();
+
+    private static ColumnBatch batch;
+
+    private final String[] allowedSelectorNames = {"name", "borough", "address.street", "address.zipcode",
+            "grade.date", "grade.score"};
+
+    private BatchPredicateVisitor visitor;
+
+    private InMemoryPredicateVisitor<Restaurant> interpreter;
+
+    @BeforeClass
+    public static void setUpClass() throws IOException, URISyntaxException {
+        File input = new File(ClassLoader.getSystemResource("db/mongodb/dataset.json").toURI());
+        ObjectMapper objectMapper = new ObjectMapper();
+        try (BufferedReader reader = new BufferedReader(new FileReader(input))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                restaurants.add(objectMapper.readValue(line, Restaurant.class));
+            }
+        }
+
+        int size = restaurants.size();
+        batch = new ColumnBatch(size);
+        addStringColumn("name", restaurants.stream().map(Restaurant::getName).toList());
+        addStringColumn("borough", restaurants.stream().map(Restaurant::getBorough).toList());
+        addStringColumn("address.street", restaurants.stream().map(r -> r.getAddress().getStreet()).toList());
+        addStringColumn("address.zipcode", restaurants.stream().map(r -> r.getAddress().getZipcode()).toList());
+
+        long[] scores = new long[size];
+        long[] dates = new long[size];
+        BitSet scoreNulls = new BitSet(size);
+        BitSet dateNulls = new BitSet(size);
+        for (int i = 0; i < size; i++) {
+            Restaurant.Grade grade = restaurants.get(i).getGrade();
+            if (grade == null || grade.getScore() == null) {
+                scoreNulls.set(i);
+            } else {
+                scores[i] = grade.getScore();
+            }
+            if (grade == null || grade.getDate() == null) {
+                dateNulls.set(i);
+            } else {
+                dates[i] = grade.getDate().getTime();
+            }
+        }
+        batch.addLongColumn("grade.score", scores, toBitmap(scoreNulls, size));
+        batch.addLongColumn("grade.date", dates, toBitmap(dateNulls, size));
+    }
+
+    private static long[] toBitmap(BitSet bitSet, int size) {
+        long[] bits = new long[ColumnBatch.words(size)];
+        long[] words = bitSet.toLongArray();
+        System.arraycopy(words, 0, bits, 0, words.length);
+        return bits;
+    }
+
+    private static void addStringColumn(String field, List<String> values) {
+        Map<String, Integer> dictionary = new LinkedHashMap<>();
+        int[] codes = new int[values.size()];
+        for (int i = 0; i < codes.length; i++) {
+            String value = values.get(i);
+            codes[i] = value == null ? -1 : dictionary.computeIfAbsent(value, key -> dictionary.size());
+        }
+        batch.addStringColumn(field, codes, dictionary.keySet().toArray(new String[0]));
+    }
+
+    private long count(String input) {
+        Node node = ParseHelper.parse(input, allowedSelectorNames);
+        Function<ColumnBatch, long[]> select = visitor.start(node);
+        long count = BitSet.valueOf(select.apply(batch)).cardinality();
+        Assert.assertEquals(input, restaurants.stream().filter(interpreter.start(node)).count(), count);
+        return count;
+    }
+
+    @Before
+    public void setUp() {
+        visitor = new BatchPredicateVisitor();
+        interpreter = new InMemoryPredicateVisitor<>(Restaurant.class);
+    }
+
+    @Test
+    public void testAlwaysWildcardPredicate() {
+        visitor.setAlwaysWildcard(true);
+        interpreter.setAlwaysWildcard(true);
+        Assert.assertEquals(53, count("name=='Kitchen'"));
+    }
+
+    @Test
+    public void testAndPredicate() {
+        Assert.assertEquals(2, count("borough=='Manhattan',address.street=='11 Avenue'"));
+        Assert.assertEquals(3, count("borough=='Manhattan',address.street=='11 Avenue';address.street=='East   74 "
+                + "Street',name=='Glorious Food'"));
+    }
+
+    @Test
+    public void testNumbersAndDates() {
+        Assert.assertEquals(306, count("grade.date=ge=2015-01-01,grade.score=gt=1"));
+        Assert.assertEquals(306, count("grade.date=ge=2015-01-01T00:00:00.000Z,grade.score=gt=1"));
+        count("grade.score==10");
+        count("grade.score!=10");
+        count("grade.score=lt=10.5");
+        count("grade.score=in=[2,4,8]");
+        count("grade.score=nin=[2,4,8]");
+    }
+
+    @Test
+    public void testNull() {
+        Assert.assertEquals(1, count("address.zipcode==null"));
+        Assert.assertEquals(4998, count("address.zipcode!=null"));
+    }
+
+    @Test
+    public void testNegatedOperations() {
+        Assert.assertEquals(2574, count("borough!='Manhattan'.name!='*Cafe'"));
+        Assert.assertEquals(4750, count("name=='*Kitchen':name=='*Cafe'"));
+        Assert.assertEquals(2511, count("borough!='Manhattan'"));
+    }
+
+    @Test
+    public void testIn() {
+        Assert.assertEquals(3475, count("borough=in=['Queens','Manhattan']"));
+        Assert.assertEquals(1524, count("borough=nin=['Queens','Manhattan']"));
+        Assert.assertEquals(4012, count("borough=nin=['Queens']"));
+    }
+
+    @Test
+    public void testInIsExact() {
+        Assert.assertEquals(0, count("name=in=['*Kitchen','Caf?']"));
+        Assert.assertEquals(4999, count("name=nin=['*Kitchen','Caf?']"));
+        visitor.setAlwaysWildcard(true);
+        interpreter.setAlwaysWildcard(true);
+        Assert.assertEquals(1380, count("borough=in=['Queens','Bronx','Queens']"));
+        Assert.assertEquals(0, count("borough=in=['Queen']"));
+    }
+
+    @Test
+    public void testInNumbersAndNull() {
+        count("grade.score=in=[10.0,2,null]");
+        count("grade.score=nin=[10.5,null]");
+        Assert.assertEquals(1, count("address.zipcode=in=[null,'no zipcode']"));
+    }
+
+    @Test
+    public void testTextOrdering() {
+        count("name=ge='M',name=lt='N'");
+    }
+
+    @Test
+    public void testDoubleColumn() {
+        ColumnBatch prices = new ColumnBatch(70);
+        double[] values = new double[70];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = i / 2.0;
+        }
+        long[] nulls = new long[ColumnBatch.words(70)];
+        nulls[1] = 1L << 5;
+        prices.addDoubleColumn("price", values, nulls);
+
+        Function<ColumnBatch, long[]> select = visitor.start(ParseHelper.parse("price=gt=30", "price"));
+        // 30.5 to 34.5 without the null row 69
+        Assert.assertEquals(8, BitSet.valueOf(select.apply(prices)).cardinality());
+        select = visitor.start(ParseHelper.parse("price!=30", "price"));
+        Assert.assertEquals(69, BitSet.valueOf(select.apply(prices)).cardinality());
+        select = visitor.start(ParseHelper.parse("price=in=[0,-0.0,2,2.5,null]", "price"));
+        // 0.0, 2.0 and 2.5 and the null row
+        Assert.assertEquals(4, BitSet.valueOf(select.apply(prices)).cardinality());
+        select = visitor.start(ParseHelper.parse("price==null", "price"));
+        Assert.assertEquals(BitSet.valueOf(nulls), BitSet.valueOf(select.apply(prices)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testColumnMissing() {
+        visitor.start(ParseHelper.parse("cuisine=='Bakery'", "cuisine")).apply(batch);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testGeoNotSupported() {
+        visitor.start(ParseHelper.parse("name=wi=[1.0,2.0,3.0]", allowedSelectorNames));
+    }
+
+}
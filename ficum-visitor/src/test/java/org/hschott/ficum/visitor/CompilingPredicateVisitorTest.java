@@ -0,0 +1,197 @@
+package org.hschott.ficum.visitor;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hschott.ficum.node.Node;
+import org.hschott.ficum.parser.ParseHelper;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.samples.petclinic.model.Owner;
+import org.springframework.samples.petclinic.model.Pet;
+import org.springframework.samples.petclinic.model.Visit;
+import org.springframework.samples.petclinic.model.VisitType;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+public class CompilingPredicateVisitorTest {
+
+    private static final List<Restaurant> restaurants = new ArrayList<>();
+
+    private final String[] allowedSelectorNames = {"name", "borough", "address.street", "address.zipcode",
+            "grade.date", "grade.score"};
+
+    private final String[] allowedVisitSelectorNames = {"type", "description", "pet.name", "pet.id",
+            "pet.owner.firstName"};
+
+    private CompilingPredicateVisitor<Restaurant> visitor;
+
+    private InMemoryPredicateVisitor<Restaurant> interpreter;
+
+    private CompilingPredicateVisitor<Visit> visitVisitor;
+
+    private List<Visit> visits;
+
+    @BeforeClass
+    public static void setUpClass() throws IOException, URISyntaxException {
+        File input = new File(ClassLoader.getSystemResource("db/mongodb/dataset.json").toURI());
+        ObjectMapper objectMapper = new ObjectMapper();
+        try (BufferedReader reader = new BufferedReader(new FileReader(input))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                restaurants.add(objectMapper.readValue(line, Restaurant.class));
+            }
+        }
+    }
+
+    private static Visit visit(VisitType type, String pet, Integer id, String owner) {
+        Visit visit = new Visit();
+        visit.setType(type);
+        if (pet != null) {
+            Pet p = new Pet();
+            p.setName(pet);
+            p.setId(id);
+            if (owner != null) {
+                Owner person = new Owner();
+                person.setFirstName(owner);
+                person.addPet(p);
+            }
+            visit.setPet(p);
+        }
+        return visit;
+    }
+
+    private long count(String input) {
+        Node node = ParseHelper.parse(input, allowedSelectorNames);
+        Predicate<Restaurant> predicate = visitor.start(node);
+        long count = restaurants.stream().filter(predicate).count();
+        Assert.assertEquals(input, restaurants.stream().filter(interpreter.start(node)).count(), count);
+        return count;
+    }
+
+    private long countVisits(String input) {
+        Predicate<Visit> predicate = visitVisitor.start(ParseHelper.parse(input, allowedVisitSelectorNames));
+        Assert.assertTrue(predicate.getClass().isHidden());
+        return visits.stream().filter(predicate).count();
+    }
+
+    @Before
+    public void setUp() {
+        visitor = new CompilingPredicateVisitor<>(Restaurant.class);
+        interpreter = new InMemoryPredicateVisitor<>(Restaurant.class);
+        visitVisitor = new CompilingPredicateVisitor<>(Visit.class);
+        visits = List.of(visit(VisitType.SCHEDULED, "Chuck", 1, "Jeff"), visit(VisitType.EMERGENCY, "Max", 2, null),
+                visit(VisitType.SCHEDULED, "Lucky", 3, "Jeff"), visit(VisitType.EMERGENCY, null, null, null));
+    }
+
+    @Test
+    public void testAlwaysWildcardPredicate() {
+        visitor.setAlwaysWildcard(true);
+        interpreter.setAlwaysWildcard(true);
+        Assert.assertEquals(53, count("name=='Kitchen'"));
+    }
+
+    @Test
+    public void testAndPredicate() {
+        Assert.assertEquals(2, count("borough=='Manhattan',address.street=='11 Avenue'"));
+        Assert.assertEquals(3, count("borough=='Manhattan',address.street=='11 Avenue';address.street=='East   74 "
+                + "Street',name=='Glorious Food'"));
+    }
+
+    @Test
+    public void testNumbers() {
+        Assert.assertEquals(306, count("grade.date=ge=2015-01-01,grade.score=gt=1"));
+        count("grade.score==10");
+        count("grade.score!=10");
+        count("grade.score=le=10L");
+        count("grade.score=lt=10.5");
+        count("grade.score=ge=9.5,grade.score=le=11");
+    }
+
+    @Test
+    public void testStringOrdering() {
+        count("name=ge='M',name=lt='N'");
+        count("borough=gt='Manhattan'");
+    }
+
+    @Test
+    public void testNull() {
+        Assert.assertEquals(1, count("address.zipcode==null"));
+        Assert.assertEquals(4998, count("address.zipcode!=null"));
+        count("address.zipcode=='10019'");
+        count("address.zipcode!='10019'");
+    }
+
+    @Test
+    public void testNegatedOperations() {
+        Assert.assertEquals(2574, count("borough!='Manhattan'.name!='*Cafe'"));
+        Assert.assertEquals(4750, count("name=='*Kitchen':name=='*Cafe'"));
+        Assert.assertEquals(2511, count("borough!='Manhattan'"));
+    }
+
+    @Test
+    public void testInterpretedConstraints() {
+        Assert.assertEquals(3475, count("borough=in=['Queens','Manhattan']"));
+        Assert.assertEquals(141, count("(name=='*Kitchen';name=='*Cafe'),borough=='Manhattan'"));
+    }
+
+    @Test
+    public void testSharedClass() {
+        Predicate<Restaurant> manhattan = visitor.start(ParseHelper.parse("borough=='Manhattan',grade.score=gt=1",
+                allowedSelectorNames));
+        Predicate<Restaurant> queens = visitor.start(ParseHelper.parse("borough=='Queens',grade.score=gt=5",
+                allowedSelectorNames));
+        Predicate<Restaurant> other = visitor.start(ParseHelper.parse("borough=='Queens',grade.score=gt=5.0",
+                allowedSelectorNames));
+
+        Assert.assertTrue(manhattan.getClass().isHidden());
+        Assert.assertSame(manhattan.getClass(), queens.getClass());
+        Assert.assertNotSame(manhattan.getClass(), other.getClass());
+    }
+
+    @Test
+    public void testMaxShapes() {
+        Node cached = ParseHelper.parse("address.zipcode=ge='1',grade.score=le=20", allowedSelectorNames);
+        Node uncached = ParseHelper.parse("address.zipcode=lt='1',grade.score=ge=20", allowedSelectorNames);
+        // a compiled class is a nestmate of the query class, interpreted lambdas are not
+        Assert.assertSame(Restaurant.class, visitor.start(cached).getClass().getNestHost());
+
+        visitor.setMaxShapes(0);
+        Assert.assertSame(Restaurant.class, visitor.start(cached).getClass().getNestHost());
+        Predicate<Restaurant> interpreted = visitor.start(uncached);
+        Assert.assertNotSame(Restaurant.class, interpreted.getClass().getNestHost());
+        Assert.assertEquals(restaurants.stream().filter(interpreter.start(uncached)).count(),
+                restaurants.stream().filter(interpreted).count());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeMaxShapes() {
+        visitor.setMaxShapes(-1);
+    }
+
+    @Test
+    public void testEnumAndInheritedFields() {
+        Assert.assertEquals(2, countVisits("type=='EMERGENCY'"));
+        Assert.assertEquals(2, countVisits("type!='EMERGENCY'"));
+        Assert.assertEquals(1, countVisits("pet.name=='Max'"));
+        Assert.assertEquals(3, countVisits("pet.name!='Max'"));
+        Assert.assertEquals(2, countVisits("pet.id=ge=2"));
+        Assert.assertEquals(2, countVisits("pet.owner.firstName=='Jeff'"));
+        Assert.assertEquals(2, countVisits("pet.owner.firstName==null"));
+        Assert.assertEquals(1, countVisits("pet.owner.firstName==null,pet.name!=null"));
+        Assert.assertEquals(1, countVisits("type=='SCHEDULED',pet.name=='L*'"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testFieldUnknown() {
+        visitVisitor.start(ParseHelper.parse("unknown==1", "unknown"));
+    }
+
+}
@@ -0,0 +1,159 @@
+package org.hschott.ficum.visitor;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hschott.ficum.parser.ParseHelper;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+public class DocumentPredicateVisitorTest {
+
+    private static final List<Object> maps = new ArrayList<>();
+
+    private static final List<Object> nodes = new ArrayList<>();
+
+    private static final String[] allowedSelectorNames = {"name", "borough", "cuisine", "address.location",
+            "address.street", "address.zipcode", "grades.date", "grades.score", "grades.0.grade", "tags"};
+
+    @BeforeClass
+    public static void setUpClass() throws IOException, URISyntaxException {
+        File input = new File(ClassLoader.getSystemResource("db/mongodb/dataset.json").toURI());
+        ObjectMapper objectMapper = new ObjectMapper();
+        try (BufferedReader reader = new BufferedReader(new FileReader(input))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                maps.add(objectMapper.readValue(line, Map.class));
+                nodes.add(objectMapper.readTree(line));
+            }
+        }
+    }
+
+    private static Predicate<Object> predicate(String input, boolean alwaysWildcard) {
+        DocumentPredicateVisitor visitor = new DocumentPredicateVisitor();
+        visitor.setAlwaysWildcard(alwaysWildcard);
+        return visitor.start(ParseHelper.parse(input, allowedSelectorNames));
+    }
+
+    private static void assertCount(int expected, String input) {
+        assertCount(expected, input, false);
+    }
+
+    private static void assertCount(int expected, String input, boolean alwaysWildcard) {
+        Predicate<Object> predicate = predicate(input, alwaysWildcard);
+        Assert.assertEquals(input, expected, maps.stream().filter(predicate).count());
+        Assert.assertEquals(input, expected, nodes.stream().filter(predicate).count());
+    }
+
+    @Test
+    public void testAlwaysWildcard() {
+        assertCount(53, "name=='Kitchen'", true);
+    }
+
+    @Test
+    public void testAndOperations() {
+        assertCount(2, "borough=='Manhattan',address.street=='11 Avenue'");
+        assertCount(1, "borough=='Manhattan',address.street=='11 Avenue',name=='Mcquaids Public House'");
+        assertCount(3, "borough=='Manhattan',address.street=='11 Avenue';address.street=='East   74 Street',"
+                + "name=='Glorious Food'");
+    }
+
+    @Test
+    public void testArrayElements() {
+        assertCount(11, "grades.date=ge=2015-01-01,grades.score=lt=1");
+        assertCount(11, "grades.date=ge=2015-01-01T00:00:00.000Z,grades.score=lt=1");
+    }
+
+    @Test
+    public void testNandNorOperations() {
+        assertCount(2574, "borough!='Manhattan'.name!='*Cafe'");
+        assertCount(4750, "name=='*Kitchen':name=='*Cafe'");
+    }
+
+    @Test
+    public void testNullAndNotEquals() {
+        assertCount(2511, "borough!='Manhattan'");
+        assertCount(1, "address.zipcode==null");
+        assertCount(4998, "address.zipcode!=null");
+    }
+
+    @Test
+    public void testInAndNin() {
+        assertCount(3475, "borough=in=['Queens','Manhattan']");
+        assertCount(987, "borough=in=['Queens']");
+        assertCount(1524, "borough=nin=['Queens','Manhattan']");
+        assertCount(4012, "borough=nin=['Queens']");
+    }
+
+    @Test
+    public void testOrOperations() {
+        assertCount(44, "name=='*Kitchen'");
+        assertCount(249, "name=='*Kitchen';name=='*Cafe'");
+        assertCount(141, "(name=='*Kitchen';name=='*Cafe'),borough=='Manhattan'");
+    }
+
+    @Test
+    public void testNestedLists() {
+        Map<String, Object> document = Map.of(
+                "grades", List.of(Map.of("grade", "A", "date", new Date(0)), Map.of("grade", "B")),
+                "tags", List.of("vegan", 'x', 3L));
+
+        Assert.assertTrue(predicate("grades.0.grade=='A'", false).test(document));
+        Assert.assertFalse(predicate("grades.0.grade=='B'", false).test(document));
+        Assert.assertTrue(predicate("grades.date==1970-01-01", false).test(document));
+        Assert.assertTrue(predicate("tags=='veg*'", false).test(document));
+        Assert.assertTrue(predicate("tags=='x'", false).test(document));
+        Assert.assertTrue(predicate("tags=in=[3,'y']", false).test(document));
+        Assert.assertTrue(predicate("tags=gt=2", false).test(document));
+        Assert.assertFalse(predicate("tags=='vegetarian'", false).test(document));
+        Assert.assertTrue(predicate("tags!='vegetarian'", false).test(document));
+        Assert.assertFalse(predicate("tags==null", false).test(document));
+        Assert.assertTrue(predicate("name==null", false).test(document));
+    }
+
+    @Test
+    public void testJsonNodeScalars() throws IOException {
+        JsonNode node = new ObjectMapper().readTree("{\"name\":\"Cafe\",\"address\":{\"zipcode\":null},"
+                + "\"grades\":[{\"date\":\"2015-02-03T10:00:00Z\",\"score\":2.5}]}");
+
+        Assert.assertTrue(predicate("address.zipcode==null", false).test(node));
+        Assert.assertTrue(predicate("grades.date=gt=2015-02-03", false).test(node));
+        Assert.assertTrue(predicate("grades.score=gt=2", false).test(node));
+        Assert.assertFalse(predicate("grades.score=gt=2.5", false).test(node));
+        Assert.assertFalse(predicate("name=='Kitchen'", false).test(node));
+    }
+
+    private static void assertGeoCount(int expected, String comparison) {
+        assertCount(expected, "address.location" + comparison);
+    }
+
+    @Test
+    public void testGeospatial() {
+        // the same counts as in MongoDB
+        assertGeoCount(4, "=nr=[-73.856077,40.848447,500.0]");
+        assertGeoCount(2, "=nr=[-73.856077,40.899447,400.0,10.0]");
+        assertGeoCount(10, "=wi=[-73.856077,40.848447,-73.84856870000002,40.8903781]");
+        assertGeoCount(4, "=wi=[-73.856077,40.848447," + 500 / (6371.2 * 1000) + "]");
+        assertGeoCount(24, "=wi=[-73.856077,40.848447,-73.8786113,40.8502883,-73.84856870000002,40.8903781]");
+        assertGeoCount(24, "=ix=[-73.856077,40.848447,-73.8786113,40.8502883,-73.84856870000002,40.8903781]");
+        assertGeoCount(1, "=ix=[-73.7032601,40.7386417]");
+        assertGeoCount(2, "=ix=[-74.0259567,40.6353674,-73.9246028,40.6522396]");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testGeoArguments() {
+        predicate("address.location=ix=[-74.0259567,40.6353674,-73.9246028]", false);
+    }
+
+}
@@ -0,0 +1,93 @@
+package org.hschott.ficum.visitor;
+
+import org.hschott.ficum.node.Comparison;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+public class GeoShapeTest {
+
+    private static GeoShape shape(Comparison comparison, Double... arguments) {
+        return GeoShape.of(comparison, Arrays.asList(arguments));
+    }
+
+    private static void assertBounds(GeoShape shape, double x, double y) {
+        double[] bounds = shape.bounds();
+        if (shape.contains(x, y)) {
+            Assert.assertTrue(x >= bounds[0] && y >= bounds[1] && x <= bounds[2] && y <= bounds[3]);
+        }
+    }
+
+    @Test
+    public void testDistance() {
+        // a degree of latitude
+        Assert.assertEquals(Math.toRadians(1) * GeoShape.EARTH_RADIUS, GeoShape.distance(13.4, 52.0, 13.4, 53.0),
+                1e-6);
+        Assert.assertEquals(0, GeoShape.distance(13.4, 52.5, 13.4, 52.5), 0);
+        Assert.assertEquals(Math.PI * GeoShape.EARTH_RADIUS, GeoShape.distance(0, 0, 180, 0), 1);
+    }
+
+    @Test
+    public void testArguments() {
+        Assert.assertNull(shape(Comparison.NEAR, 1.0, 2.0));
+        Assert.assertNull(shape(Comparison.WITHIN, 1.0, 2.0));
+        Assert.assertNull(shape(Comparison.WITHIN, 1.0, 2.0, 3.0, 4.0, 5.0));
+        Assert.assertNull(shape(Comparison.INTERSECT, 1.0, 2.0, 3.0));
+        Assert.assertNull(shape(Comparison.EQUALS, 1.0, 2.0));
+        // only Double arguments count
+        Assert.assertNull(GeoShape.of(Comparison.INTERSECT, List.of(1.0, 2L)));
+    }
+
+    @Test
+    public void testPoints() {
+        GeoShape box = shape(Comparison.WITHIN, 0.0, 0.0, 2.0, 2.0);
+        Assert.assertTrue(box.matches(new double[]{1, 1}));
+        Assert.assertTrue(box.matches(new Double[]{1.0, 1.0}));
+        Assert.assertTrue(box.matches(List.of(1, 2)));
+        Assert.assertTrue(box.matches(Map.of("type", "Point", "coordinates", List.of(2.0, 0.0))));
+        Assert.assertTrue(box.matches(List.of(List.of(5.0, 5.0), List.of(1.0, 1.0))));
+        Assert.assertFalse(box.matches(List.of(3.0, 1.0)));
+        Assert.assertFalse(box.matches("1,1"));
+        Assert.assertFalse(box.matches(null));
+    }
+
+    @Test
+    public void testPolygon() {
+        // a concave polygon like a U
+        GeoShape polygon = shape(Comparison.WITHIN, 0.0, 0.0, 3.0, 0.0, 3.0, 3.0, 2.0, 3.0, 2.0, 1.0, 1.0, 1.0, 1.0,
+                3.0, 0.0, 3.0);
+        Assert.assertTrue(polygon.contains(0.5, 2.5));
+        Assert.assertTrue(polygon.contains(2.5, 2.5));
+        Assert.assertFalse(polygon.contains(1.5, 2.5));
+        Assert.assertTrue(polygon.contains(1.5, 1.0));
+        Assert.assertTrue(polygon.contains(0.0, 0.0));
+        Assert.assertFalse(polygon.contains(3.5, 0.5));
+    }
+
+    @Test
+    public void testLine() {
+        GeoShape line = shape(Comparison.INTERSECT, 0.0, 0.0, 2.0, 1.0);
+        Assert.assertTrue(line.contains(1.0, 0.5));
+        Assert.assertTrue(line.contains(2.0, 1.0));
+        Assert.assertFalse(line.contains(1.0, 0.6));
+        Assert.assertFalse(line.contains(4.0, 2.0));
+    }
+
+    @Test
+    public void testBounds() {
+        Random random = new Random(42);
+        GeoShape[] shapes = {shape(Comparison.NEAR, 13.4, 52.5, 250_000.0),
+                shape(Comparison.NEAR, 179.5, 10.0, 200_000.0, 1000.0), shape(Comparison.NEAR, 0.0, 88.0, 500_000.0),
+                shape(Comparison.WITHIN, -70.0, -40.0, 0.3), shape(Comparison.WITHIN, 10.0, 10.0, 12.0, 12.0)};
+        for (GeoShape shape : shapes) {
+            for (int i = 0; i < 100_000; i++) {
+                assertBounds(shape, random.nextDouble() * 360 - 180, random.nextDouble() * 180 - 90);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,93 @@
+package org.hschott.ficum.visitor;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.regex.Pattern;
+
+public class GlobMatcherTest {
+
+    private static String random(Random random, String alphabet, int maxLength) {
+        StringBuilder text = new StringBuilder();
+        for (int i = random.nextInt(maxLength + 1); i > 0; i--) {
+            text.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return text.toString();
+    }
+
+    /**
+     * The regular expression with '.' matching line terminators and '$' only matching at the end of the input.
+     */
+    private static Pattern regex(String glob, boolean alwaysWildcard) {
+        String regex = Wildcards.escapeAndConvertToRegexWildcards(glob, alwaysWildcard);
+        if (regex.endsWith("$")) {
+            regex = regex.substring(0, regex.length() - 1) + "\\z";
+        }
+        return Pattern.compile(regex, Pattern.DOTALL);
+    }
+
+    @Test
+    public void testRegexParity() {
+        Random random = new Random(42);
+        for (int i = 0; i < 2000; i++) {
+            String glob = random(random, "ab.*?\n", 6);
+            boolean alwaysWildcard = random.nextInt(4) == 0;
+            GlobMatcher matcher = GlobMatcher.compile(glob, alwaysWildcard, false);
+            Pattern pattern = regex(glob, alwaysWildcard);
+            for (int j = 0; j < 50; j++) {
+                String text = random(random, "ab.\n", 8);
+                Assert.assertEquals(glob + " " + text, pattern.matcher(text).find(), matcher.matches(text));
+            }
+        }
+    }
+
+    @Test
+    public void testLineTerminators() {
+        Assert.assertTrue(GlobMatcher.compile("a*b").matches("a\nb"));
+        Assert.assertTrue(GlobMatcher.compile("a?b").matches("a\nb"));
+        Assert.assertFalse(GlobMatcher.compile("ab").matches("ab\n"));
+        // unlike the regular expression MongoDB evaluates
+        Assert.assertFalse(Pattern.compile(Wildcards.escapeAndConvertToRegexWildcards("a*b", false)).matcher("a\nb")
+                .find());
+        Assert.assertTrue(Pattern.compile(Wildcards.escapeAndConvertToRegexWildcards("ab", false)).matcher("ab\n")
+                .find());
+    }
+
+    @Test
+    public void testFastPaths() {
+        Assert.assertTrue(GlobMatcher.compile("abc").matches("abc"));
+        Assert.assertFalse(GlobMatcher.compile("abc").matches("abcd"));
+        Assert.assertTrue(GlobMatcher.compile("abc*").matches("abcd"));
+        Assert.assertFalse(GlobMatcher.compile("abc*").matches("ab"));
+        Assert.assertTrue(GlobMatcher.compile("*abc").matches("xabc"));
+        Assert.assertFalse(GlobMatcher.compile("*abc").matches("abcx"));
+        Assert.assertTrue(GlobMatcher.compile("*abc*").matches("xabcx"));
+        Assert.assertTrue(GlobMatcher.compile("abc", true, false).matches("xabcx"));
+        Assert.assertTrue(GlobMatcher.compile("a*b*a").matches("aba"));
+        Assert.assertFalse(GlobMatcher.compile("ab*ba").matches("aba"));
+        Assert.assertTrue(GlobMatcher.compile("*").matches(""));
+        Assert.assertTrue(GlobMatcher.compile("").matches(""));
+        Assert.assertFalse(GlobMatcher.compile("").matches("a"));
+        Assert.assertFalse(GlobMatcher.compile("*").matches(null));
+    }
+
+    @Test
+    public void testIgnoreCase() {
+        Assert.assertTrue(GlobMatcher.compile("LUCKY", false, true).matches("lucky"));
+        Assert.assertTrue(GlobMatcher.compile("lu*", false, true).matches("Luke"));
+        Assert.assertTrue(GlobMatcher.compile("*UKE", false, true).matches("luke"));
+        Assert.assertTrue(GlobMatcher.compile("ck", true, true).matches("LUCKY"));
+        Assert.assertTrue(GlobMatcher.compile("l?c?y", false, true).matches("LUCKY"));
+        Assert.assertFalse(GlobMatcher.compile("l?c?y", false, false).matches("LUCKY"));
+    }
+
+    @Test(timeout = 5000)
+    public void testNoBacktracking() {
+        String text = "a".repeat(100_000);
+        Assert.assertFalse(GlobMatcher.compile("*a*a*a*a*a*a*a*b").matches(text));
+        Assert.assertFalse(GlobMatcher.compile("a?a?a?a?a?*b").matches(text));
+        Assert.assertTrue(GlobMatcher.compile("a?a?a?a?a?*a").matches(text));
+    }
+
+}
@@ -5,8 +5,12 @@ import com.hazelcast.config.*;
 import com.hazelcast.core.Hazelcast;
 import com.hazelcast.core.HazelcastInstance;
 import com.hazelcast.map.IMap;
+import com.hazelcast.query.PagingPredicate;
 import com.hazelcast.query.Predicate;
+import com.hazelcast.query.Predicates;
 import org.hschott.ficum.node.Node;
+import org.hschott.ficum.node.Projection;
+import org.hschott.ficum.node.Sort;
 import org.hschott.ficum.parser.ParseHelper;
 import org.junit.Assert;
 import org.junit.Before;
@@ -19,6 +23,9 @@ import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
 import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 
 public class HazelcastPredicateVisitorTest {
 
@@ -80,6 +87,41 @@ public class HazelcastPredicateVisitorTest {
         visitor = new HazelcastPredicateVisitor();
     }
 
+    @Test
+    public void testProjection() {
+        String input = "borough=='Manhattan',address.street=='11 Avenue'";
+
+        Node node = ParseHelper.parse(input, allowedSelectorNames);
+        Predicate query = visitor.start(node);
+        Projection projection = ParseHelper.parseProjection("name,address.street", allowedSelectorNames);
+        Collection<Object[]> results = getMap().project(visitor.getProjection(projection), query);
+
+        Assert.assertEquals(2, results.size());
+        for (Object[] result : results) {
+            Assert.assertEquals(2, result.length);
+            Assert.assertEquals("11 Avenue", result[1]);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testSort() {
+        String input = "name=='*Kitchen*'";
+
+        Node node = ParseHelper.parse(input, allowedSelectorNames);
+        Predicate<Long, Restaurant> query = (Predicate<Long, Restaurant>) visitor.start(node);
+        Sort sort = ParseHelper.parseSort("-name,address.street", allowedSelectorNames);
+        PagingPredicate<Long, Restaurant> paging = Predicates.pagingPredicate(query,
+                visitor.<Long, Restaurant>getComparator(sort), 5);
+
+        List<Restaurant> results = new ArrayList<>(getMap().values(paging));
+
+        Assert.assertEquals(5, results.size());
+        for (int i = 1; i < results.size(); i++) {
+            Assert.assertTrue(results.get(i - 1).getName().compareTo(results.get(i).getName()) >= 0);
+        }
+    }
+
     @Test
     public void testAlwaysWildcardPredicate() {
         String input = "name=='Kitchen'";
@@ -0,0 +1,186 @@
+package org.hschott.ficum.visitor;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hschott.ficum.node.Node;
+import org.hschott.ficum.parser.ParseHelper;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.samples.petclinic.model.Owner;
+import org.springframework.samples.petclinic.model.Pet;
+import org.springframework.samples.petclinic.model.Visit;
+import org.springframework.samples.petclinic.model.VisitType;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.List;
+import java.util.function.Predicate;
+
+public class InMemoryPredicateVisitorTest {
+
+    private static final List<Restaurant> restaurants = new ArrayList<>();
+
+    private final String[] allowedSelectorNames = {"name", "borough", "address.street", "address.zipcode",
+            "address.location.coordinates", "grade.date", "grade.score"};
+
+    private final String[] allowedPetSelectorNames = {"name", "nicknames", "visits", "visits.type", "owner.firstName"};
+
+    private InMemoryPredicateVisitor<Restaurant> visitor;
+
+    private InMemoryPredicateVisitor<Pet> petVisitor;
+
+    private List<Pet> pets;
+
+    @BeforeClass
+    public static void setUpClass() throws IOException, URISyntaxException {
+        File input = new File(ClassLoader.getSystemResource("db/mongodb/dataset.json").toURI());
+        ObjectMapper objectMapper = new ObjectMapper();
+        try (BufferedReader reader = new BufferedReader(new FileReader(input))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                restaurants.add(objectMapper.readValue(line, Restaurant.class));
+            }
+        }
+    }
+
+    private static Pet pet(String name, String owner, List<String> nicknames, VisitType... visitTypes) {
+        Pet pet = new Pet();
+        pet.setName(name);
+        pet.setNicknames(new ArrayList<>(nicknames));
+        for (VisitType visitType : visitTypes) {
+            Visit visit = new Visit();
+            visit.setType(visitType);
+            visit.setDate(new GregorianCalendar(2015, Calendar.JANUARY, 1));
+            pet.addVisit(visit);
+        }
+        Owner person = new Owner();
+        person.setFirstName(owner);
+        person.addPet(pet);
+        return pet;
+    }
+
+    private long count(String input) {
+        Node node = ParseHelper.parse(input, allowedSelectorNames);
+        Predicate<Restaurant> predicate = visitor.start(node);
+        return restaurants.stream().filter(predicate).count();
+    }
+
+    private long countPets(String input) {
+        Node node = ParseHelper.parse(input, allowedPetSelectorNames);
+        Predicate<Pet> predicate = petVisitor.start(node);
+        return pets.stream().filter(predicate).count();
+    }
+
+    @Before
+    public void setUp() {
+        visitor = new InMemoryPredicateVisitor<>(Restaurant.class);
+        petVisitor = new InMemoryPredicateVisitor<>(Pet.class);
+        pets = List.of(pet("Chuck", "Jeff", List.of("Chucky", "Chuckles"), VisitType.SCHEDULED, VisitType.EMERGENCY),
+                pet("Max", "Jean", List.of(), VisitType.SCHEDULED),
+                pet("Lucky", "Jeff", List.of("Lucks")));
+    }
+
+    @Test
+    public void testAlwaysWildcardPredicate() {
+        visitor.setAlwaysWildcard(true);
+        Assert.assertEquals(53, count("name=='Kitchen'"));
+    }
+
+    @Test
+    public void testAndPredicate() {
+        Assert.assertEquals(2, count("borough=='Manhattan',address.street=='11 Avenue'"));
+        Assert.assertEquals(3, count("borough=='Manhattan',address.street=='11 Avenue';address.street=='East   74 "
+                + "Street',name=='Glorious Food'"));
+    }
+
+    @Test
+    public void testDate() {
+        Assert.assertEquals(306, count("grade.date=ge=2015-01-01,grade.score=gt=1"));
+        Assert.assertEquals(306, count("grade.date=ge=2015-01-01T00:00:00.000Z,grade.score=gt=1"));
+    }
+
+    @Test
+    public void testNull() {
+        Assert.assertEquals(1, count("address.zipcode==null"));
+        Assert.assertEquals(4998, count("address.zipcode!=null"));
+    }
+
+    @Test
+    public void testNegatedOperations() {
+        Assert.assertEquals(2574, count("borough!='Manhattan'.name!='*Cafe'"));
+        Assert.assertEquals(4750, count("name=='*Kitchen':name=='*Cafe'"));
+        Assert.assertEquals(2511, count("borough!='Manhattan'"));
+    }
+
+    @Test
+    public void testIn() {
+        Assert.assertEquals(3475, count("borough=in=['Queens','Manhattan']"));
+        Assert.assertEquals(1524, count("borough=nin=['Queens','Manhattan']"));
+        Assert.assertEquals(4012, count("borough=nin=['Queens']"));
+    }
+
+    @Test
+    public void testWildcards() {
+        Assert.assertEquals(44, count("name=='*Kitchen'"));
+        Assert.assertEquals(141, count("(name=='*Kitchen';name=='*Cafe'),borough=='Manhattan'"));
+    }
+
+    @Test
+    public void testCollectionElements() {
+        Assert.assertEquals(1, countPets("nicknames=='Chucky'"));
+        Assert.assertEquals(2, countPets("nicknames=='*uck*'"));
+        Assert.assertEquals(2, countPets("nicknames!='Chucky'"));
+        Assert.assertEquals(1, countPets("visits.type=='EMERGENCY'"));
+        Assert.assertEquals(2, countPets("visits.type=in=['SCHEDULED']"));
+    }
+
+    @Test
+    public void testCollectionSize() {
+        Assert.assertEquals(1, countPets("visits=ge=2"));
+        Assert.assertEquals(1, countPets("visits==0"));
+        Assert.assertEquals(2, countPets("nicknames!=0"));
+    }
+
+    @Test
+    public void testNestedPath() {
+        Assert.assertEquals(2, countPets("owner.firstName=='Jeff'"));
+        Assert.assertEquals(1, countPets("owner.firstName=='Jeff',nicknames=='L*'"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testFieldUnknown() {
+        petVisitor.start(ParseHelper.parse("unknown==1", "unknown"));
+    }
+
+    private void assertGeoCount(int expected, String comparison) {
+        String input = "address.location.coordinates" + comparison;
+        Assert.assertEquals(input, expected, count(input));
+    }
+
+    @Test
+    public void testGeospatial() {
+        // the same counts as in MongoDB
+        assertGeoCount(4, "=nr=[-73.856077,40.848447,500.0]");
+        assertGeoCount(2, "=nr=[-73.856077,40.899447,400.0,10.0]");
+        assertGeoCount(10, "=wi=[-73.856077,40.848447,-73.84856870000002,40.8903781]");
+        assertGeoCount(4, "=wi=[-73.856077,40.848447," + 500 / (6371.2 * 1000) + "]");
+        assertGeoCount(24, "=wi=[-73.856077,40.848447,-73.8786113,40.8502883,-73.84856870000002,40.8903781]");
+        assertGeoCount(24, "=ix=[-73.856077,40.848447,-73.8786113,40.8502883,-73.84856870000002,40.8903781]");
+        assertGeoCount(1, "=ix=[-73.7032601,40.7386417]");
+        assertGeoCount(2, "=ix=[-74.0259567,40.6353674,-73.9246028,40.6522396]");
+        Assert.assertEquals(0, count("name=wi=[1.0,2.0,3.0]"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testGeoArguments() {
+        petVisitor.start(ParseHelper.parse("name=wi=[1.0,2.0]", allowedPetSelectorNames));
+    }
+
+}
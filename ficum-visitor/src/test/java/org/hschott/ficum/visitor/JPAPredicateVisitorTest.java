@@ -1,7 +1,11 @@
 package org.hschott.ficum.visitor;
 
 import org.hschott.ficum.node.AbstractVisitor;
+import org.hschott.ficum.node.FieldMapping;
+import org.hschott.ficum.node.Memoization;
 import org.hschott.ficum.node.Node;
+import org.hschott.ficum.node.Projection;
+import org.hschott.ficum.node.Sort;
 import org.hschott.ficum.parser.ParseHelper;
 import org.junit.Assert;
 import org.junit.Before;
@@ -16,6 +20,7 @@ import javax.persistence.criteria.Root;
 import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
 import java.util.List;
+import java.util.Map;
 
 public class JPAPredicateVisitorTest {
 
@@ -392,6 +397,69 @@ public class JPAPredicateVisitorTest {
         Assert.assertEquals(1, results.size());
     }
 
+    @Test
+    public void testSharedFieldMapping() {
+        String input = "owner=='Jeff'";
+        Node node = ParseHelper.parse(input, "owner");
+
+        JPAPredicateVisitor<Pet> visitor = new JPAPredicateVisitor<>(Pet.class, root,
+                                                                     entityManager.getCriteriaBuilder());
+        visitor.setFieldMapping(FieldMapping.of(Map.of("owner", "owner.firstName")));
+        Predicate predicate = visitor.start(node);
+        TypedQuery<Pet> query = getTypedQuery(predicate);
+
+        List<Pet> results = query.getResultList();
+
+        Assert.assertEquals(1, results.size());
+    }
+
+    @Test
+    public void testStructuralMemoization() {
+        String input = "(owner.firstName=='Jeff',name=='Chuck');(owner.firstName=='Jeff',name=='Max')";
+        Node node = ParseHelper.parse(input, allowedSelectorNames);
+
+        petVisitor.setMemoization(Memoization.STRUCTURAL);
+        Predicate predicate = petVisitor.start(node);
+        TypedQuery<Pet> query = getTypedQuery(predicate);
+
+        List<Pet> results = query.getResultList();
+
+        Assert.assertEquals(1, results.size());
+    }
+
+    @Test
+    public void testProjection() {
+        String input = "name=='Chuck'";
+        Node node = ParseHelper.parse(input, allowedSelectorNames);
+        Projection projection = ParseHelper.parseProjection("name,owner.firstName", allowedSelectorNames);
+
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> tupleQuery = criteriaBuilder.createTupleQuery();
+        Root<Pet> tupleRoot = tupleQuery.from(Pet.class);
+        JPAPredicateVisitor<Pet> visitor = new JPAPredicateVisitor<>(Pet.class, tupleRoot, criteriaBuilder);
+        tupleQuery.multiselect(visitor.getSelections(projection)).where(visitor.start(node));
+
+        List<Tuple> results = entityManager.createQuery(tupleQuery).getResultList();
+
+        Assert.assertEquals(1, results.size());
+        Assert.assertEquals("Chuck", results.getFirst().get("name"));
+        Assert.assertEquals("Jeff", results.getFirst().get("owner.firstName"));
+    }
+
+    @Test
+    public void testSort() {
+        String input = "name=='*uck*'";
+        Node node = ParseHelper.parse(input, allowedSelectorNames);
+        Sort sort = ParseHelper.parseSort("-name", allowedSelectorNames);
+
+        Predicate predicate = petVisitor.start(node);
+        List<Pet> results = entityManager.createQuery(
+                cq.select(root).where(predicate).orderBy(petVisitor.getOrders(sort))).getResultList();
+
+        Assert.assertEquals(2, results.size());
+        Assert.assertTrue(results.get(0).getName().compareTo(results.get(1).getName()) > 0);
+    }
+
     @Test
     public void testLessThan() {
         String input = "born=lt=2012-08-31";
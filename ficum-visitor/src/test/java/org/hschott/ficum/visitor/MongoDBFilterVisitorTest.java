@@ -9,6 +9,8 @@ import com.mongodb.client.model.Indexes;
 import org.bson.Document;
 import org.bson.conversions.Bson;
 import org.hschott.ficum.node.Node;
+import org.hschott.ficum.node.Projection;
+import org.hschott.ficum.node.Sort;
 import org.hschott.ficum.parser.ParseHelper;
 import org.junit.*;
 
@@ -84,6 +86,36 @@ public class MongoDBFilterVisitorTest {
         Assert.assertEquals(53, getCollection(db).countDocuments(query));
     }
 
+    @Test
+    public void testProjection() {
+        String input = "name=='Mcquaids Public House'";
+
+        Node node = ParseHelper.parse(input, allowedSelectorNames);
+        Projection projection = ParseHelper.parseProjection("name,address.street", allowedSelectorNames);
+        Document document = getCollection(db).find(visitor.start(node)).projection(visitor.getProjection(projection))
+                                              .first();
+
+        Assert.assertNotNull(document);
+        Assert.assertEquals("Mcquaids Public House", document.getString("name"));
+        Assert.assertEquals("11 Avenue", document.get("address", Document.class).getString("street"));
+        Assert.assertNull(document.get("borough"));
+    }
+
+    @Test
+    public void testSort() {
+        String input = "name=='*Kitchen*'";
+
+        Node node = ParseHelper.parse(input, allowedSelectorNames);
+        Sort sort = ParseHelper.parseSort("-name", allowedSelectorNames);
+        List<String> names = getCollection(db).find(visitor.start(node)).sort(visitor.getSort(sort)).limit(5)
+                                              .map(document -> document.getString("name")).into(new ArrayList<>());
+
+        Assert.assertEquals(5, names.size());
+        for (int i = 1; i < names.size(); i++) {
+            Assert.assertTrue(names.get(i - 1).compareTo(names.get(i)) >= 0);
+        }
+    }
+
     @Test
     public void testAndPredicate() {
         String input = "borough=='Manhattan',address.street=='11 Avenue'";
@@ -0,0 +1,100 @@
+package org.hschott.ficum.visitor;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hschott.ficum.parser.ParseHelper;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+public class NdjsonFilterTest {
+
+    private static final String[] allowedSelectorNames = {"name", "borough", "cuisine", "address.street",
+            "address.zipcode", "grades.date", "grades.score", "grades.0.grade"};
+
+    private static Path file;
+
+    private static List<String> lines;
+
+    @BeforeClass
+    public static void setUpClass() throws URISyntaxException, IOException {
+        file = Path.of(ClassLoader.getSystemResource("db/mongodb/dataset.json").toURI());
+        lines = Files.readAllLines(file);
+    }
+
+    private static NdjsonFilter filter(String input) {
+        return new NdjsonFilter(new DocumentPredicateVisitor(), ParseHelper.parse(input, allowedSelectorNames));
+    }
+
+    private static List<String> expected(String input) throws IOException {
+        Predicate<Object> predicate = new DocumentPredicateVisitor()
+                .start(ParseHelper.parse(input, allowedSelectorNames));
+        ObjectMapper objectMapper = new ObjectMapper();
+        List<String> expected = new ArrayList<>();
+        for (String line : lines) {
+            if (predicate.test(objectMapper.readValue(line, Map.class))) {
+                expected.add(line);
+            }
+        }
+        return expected;
+    }
+
+    @Test
+    public void testFile() throws IOException {
+        String input = "grades.date=ge=2015-01-01,grades.score=lt=1";
+        List<String> result = new ArrayList<>();
+        long matches = filter(input).filter(file, (buffer, offset, length) ->
+                result.add(new String(buffer, offset, length, StandardCharsets.UTF_8)));
+
+        Assert.assertEquals(11, matches);
+        Assert.assertEquals(expected(input), result);
+    }
+
+    @Test
+    public void testRawLines() throws IOException {
+        String input = "(name=='*Kitchen';name=='*Cafe'),borough=='Manhattan'";
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long matches = filter(input).filter(Files.newInputStream(file), out);
+
+        Assert.assertEquals(141, matches);
+        Assert.assertEquals(String.join("\n", expected(input)) + "\n", out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testSmallBuffer() throws IOException {
+        NdjsonFilter filter = filter("borough!='Manhattan'");
+        filter.setBufferSize(16);
+        Assert.assertEquals(2511, filter.filter(Files.newInputStream(file), (buffer, offset, length) -> {
+        }));
+    }
+
+    @Test
+    public void testLineEndings() throws IOException {
+        String input = "{\"name\":\"A\",\"grades\":[{\"grade\":\"B\"}]}\r\n\n  \n"
+                + "{\"name\":\"B\",\"skip\":{\"deep\":[1,{\"x\":[]}]},\"grades\":[{\"grade\":\"A\"}]}";
+        List<String> result = new ArrayList<>();
+        filter("grades.0.grade=='A';name=='A'").filter(new ByteArrayInputStream(
+                input.getBytes(StandardCharsets.UTF_8)), (buffer, offset, length) ->
+                result.add(new String(buffer, offset, length, StandardCharsets.UTF_8)));
+
+        Assert.assertEquals(List.of("{\"name\":\"A\",\"grades\":[{\"grade\":\"B\"}]}",
+                "{\"name\":\"B\",\"skip\":{\"deep\":[1,{\"x\":[]}]},\"grades\":[{\"grade\":\"A\"}]}"), result);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBufferSize() {
+        filter("borough=='Manhattan'").setBufferSize(0);
+    }
+
+}
@@ -0,0 +1,138 @@
+package org.hschott.ficum.visitor;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hschott.ficum.parser.ParseHelper;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+public class ParallelFilterTest {
+
+    private static final List<Restaurant> restaurants = new ArrayList<>();
+
+    private static final String[] allowedSelectorNames = {"name", "borough", "address.street", "address.zipcode",
+            "grade.date", "grade.score"};
+
+    private static ForkJoinPool pool;
+
+    @BeforeClass
+    public static void setUpClass() throws IOException, URISyntaxException {
+        File input = new File(ClassLoader.getSystemResource("db/mongodb/dataset.json").toURI());
+        ObjectMapper objectMapper = new ObjectMapper();
+        try (BufferedReader reader = new BufferedReader(new FileReader(input))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                restaurants.add(objectMapper.readValue(line, Restaurant.class));
+            }
+        }
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+        pool.shutdown();
+    }
+
+    private static ParallelFilter<Restaurant> filter(String input) {
+        Predicate<Restaurant> predicate = new CompilingPredicateVisitor<>(Restaurant.class)
+                .start(ParseHelper.parse(input, allowedSelectorNames));
+        ParallelFilter<Restaurant> filter = new ParallelFilter<>(predicate);
+        filter.setPool(pool);
+        return filter;
+    }
+
+    @Test
+    public void testEncounterOrder() {
+        Predicate<Restaurant> predicate = new InMemoryPredicateVisitor<>(Restaurant.class)
+                .start(ParseHelper.parse("borough!='Manhattan'", allowedSelectorNames));
+        List<Restaurant> expected = restaurants.stream().filter(predicate).toList();
+
+        List<Restaurant> result = filter("borough!='Manhattan'").filter(restaurants);
+        Assert.assertEquals(2511, result.size());
+        Assert.assertEquals(expected, result);
+    }
+
+    @Test
+    public void testLimit() {
+        ParallelFilter<Restaurant> filter = filter("borough=='Manhattan'");
+        List<Restaurant> result = filter.filter(restaurants, 10);
+        Assert.assertEquals(10, result.size());
+        Assert.assertTrue(result.stream().allMatch(restaurant -> "Manhattan".equals(restaurant.getBorough())));
+
+        Assert.assertEquals(44, filter("name=='*Kitchen'").filter(restaurants, 100).size());
+        Assert.assertTrue(filter.filter(restaurants, 0).isEmpty());
+    }
+
+    @Test
+    public void testMapValues() {
+        Map<Long, Restaurant> cache = new ConcurrentHashMap<>();
+        for (int i = 0; i < restaurants.size(); i++) {
+            cache.put((long) i, restaurants.get(i));
+        }
+        Assert.assertEquals(3475, filter("borough=in=['Queens','Manhattan']").filterValues(cache,
+                Integer.MAX_VALUE).size());
+    }
+
+    @Test
+    public void testConfiguredPool() {
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            Set<ForkJoinPool> pools = ConcurrentHashMap.newKeySet();
+            ParallelFilter<Restaurant> filter = new ParallelFilter<>(restaurant -> {
+                pools.add(ForkJoinTask.getPool());
+                return "Manhattan".equals(restaurant.getBorough());
+            });
+            filter.setPool(pool);
+
+            Assert.assertEquals(filter("borough=='Manhattan'").filter(restaurants).size(),
+                    filter.filter(restaurants).size());
+            Assert.assertEquals(Set.of(pool), pools);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testStream() {
+        ParallelFilter<Restaurant> filter = filter("(name=='*Kitchen';name=='*Cafe'),borough=='Manhattan'");
+        Assert.assertEquals(141, filter.stream(restaurants).count());
+        Assert.assertEquals(filter.filter(restaurants), filter.stream(restaurants).toList());
+    }
+
+    @Test
+    public void testStreamOnConfiguredPool() {
+        Set<ForkJoinPool> pools = ConcurrentHashMap.newKeySet();
+        ParallelFilter<Restaurant> filter = new ParallelFilter<>(restaurant -> {
+            pools.add(ForkJoinTask.getPool());
+            return "Manhattan".equals(restaurant.getBorough());
+        });
+        filter.setPool(pool);
+
+        Stream<Restaurant> stream = filter.stream(restaurants);
+        Assert.assertTrue(pools.isEmpty());
+        Assert.assertEquals(filter.filter(restaurants).size(), stream.count());
+        Assert.assertEquals(Set.of(pool), pools);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeLimit() {
+        filter("borough=='Manhattan'").filter(restaurants, -1);
+    }
+
+}
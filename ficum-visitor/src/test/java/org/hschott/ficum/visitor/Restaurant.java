@@ -147,9 +147,9 @@ public class Restaurant implements Serializable {
 
     public static class Location implements Serializable {
         private String type;
-        private Long[] coordinates;
+        private Double[] coordinates;
 
-        public Long[] getCoordinates() {
+        public Double[] getCoordinates() {
             return coordinates;
         }
 
@@ -157,7 +157,7 @@ public class Restaurant implements Serializable {
             return type;
         }
 
-        public void setCoordinates(Long[] coordinates) {
+        public void setCoordinates(Double[] coordinates) {
             this.coordinates = coordinates;
         }
 